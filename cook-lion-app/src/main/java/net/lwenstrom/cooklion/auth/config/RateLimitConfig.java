@@ -0,0 +1,55 @@
+package net.lwenstrom.cooklion.auth.config;
+
+import java.util.List;
+import net.lwenstrom.cooklion.auth.ratelimit.RateLimitRule;
+import net.lwenstrom.cooklion.auth.ratelimit.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${app.rate-limit.max-buckets:100000}")
+    private int maxBuckets;
+
+    @Value("${app.rate-limit.public.capacity:30}")
+    private int publicCapacity;
+
+    @Value("${app.rate-limit.public.refill-per-second:5}")
+    private double publicRefillPerSecond;
+
+    @Value("${app.rate-limit.public-recipes.capacity:60}")
+    private int publicRecipesCapacity;
+
+    @Value("${app.rate-limit.public-recipes.refill-per-second:20}")
+    private double publicRecipesRefillPerSecond;
+
+    @Value("${app.rate-limit.admin.capacity:30}")
+    private int adminCapacity;
+
+    @Value("${app.rate-limit.admin.refill-per-second:5}")
+    private double adminRefillPerSecond;
+
+    @Value("${app.rate-limit.api.capacity:120}")
+    private int apiCapacity;
+
+    @Value("${app.rate-limit.api.refill-per-second:30}")
+    private double apiRefillPerSecond;
+
+    @Bean
+    public RateLimiter rateLimiter() {
+        // Most specific patterns first, the first matching rule wins
+        return new RateLimiter(
+                List.of(
+                        new RateLimitRule("public", "/api/public/**", publicCapacity, publicRefillPerSecond),
+                        new RateLimitRule(
+                                "public-recipes",
+                                "/api/recipes/public/**",
+                                publicRecipesCapacity,
+                                publicRecipesRefillPerSecond),
+                        new RateLimitRule("admin", "/api/admin/**", adminCapacity, adminRefillPerSecond),
+                        new RateLimitRule("api", "/api/**", apiCapacity, apiRefillPerSecond)),
+                maxBuckets);
+    }
+}
@@ -1,9 +1,11 @@
 package net.lwenstrom.cooklion.auth.config;
 
+import jakarta.servlet.DispatcherType;
 import java.util.Arrays;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import net.lwenstrom.cooklion.auth.filter.JwtAuthenticationFilter;
+import net.lwenstrom.cooklion.auth.filter.RateLimitFilter;
 import net.lwenstrom.cooklion.auth.service.CustomOAuth2UserService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -30,6 +32,7 @@ public class SecurityConfig {
 
     private final CustomOAuth2UserService customOAuth2UserService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins;
@@ -49,6 +52,10 @@ public class SecurityConfig {
                         .addHeaderWriter(new ReferrerPolicyHeaderWriter(
                                 ReferrerPolicyHeaderWriter.ReferrerPolicy.STRICT_ORIGIN_WHEN_CROSS_ORIGIN)))
                 .authorizeHttpRequests(authz -> authz
+                        // Dispatches of streaming responses; the request was authorized on its initial dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                        .permitAll()
+
                         // Public API endpoints
                         .requestMatchers("/api/public/**")
                         .permitAll()
@@ -56,10 +63,15 @@ public class SecurityConfig {
                         .permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/recipes/public/**")
                         .permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/files/public/**")
+                        .permitAll()
 
                         // Admin API endpoints
                         .requestMatchers("/api/admin/**")
                         .hasRole("ADMIN")
+                        // Owners delete their own recipes; the service checks ownership
+                        .requestMatchers(HttpMethod.DELETE, "/api/recipes/**")
+                        .hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/**")
                         .hasRole("ADMIN")
 
@@ -81,7 +93,8 @@ public class SecurityConfig {
                             response.getWriter()
                                     .write("{\"error\":\"Forbidden\",\"message\":\"Insufficient privileges\"}");
                         }))
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,48 @@
+package net.lwenstrom.cooklion.auth.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.dto.RefreshTokenRequest;
+import net.lwenstrom.cooklion.auth.dto.TokenResponse;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.service.RefreshTokenService;
+import net.lwenstrom.cooklion.auth.service.UserAccountService;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequiredArgsConstructor
+public class AuthTokenController {
+
+    private final RefreshTokenService refreshTokenService;
+    private final UserAccountService userAccountService;
+
+    /** Hands API tokens to a user that is logged in through the OAuth2 web flow. */
+    @PostMapping("/auth/token")
+    public TokenResponse issueToken(@AuthenticationPrincipal OAuth2User principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        UserIdentity user = userAccountService
+                .findIdentityByEmail(principal.getAttribute("email"))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        return refreshTokenService.issue(user);
+    }
+
+    @PostMapping("/api/public/auth/refresh")
+    public TokenResponse refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return refreshTokenService.rotate(request.refreshToken());
+    }
+
+    @PostMapping("/api/public/auth/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout(@Valid @RequestBody RefreshTokenRequest request) {
+        refreshTokenService.revoke(request.refreshToken());
+    }
+}
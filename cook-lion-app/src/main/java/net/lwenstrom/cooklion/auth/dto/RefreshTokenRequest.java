@@ -0,0 +1,5 @@
+package net.lwenstrom.cooklion.auth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequest(@NotBlank String refreshToken) {}
@@ -0,0 +1,8 @@
+package net.lwenstrom.cooklion.auth.dto;
+
+public record TokenResponse(String accessToken, String refreshToken, String tokenType, long expiresIn) {
+
+    public static TokenResponse bearer(String accessToken, String refreshToken, long expiresInSeconds) {
+        return new TokenResponse(accessToken, refreshToken, "Bearer", expiresInSeconds);
+    }
+}
@@ -0,0 +1,69 @@
+package net.lwenstrom.cooklion.auth.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolves the address of the client behind a request. Forwarding headers can be set by anyone, so they are only
+ * honored on connections from a configured trusted proxy; otherwise every client could pick its own address, and with
+ * it a fresh rate limit bucket per request.
+ */
+@Component
+class ClientIpAddress {
+
+    private static final Pattern IP_LITERAL = Pattern.compile("[0-9a-fA-F:.]+");
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    ClientIpAddress(@Value("${app.rate-limit.trusted-proxies:}") String trustedProxies) {
+        this.trustedProxies = Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (StringUtils.hasText(xForwardedFor)) {
+            // Proxies append, so the rightmost address not added by a trusted proxy is the first one to trust
+            String[] hops = xForwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (StringUtils.hasText(hop) && (i == 0 || !isTrusted(hop))) {
+                    return hop;
+                }
+            }
+        }
+
+        String xRealIp = request.getHeader("X-Real-IP");
+        if (StringUtils.hasText(xRealIp)) {
+            return xRealIp.trim();
+        }
+
+        return remoteAddr;
+    }
+
+    private boolean isTrusted(String address) {
+        // Only IP literals, anything else in a header, such as an obfuscated identifier, must not cause a DNS lookup
+        if (trustedProxies.isEmpty() || !IP_LITERAL.matcher(address).matches()) {
+            return false;
+        }
+        try {
+            return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
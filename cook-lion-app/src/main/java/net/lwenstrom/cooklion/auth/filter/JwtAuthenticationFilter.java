@@ -9,7 +9,9 @@ import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.auth.model.JwtPrincipal;
 import net.lwenstrom.cooklion.auth.service.JwtService;
+import net.lwenstrom.cooklion.auth.service.RevokedTokenFamilies;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -28,6 +30,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final String BEARER_PREFIX = "Bearer ";
 
     private final JwtService jwtService;
+    private final RevokedTokenFamilies revokedTokenFamilies;
+    private final ClientIpAddress clientIpAddress;
 
     @Override
     protected void doFilterInternal(
@@ -44,20 +48,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            if (!jwtService.isTokenValid(jwt)) {
-                log.debug("Invalid JWT token provided");
+            // Parses and verifies the token once; repeated requests with the same token hit the verification cache
+            final JwtPrincipal principal = jwtService.verifyToken(jwt);
+            final String username = principal.subject();
+
+            if (principal.familyId() != null && revokedTokenFamilies.isRevoked(principal.familyId())) {
+                log.debug("Revoked JWT token family presented for user: {}", username);
+                response.setHeader("X-Auth-Error", "Token revoked");
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            final String username = jwtService.extractUsername(jwt);
-            final List<String> roles = jwtService.extractClaim(jwt, claims -> claims.get("authorities", List.class));
-
-            if (StringUtils.hasText(username)
-                    && roles != null
-                    && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (StringUtils.hasText(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                List<SimpleGrantedAuthority> authorities = roles.stream()
+                List<SimpleGrantedAuthority> authorities = principal.authorities().stream()
                         .filter(StringUtils::hasText)
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
@@ -75,8 +79,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             log.debug("JWT token expired for request: {}", request.getRequestURI());
             response.setHeader("X-Auth-Error", "Token expired");
         } catch (io.jsonwebtoken.MalformedJwtException e) {
-            log.warn("Malformed JWT token received from IP: {}", getClientIpAddress(request));
+            log.warn("Malformed JWT token received from IP: {}", clientIpAddress.resolve(request));
             response.setHeader("X-Auth-Error", "Malformed token");
+        } catch (io.jsonwebtoken.JwtException e) {
+            log.debug("Invalid JWT token provided: {}", e.getMessage());
+            response.setHeader("X-Auth-Error", "Invalid token");
         } catch (Exception e) {
             log.error("Unexpected JWT authentication error: {}", e.getMessage());
             response.setHeader("X-Auth-Error", "Authentication failed");
@@ -109,18 +116,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         return null;
     }
-
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (StringUtils.hasText(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (StringUtils.hasText(xRealIp)) {
-            return xRealIp;
-        }
-
-        return request.getRemoteAddr();
-    }
 }
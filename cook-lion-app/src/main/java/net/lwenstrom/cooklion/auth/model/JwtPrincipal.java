@@ -0,0 +1,21 @@
+package net.lwenstrom.cooklion.auth.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable result of a successful JWT verification. Instances are shared between requests through the
+ * verified-token cache, so they must never be mutated. {@code familyId} is only set for access tokens issued together
+ * with a refresh token.
+ */
+public record JwtPrincipal(String subject, List<String> authorities, Instant expiresAt, UUID familyId) {
+
+    public JwtPrincipal {
+        authorities = authorities == null ? List.of() : List.copyOf(authorities);
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
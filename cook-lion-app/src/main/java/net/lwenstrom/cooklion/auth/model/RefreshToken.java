@@ -0,0 +1,61 @@
+package net.lwenstrom.cooklion.auth.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.lwenstrom.cooklion.common.model.AbstractAuditableEntity;
+
+/**
+ * Opaque refresh token. Only the SHA-256 hash of the token is stored. All tokens created by rotating one another
+ * share a family; reusing an already consumed token revokes the whole family.
+ */
+@Getter
+@Setter
+@ToString(exclude = "user")
+@Entity
+@Table(
+        name = "refresh_tokens",
+        indexes = {
+            @Index(name = "idx_refresh_tokens_hash", columnList = "token_hash", unique = true),
+            @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+            @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+            @Index(name = "idx_refresh_tokens_revoked_at", columnList = "revoked_at")
+        })
+public class RefreshToken extends AbstractAuditableEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private UserAccount user;
+
+    @NotNull
+    @Column(name = "family_id", nullable = false, columnDefinition = "uuid")
+    private UUID familyId;
+
+    @NotNull
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "consumed_at")
+    private Instant consumedAt;
+
+    @Column(name = "revoked_at")
+    private Instant revokedAt;
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,16 @@
+package net.lwenstrom.cooklion.auth.model;
+
+import java.util.Set;
+import java.util.UUID;
+
+/** Immutable snapshot of the identity-relevant parts of a {@link UserAccount}, safe to share through caches. */
+public record UserIdentity(UUID id, String email, String username, boolean enabled, Set<Role> roles) {
+
+    public UserIdentity {
+        roles = Set.copyOf(roles);
+    }
+
+    public static UserIdentity of(UserAccount user) {
+        return new UserIdentity(user.getId(), user.getEmail(), user.getUsername(), user.isEnabled(), user.getRoles());
+    }
+}
@@ -0,0 +1,24 @@
+package net.lwenstrom.cooklion.auth.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Limits requests matching {@code pathPattern} to a burst of {@code capacity} requests per client, refilled at
+ * {@code refillPerSecond}.
+ */
+public record RateLimitRule(String name, String pathPattern, int capacity, double refillPerSecond) {
+
+    public RateLimitRule {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit '" + name + "' needs a positive capacity and refill rate");
+        }
+    }
+
+    long emissionIntervalNanos() {
+        return (long) (Duration.ofSeconds(1).toNanos() / refillPerSecond);
+    }
+
+    long burstToleranceNanos() {
+        return emissionIntervalNanos() * (capacity - 1);
+    }
+}
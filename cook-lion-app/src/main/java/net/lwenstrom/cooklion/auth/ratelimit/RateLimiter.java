@@ -0,0 +1,61 @@
+package net.lwenstrom.cooklion.auth.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Per-client token buckets for each {@link RateLimitRule}. Buckets are created on first use and expire once unused
+ * for as long as the slowest rule takes to refill completely, when dropping a bucket is indistinguishable from
+ * keeping it. The number of buckets is capped: beyond {@code maxBuckets} the least valuable ones are evicted in
+ * amortized constant time, so clients making up new keys cannot grow the map or slow down requests.
+ */
+public class RateLimiter {
+
+    private final List<RateLimitRule> rules;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Cache<BucketKey, TokenBucket> buckets;
+
+    public RateLimiter(List<RateLimitRule> rules, int maxBuckets) {
+        this.rules = List.copyOf(rules);
+        long refillNanos = this.rules.stream()
+                .mapToLong(rule -> rule.emissionIntervalNanos() * rule.capacity())
+                .max()
+                .orElse(0);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofNanos(refillNanos))
+                .build();
+    }
+
+    /** Returns the first rule matching the path, rules being ordered from most to least specific. */
+    public RateLimitRule ruleFor(String path) {
+        for (RateLimitRule rule : rules) {
+            if (pathMatcher.match(rule.pathPattern(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a token from the client's bucket for the rule.
+     *
+     * @return {@link Duration#ZERO} if the request may proceed, otherwise the time until the client may retry
+     */
+    public Duration tryAcquire(RateLimitRule rule, String clientKey) {
+        long now = System.nanoTime();
+        BucketKey key = new BucketKey(rule.name(), clientKey);
+        TokenBucket bucket = buckets.get(key, ignored -> new TokenBucket(now));
+        long waitNanos = bucket.tryAcquire(now, rule.emissionIntervalNanos(), rule.burstToleranceNanos());
+        return waitNanos == 0 ? Duration.ZERO : Duration.ofNanos(waitNanos);
+    }
+
+    public long bucketCount() {
+        return buckets.estimatedSize();
+    }
+
+    private record BucketKey(String rule, String client) {}
+}
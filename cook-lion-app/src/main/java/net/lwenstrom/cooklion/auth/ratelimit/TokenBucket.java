@@ -0,0 +1,36 @@
+package net.lwenstrom.cooklion.auth.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: instead of a token count the bucket stores the
+ * theoretical arrival time of the next request, which a single CAS advances by one emission interval per request.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrivalNanos;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @return {@code 0} if the request is allowed, otherwise the nanoseconds until the next token becomes available
+     */
+    long tryAcquire(long nowNanos, long emissionIntervalNanos, long burstToleranceNanos) {
+        while (true) {
+            long current = theoreticalArrivalNanos.get();
+            long arrival = Math.max(current, nowNanos);
+            // A full bucket has its arrival time at now, and admits requests until it is the tolerance ahead
+            long waitNanos = arrival - nowNanos - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package net.lwenstrom.cooklion.auth.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import net.lwenstrom.cooklion.auth.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /** Marks the token as consumed unless another request did so first; returns the number of updated rows. */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.consumedAt = :now WHERE t.id = :id AND t.consumedAt IS NULL")
+    int markConsumed(@Param("id") UUID id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") Instant now);
+
+    @Query("SELECT DISTINCT t.familyId FROM RefreshToken t WHERE t.revokedAt > :since")
+    List<UUID> findFamilyIdsRevokedSince(@Param("since") Instant since);
+}
@@ -1,5 +1,6 @@
 package net.lwenstrom.cooklion.auth.repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import net.lwenstrom.cooklion.auth.model.UserAccount;
@@ -21,5 +22,30 @@ public interface UserAccountRepository extends JpaRepository<UserAccount, UUID>
 
     boolean existsByUsername(String username);
 
+    /**
+     * Returns {@code username} if it is taken, followed by the taken usernames made of {@code base} and a numeric
+     * suffix of up to six digits without leading zeros, ordered by the suffix.
+     *
+     * @param basePattern {@code base} escaped for LIKE with {@code \}, followed by {@code %}
+     * @param suffixStart the 1-based position of the suffix, the length of {@code base} plus one
+     */
+    @Query(
+            value =
+                    """
+                    SELECT username FROM users
+                    WHERE username = :username
+                        OR (username LIKE :basePattern ESCAPE '\\'
+                            AND substring(username FROM :suffixStart) ~ '^[1-9][0-9]{0,5}$')
+                    ORDER BY username <> :username, length(username), username
+                    LIMIT :limit OFFSET :offset
+                    """,
+            nativeQuery = true)
+    List<String> findTakenUsernames(
+            @Param("username") String username,
+            @Param("basePattern") String basePattern,
+            @Param("suffixStart") int suffixStart,
+            @Param("limit") int limit,
+            @Param("offset") int offset);
+
     boolean existsByEmail(String email);
 }
@@ -8,7 +8,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.lwenstrom.cooklion.auth.model.Role;
 import net.lwenstrom.cooklion.auth.model.UserAccount;
-import net.lwenstrom.cooklion.auth.repository.UserAccountRepository;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
@@ -29,8 +29,8 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     private static final String EMAIL_REQUIRED_ERROR = "email_required";
     private static final String USER_CREATION_ERROR = "user_creation_failed";
 
-    private final UserAccountRepository userAccountRepository;
     private final UserAccountService userAccountService;
+    private final UsernameAllocator usernameAllocator;
 
     @Value("${app.admin.emails:}")
     private String adminEmails;
@@ -58,24 +58,26 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                     new OAuth2Error(EMAIL_REQUIRED_ERROR), "Email address is required for authentication");
         }
 
-        UserAccount user = findOrCreateUser(email, username, name);
-        userAccountService.updateLastLogin(user);
+        UserIdentity user = findOrCreateUser(email, username, name);
+        userAccountService.updateLastLogin(user.id());
 
         // Convert roles to Spring Security authorities
-        Set<SimpleGrantedAuthority> authorities = user.getRoles().stream()
+        Set<SimpleGrantedAuthority> authorities = user.roles().stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
                 .collect(Collectors.toSet());
 
         log.info(
                 "OAuth2 user authenticated: {} with roles: {}",
                 email,
-                user.getRoles().stream().map(Role::name).collect(Collectors.toList()));
+                user.roles().stream().map(Role::name).collect(Collectors.toList()));
 
         return new DefaultOAuth2User(authorities, oauth2User.getAttributes(), "email");
     }
 
-    private UserAccount findOrCreateUser(String email, String username, String name) {
-        return userAccountRepository.findByEmail(email).orElseGet(() -> createNewUser(email, username, name));
+    private UserIdentity findOrCreateUser(String email, String username, String name) {
+        return userAccountService
+                .findIdentityByEmail(email)
+                .orElseGet(() -> UserIdentity.of(createNewUser(email, username, name)));
     }
 
     private UserAccount createNewUser(String email, String username, String name) {
@@ -88,7 +90,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             // Assign roles based on configuration
             assignUserRoles(user, email);
 
-            UserAccount savedUser = userAccountRepository.save(user);
+            UserAccount savedUser = userAccountService.createUser(user);
 
             log.info(
                     "Created new user account: {} with roles: {}",
@@ -108,14 +110,8 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         String baseUsername =
                 StringUtils.hasText(preferredUsername) ? preferredUsername : extractUsernameFromEmail(email);
 
-        // Ensure username uniqueness
-        String username = baseUsername;
-        int counter = 1;
-        while (userAccountRepository.existsByUsername(username)) {
-            username = baseUsername + counter++;
-        }
-
-        return username;
+        // Ensure username uniqueness with a single lookup, regardless of how many similar names exist
+        return usernameAllocator.allocate(baseUsername);
     }
 
     private void assignUserRoles(UserAccount user, String email) {
@@ -3,27 +3,40 @@ package net.lwenstrom.cooklion.auth.service;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 import javax.crypto.SecretKey;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.auth.model.JwtPrincipal;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private static final String AUTHORITIES_CLAIM = "authorities";
+    private static final String FAMILY_CLAIM = "fid";
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -33,12 +46,38 @@ public class JwtService {
     @Value("${app.jwt.refresh-token-expiration-days:7}")
     private long refreshTokenExpirationDays;
 
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        // Deriving the key and building the parser is comparatively expensive, so do it once
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     public String generateAccessToken(String username, Collection<String> authorities) {
         Map<String, Object> extraClaims = new HashMap<>();
-        extraClaims.put("authorities", authorities);
+        extraClaims.put(AUTHORITIES_CLAIM, authorities);
+        return generateToken(extraClaims, username, accessTokenExpirationMinutes, ChronoUnit.MINUTES);
+    }
+
+    /** Issues an access token bound to a refresh token family, so revoking the family also rejects the token. */
+    public String generateAccessToken(String username, Collection<String> authorities, UUID familyId) {
+        Map<String, Object> extraClaims = new HashMap<>();
+        extraClaims.put(AUTHORITIES_CLAIM, authorities);
+        extraClaims.put(FAMILY_CLAIM, familyId.toString());
         return generateToken(extraClaims, username, accessTokenExpirationMinutes, ChronoUnit.MINUTES);
     }
 
+    public Duration getAccessTokenExpiration() {
+        return Duration.ofMinutes(accessTokenExpirationMinutes);
+    }
+
+    public Duration getRefreshTokenExpiration() {
+        return Duration.ofDays(refreshTokenExpirationDays);
+    }
+
     public String generateToken(Map<String, Object> extraClaims, String subject, long expiration, ChronoUnit unit) {
         Instant now = Instant.now();
         Instant expirationTime = now.plus(expiration, unit);
@@ -48,13 +87,39 @@ public class JwtService {
                 .subject(subject)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expirationTime))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Verifies the token and returns its principal. The signature is only checked on the first call for a given
+     * token; repeated calls within the token lifetime are answered from the {@link VerifiedTokenCache}.
+     *
+     * @throws JwtException if the token is malformed, expired or carries an invalid signature
+     */
+    public JwtPrincipal verifyToken(String token) {
+        JwtPrincipal cached = verifiedTokenCache.getIfPresent(token);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return cached;
+        }
+
+        Claims claims = extractAllClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new UnsupportedJwtException("JWT token does not carry an expiration");
+        }
+
+        JwtPrincipal principal = new JwtPrincipal(
+                claims.getSubject(),
+                extractAuthorities(claims),
+                claims.getExpiration().toInstant(),
+                extractFamilyId(claims));
+        verifiedTokenCache.put(token, principal);
+        return principal;
+    }
+
     public boolean isTokenValid(String token) {
         try {
-            return !isTokenExpired(token);
+            return !verifyToken(token).isExpired(Instant.now());
         } catch (SecurityException e) {
             log.warn("Invalid JWT signature: {}", e.getMessage());
             return false;
@@ -91,22 +156,30 @@ public class JwtService {
 
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return jwtParser.parseSignedClaims(token).getPayload();
         } catch (JwtException e) {
             log.debug("Failed to parse JWT token", e);
             throw e;
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static List<String> extractAuthorities(Claims claims) {
+        Object value = claims.get(AUTHORITIES_CLAIM);
+        if (!(value instanceof Collection<?> authorities)) {
+            return List.of();
+        }
+        return authorities.stream().filter(String.class::isInstance).map(String.class::cast).toList();
     }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private static UUID extractFamilyId(Claims claims) {
+        String familyId = claims.get(FAMILY_CLAIM, String.class);
+        if (familyId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(familyId);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("Invalid token family claim", e);
+        }
     }
 }
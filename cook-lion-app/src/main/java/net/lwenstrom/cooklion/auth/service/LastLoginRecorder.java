@@ -0,0 +1,144 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind buffer for {@code users.last_login_at}. Logins only record a timestamp in memory; repeated logins of
+ * the same user are coalesced to the latest one. The buffer is flushed periodically, when it reaches its capacity and
+ * on shutdown, each time with a single set-based UPDATE. A full buffer hands the flush to the scheduler rather than
+ * running it on the login thread, which still holds the connection of its own transaction; the buffer then keeps
+ * coalescing until the flush has run, growing at most by one entry per user.
+ *
+ * <p>The UPDATE deliberately leaves {@code version} and {@code updated_at} alone, so a login never causes optimistic
+ * locking conflicts with real edits of the account.
+ */
+@Slf4j
+@Component
+public class LastLoginRecorder {
+
+    private static final String FLUSH_SQL =
+            """
+            UPDATE users AS u
+            SET last_login_at = v.last_login_at
+            FROM unnest(?::uuid[], ?::timestamptz[]) AS v(id, last_login_at)
+            WHERE u.id = v.id AND (u.last_login_at IS NULL OR u.last_login_at < v.last_login_at)
+            """;
+
+    private final Map<UUID, Instant> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final Timer flushTimer;
+    private final int capacity;
+
+    public LastLoginRecorder(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            TaskScheduler taskScheduler,
+            @Value("${app.users.last-login.capacity:10000}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Flushes must neither join nor be rolled back with the login transaction that triggered them
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.taskScheduler = taskScheduler;
+        this.capacity = capacity;
+        this.flushTimer = Timer.builder("users.last-login.flush")
+                .description("Time taken to write buffered last-login timestamps")
+                .register(meterRegistry);
+        Gauge.builder("users.last-login.pending", pending, Map::size)
+                .description("Users with a buffered last-login timestamp")
+                .register(meterRegistry);
+    }
+
+    public void record(UUID userId, Instant loginAt) {
+        pending.merge(userId, loginAt, LastLoginRecorder::latest);
+        if (pending.size() >= capacity && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.last-login.flush-interval:PT5S}")
+    public void flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty() || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushTimer.record(this::flushPending);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        List<UUID> userIds = new ArrayList<>(pending.size());
+        List<Instant> loginTimes = new ArrayList<>(pending.size());
+        for (UUID userId : pending.keySet()) {
+            Instant loginAt = pending.remove(userId);
+            if (loginAt != null) {
+                userIds.add(userId);
+                loginTimes.add(loginAt);
+            }
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(FLUSH_SQL);
+                statement.setArray(1, connection.createArrayOf("text", toStrings(userIds)));
+                statement.setArray(2, connection.createArrayOf("text", toStrings(loginTimes)));
+                return statement;
+            }));
+            log.debug("Flushed last-login timestamps of {} users", userIds.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush last-login timestamps of {} users, retrying later", userIds.size(), e);
+            for (int i = 0; i < userIds.size(); i++) {
+                pending.merge(userIds.get(i), loginTimes.get(i), LastLoginRecorder::latest);
+            }
+        }
+    }
+
+    private static Instant latest(Instant current, Instant added) {
+        return current.isAfter(added) ? current : added;
+    }
+
+    private static String[] toStrings(List<?> values) {
+        return values.stream().map(Object::toString).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,134 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.auth.dto.TokenResponse;
+import net.lwenstrom.cooklion.auth.model.RefreshToken;
+import net.lwenstrom.cooklion.auth.model.Role;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.repository.RefreshTokenRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Issues and rotates refresh tokens. Every rotation consumes the presented token and hands out a new one of the same
+ * family; presenting a consumed token again is treated as theft and revokes the entire family, including the access
+ * tokens issued for it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenFamilies revokedTokenFamilies;
+    private final JwtService jwtService;
+    private final UserAccountService userAccountService;
+
+    private volatile Instant lastRevocationSync = Instant.EPOCH;
+
+    @Transactional
+    public TokenResponse issue(UserIdentity user) {
+        return issueInFamily(user, UUID.randomUUID());
+    }
+
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public TokenResponse rotate(String rawRefreshToken) {
+        Instant now = Instant.now();
+        RefreshToken current = refreshTokenRepository
+                .findByTokenHash(hash(rawRefreshToken))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+
+        if (current.getRevokedAt() != null) {
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+        if (current.isExpired(now)) {
+            throw new BadCredentialsException("Refresh token has expired");
+        }
+        if (refreshTokenRepository.markConsumed(current.getId(), now) == 0) {
+            log.warn("Refresh token reuse detected for family {}, revoking family", current.getFamilyId());
+            revokeFamily(current.getFamilyId(), now);
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+
+        // Reading the id does not initialize the lazy user; identity and roles come from the user cache
+        UserIdentity user = userAccountService
+                .findIdentityById(current.getUser().getId())
+                .filter(UserIdentity::enabled)
+                .orElseThrow(() -> new BadCredentialsException("User account is not available"));
+        return issueInFamily(user, current.getFamilyId());
+    }
+
+    @Transactional
+    public void revoke(String rawRefreshToken) {
+        refreshTokenRepository
+                .findByTokenHash(hash(rawRefreshToken))
+                .ifPresent(token -> revokeFamily(token.getFamilyId(), Instant.now()));
+    }
+
+    /** Loads recent revocations on startup and picks up the ones made by other instances afterwards. */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval:PT30S}")
+    @Transactional(readOnly = true)
+    public void synchronizeRevocations() {
+        Instant now = Instant.now();
+        Instant accessTokenCutoff = now.minus(jwtService.getAccessTokenExpiration());
+        // Overlap with the previous run so revocations committed while it ran are not missed
+        Instant since = lastRevocationSync.isAfter(accessTokenCutoff) ? lastRevocationSync : accessTokenCutoff;
+        List<UUID> familyIds = refreshTokenRepository.findFamilyIdsRevokedSince(since.minusSeconds(5));
+
+        Instant retainUntil = now.plus(jwtService.getAccessTokenExpiration());
+        familyIds.forEach(familyId -> revokedTokenFamilies.revoke(familyId, retainUntil));
+        revokedTokenFamilies.prune(now);
+        lastRevocationSync = now;
+    }
+
+    private TokenResponse issueInFamily(UserIdentity user, UUID familyId) {
+        String rawRefreshToken = generateRawToken();
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUser(userAccountService.getReference(user.id()));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setTokenHash(hash(rawRefreshToken));
+        refreshToken.setExpiresAt(Instant.now().plus(jwtService.getRefreshTokenExpiration()));
+        refreshTokenRepository.save(refreshToken);
+
+        List<String> authorities = user.roles().stream().map(Role::getAuthority).toList();
+        String accessToken = jwtService.generateAccessToken(user.username(), authorities, familyId);
+
+        return TokenResponse.bearer(accessToken, rawRefreshToken, jwtService.getAccessTokenExpiration().toSeconds());
+    }
+
+    private void revokeFamily(UUID familyId, Instant now) {
+        refreshTokenRepository.revokeFamily(familyId, now);
+        revokedTokenFamilies.revoke(familyId, now.plus(jwtService.getAccessTokenExpiration()));
+    }
+
+    private String generateRawToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
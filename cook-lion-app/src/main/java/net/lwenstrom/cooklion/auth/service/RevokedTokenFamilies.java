@@ -0,0 +1,126 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory set of revoked refresh token families, consulted for every authenticated API request.
+ *
+ * <p>Lookups go through a Bloom filter first, so the common case (family not revoked) is answered with a handful of
+ * array reads. Only on a filter hit is the exact set consulted, which is split into stripes to keep map resizes
+ * small. Neither path takes a lock or allocates; writers, which are rare, serialize on this instance.
+ */
+@Component
+public class RevokedTokenFamilies {
+
+    private static final int STRIPES = 16;
+    private static final int HASH_FUNCTIONS = 4;
+
+    private final int bloomFilterBits;
+    private final Map<UUID, Instant>[] stripes;
+    private volatile BloomFilter bloomFilter;
+
+    @SuppressWarnings("unchecked")
+    public RevokedTokenFamilies(@Value("${app.jwt.revocation.bloom-filter-bits:1048576}") int bloomFilterBits) {
+        this.bloomFilterBits = bloomFilterBits;
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.bloomFilter = new BloomFilter(bloomFilterBits);
+    }
+
+    public boolean isRevoked(UUID familyId) {
+        long hash = hash(familyId);
+        if (!bloomFilter.mightContain(hash)) {
+            return false;
+        }
+        return stripeFor(hash).containsKey(familyId);
+    }
+
+    /**
+     * Records a revoked family. It is kept until {@code retainUntil}, by which time every access token issued for the
+     * family has expired on its own.
+     */
+    public synchronized void revoke(UUID familyId, Instant retainUntil) {
+        long hash = hash(familyId);
+        stripeFor(hash).merge(familyId, retainUntil, (current, added) -> current.isAfter(added) ? current : added);
+        bloomFilter.put(hash);
+    }
+
+    /** Drops families whose access tokens have all expired and rebuilds the Bloom filter from the remaining ones. */
+    public synchronized void prune(Instant now) {
+        BloomFilter rebuilt = new BloomFilter(bloomFilterBits);
+        for (Map<UUID, Instant> stripe : stripes) {
+            stripe.values().removeIf(retainUntil -> !retainUntil.isAfter(now));
+            stripe.keySet().forEach(familyId -> rebuilt.put(hash(familyId)));
+        }
+        bloomFilter = rebuilt;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<UUID, Instant> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Map<UUID, Instant> stripeFor(long hash) {
+        return stripes[(int) (hash >>> 60) & (STRIPES - 1)];
+    }
+
+    /** MurmurHash3 finalizer over both halves of the UUID. */
+    private static long hash(UUID familyId) {
+        long hash = familyId.getMostSignificantBits() ^ Long.rotateLeft(familyId.getLeastSignificantBits(), 32);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final int mask;
+
+        BloomFilter(int bits) {
+            int size = Integer.highestOneBit(Math.max(bits, Long.SIZE));
+            this.words = new AtomicLongArray(size / Long.SIZE);
+            this.mask = size - 1;
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = (h1 + i * h2) & mask;
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = (h1 + i * h2) & mask;
+                int index = bit >>> 6;
+                long flag = 1L << bit;
+                long current;
+                do {
+                    current = words.get(index);
+                } while ((current & flag) == 0 && !words.compareAndSet(index, current, current | flag));
+            }
+        }
+    }
+}
@@ -2,11 +2,18 @@ package net.lwenstrom.cooklion.auth.service;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.Role;
 import net.lwenstrom.cooklion.auth.model.UserAccount;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
 import net.lwenstrom.cooklion.auth.repository.UserAccountRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @RequiredArgsConstructor
@@ -14,6 +21,8 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserAccountService {
 
     private final UserAccountRepository userAccountRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final LastLoginRecorder lastLoginRecorder;
 
     @Transactional(readOnly = true)
     public Optional<UserAccount> findByUsername(String username) {
@@ -25,6 +34,31 @@ public class UserAccountService {
         return userAccountRepository.findByEmail(email);
     }
 
+    // Identity lookups must not open a transaction of their own: a cache hit should not even borrow a connection
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<UserIdentity> findIdentityById(UUID id) {
+        return userIdentityCache.getById(id, () -> userAccountRepository.findById(id).map(UserIdentity::of));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<UserIdentity> findIdentityByUsername(String username) {
+        return userIdentityCache.getByUsername(
+                username, () -> userAccountRepository.findByUsername(username).map(UserIdentity::of));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<UserIdentity> findIdentityByEmail(String email) {
+        return userIdentityCache.getByEmail(
+                email, () -> userAccountRepository.findByEmail(email).map(UserIdentity::of));
+    }
+
+    /** Returns a lazy reference for wiring associations without loading the account. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public UserAccount getReference(UUID id) {
+        return userAccountRepository.getReferenceById(id);
+    }
+
     @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
         return userAccountRepository.existsByUsername(username);
@@ -36,11 +70,38 @@ public class UserAccountService {
     }
 
     public UserAccount createUser(UserAccount userAccount) {
-        return userAccountRepository.save(userAccount);
+        UserAccount savedUser = userAccountRepository.save(userAccount);
+        evictIdentity(savedUser.getId());
+        return savedUser;
     }
 
-    public void updateLastLogin(UserAccount user) {
-        user.setLastLoginAt(Instant.now());
+    public UserIdentity updateRoles(UUID userId, Set<Role> roles) {
+        UserAccount user = userAccountRepository
+                .findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown user: " + userId));
+        user.getRoles().clear();
+        user.getRoles().addAll(roles);
         userAccountRepository.save(user);
+        evictIdentity(userId);
+        return UserIdentity.of(user);
+    }
+
+    /** Buffers the login time; it is written asynchronously together with other logins. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void updateLastLogin(UUID userId) {
+        lastLoginRecorder.record(userId, Instant.now());
+    }
+
+    /** Evicts now and again after commit, so readers cannot re-cache the pre-commit state in between. */
+    private void evictIdentity(UUID userId) {
+        userIdentityCache.evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userIdentityCache.evict(userId);
+                }
+            });
+        }
     }
 }
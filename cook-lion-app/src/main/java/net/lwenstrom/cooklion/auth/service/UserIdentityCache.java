@@ -0,0 +1,91 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Near cache of {@link UserIdentity} snapshots. Identities are stored once by id; lookups by email and username go
+ * through small secondary indexes pointing to the id. Absent users are not cached, so a freshly created account is
+ * visible immediately.
+ *
+ * <p>Hit, miss and eviction counts of all three caches are published as {@code cache.*} metrics.
+ */
+@Component
+public class UserIdentityCache {
+
+    private final Cache<UUID, UserIdentity> byId;
+    private final Cache<String, UUID> idByEmail;
+    private final Cache<String, UUID> idByUsername;
+
+    public UserIdentityCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.users.maximum-size:10000}") long maximumSize,
+            @Value("${app.cache.users.ttl:PT10M}") Duration ttl) {
+        this.byId = CaffeineCacheMetrics.monitor(meterRegistry, newCache(maximumSize, ttl), "users.identity.by-id");
+        this.idByEmail =
+                CaffeineCacheMetrics.monitor(meterRegistry, newCache(maximumSize, ttl), "users.identity.by-email");
+        this.idByUsername =
+                CaffeineCacheMetrics.monitor(meterRegistry, newCache(maximumSize, ttl), "users.identity.by-username");
+    }
+
+    public Optional<UserIdentity> getById(UUID id, Supplier<Optional<UserIdentity>> loader) {
+        UserIdentity cached = byId.getIfPresent(id);
+        return cached != null ? Optional.of(cached) : load(loader);
+    }
+
+    public Optional<UserIdentity> getByEmail(String email, Supplier<Optional<UserIdentity>> loader) {
+        UUID id = idByEmail.getIfPresent(email);
+        UserIdentity cached = id != null ? byId.getIfPresent(id) : null;
+        // The index may point to an identity whose email has changed since
+        return cached != null && cached.email().equals(email) ? Optional.of(cached) : load(loader);
+    }
+
+    public Optional<UserIdentity> getByUsername(String username, Supplier<Optional<UserIdentity>> loader) {
+        UUID id = idByUsername.getIfPresent(username);
+        UserIdentity cached = id != null ? byId.getIfPresent(id) : null;
+        return cached != null && cached.username().equals(username) ? Optional.of(cached) : load(loader);
+    }
+
+    public void put(UserIdentity identity) {
+        byId.put(identity.id(), identity);
+        idByEmail.put(identity.email(), identity.id());
+        idByUsername.put(identity.username(), identity.id());
+    }
+
+    public void evict(UUID id) {
+        UserIdentity evicted = byId.asMap().remove(id);
+        if (evicted != null) {
+            idByEmail.invalidate(evicted.email());
+            idByUsername.invalidate(evicted.username());
+        }
+    }
+
+    public void evictAll() {
+        byId.invalidateAll();
+        idByEmail.invalidateAll();
+        idByUsername.invalidateAll();
+    }
+
+    private Optional<UserIdentity> load(Supplier<Optional<UserIdentity>> loader) {
+        Optional<UserIdentity> loaded = loader.get();
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    private static <K, V> Cache<K, V> newCache(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.auth.repository.UserAccountRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Picks a free username for a new account: the preferred name if available, otherwise the name followed by the
+ * smallest free numeric suffix ({@code chef}, {@code chef1}, {@code chef2}, ...). Only names that get a suffix are
+ * shortened to leave room for it.
+ *
+ * <p>Whether the name is taken and which suffixes are taken is read with one query returning at most a page of names
+ * in suffix order; further pages are only read while the suffixes seen so far leave no gap. Names handed out by
+ * transactions that have not committed yet are reserved in memory until the transaction completes, so concurrent
+ * first logins on this instance do not race for the same name.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsernameAllocator {
+
+    private static final int MAX_USERNAME_LENGTH = 64;
+    private static final int MAX_SUFFIX_DIGITS = 6;
+    private static final int PAGE_SIZE = 1000;
+
+    private final UserAccountRepository userAccountRepository;
+    private final Set<String> reservedUsernames = ConcurrentHashMap.newKeySet();
+
+    public String allocate(String baseUsername) {
+        String preferred = truncate(baseUsername, MAX_USERNAME_LENGTH);
+        String base = truncate(baseUsername, MAX_USERNAME_LENGTH - MAX_SUFFIX_DIGITS);
+        String basePattern = escapeLikePattern(base) + "%";
+
+        BitSet takenSuffixes = new BitSet();
+        List<String> page =
+                userAccountRepository.findTakenUsernames(preferred, basePattern, base.length() + 1, PAGE_SIZE, 0);
+        boolean preferredTaken = !page.isEmpty() && page.getFirst().equals(preferred);
+        if (!preferredTaken && reserve(preferred)) {
+            return preferred;
+        }
+
+        int read = 0;
+        while (true) {
+            page.forEach(taken -> {
+                int suffix = parseSuffix(base, taken);
+                if (suffix > 0) {
+                    takenSuffixes.set(suffix);
+                }
+            });
+            read += page.size();
+            // Suffixes arrive in order, so a gap below the last one is final
+            if (page.size() < PAGE_SIZE || takenSuffixes.nextClearBit(1) < parseSuffix(base, page.getLast())) {
+                break;
+            }
+            page = userAccountRepository.findTakenUsernames(
+                    preferred, basePattern, base.length() + 1, PAGE_SIZE, read);
+        }
+
+        int suffix = takenSuffixes.nextClearBit(1);
+        while (!reserve(base + suffix)) {
+            suffix = takenSuffixes.nextClearBit(suffix + 1);
+        }
+        return base + suffix;
+    }
+
+    private boolean reserve(String username) {
+        if (!reservedUsernames.add(username)) {
+            log.debug("Username {} is reserved by a concurrent registration", username);
+            return false;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    reservedUsernames.remove(username);
+                }
+            });
+        } else {
+            // Without a surrounding transaction the caller persists right away; nothing to guard
+            reservedUsernames.remove(username);
+        }
+        return true;
+    }
+
+    /** Returns the numeric suffix of {@code candidate} following {@code base}, or {@code -1} if there is none. */
+    private static int parseSuffix(String base, String candidate) {
+        int length = candidate.length() - base.length();
+        if (length <= 0 || length > MAX_SUFFIX_DIGITS || !candidate.startsWith(base)) {
+            return -1;
+        }
+
+        int suffix = 0;
+        for (int i = base.length(); i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            suffix = suffix * 10 + (c - '0');
+        }
+        // "chef01" does not occupy the suffix 1
+        return candidate.charAt(base.length()) == '0' ? -1 : suffix;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,81 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import net.lwenstrom.cooklion.auth.model.JwtPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size-bounded cache of already verified access tokens. Entries are keyed by the SHA-256 digest of the raw token
+ * (never the token itself) and expire together with the token they were created from.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Cache<String, JwtPrincipal> cache;
+
+    public VerifiedTokenCache(@Value("${app.jwt.verification-cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+                        return remainingNanos(principal);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(
+                            String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return remainingNanos(principal);
+                    }
+
+                    @Override
+                    public long expireAfterRead(
+                            String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public JwtPrincipal getIfPresent(String token) {
+        return cache.getIfPresent(digest(token));
+    }
+
+    public void put(String token, JwtPrincipal principal) {
+        if (!principal.isExpired(Instant.now())) {
+            cache.put(digest(token), principal);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static long remainingNanos(JwtPrincipal principal) {
+        return Math.max(0L, Duration.between(Instant.now(), principal.expiresAt()).toNanos());
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+}
@@ -0,0 +1,20 @@
+package net.lwenstrom.cooklion.auth.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the {@link net.lwenstrom.cooklion.auth.model.UserIdentity} of the authenticated API user into a controller
+ * method. Resolution goes through the user identity cache, so it normally costs no query.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    /** Whether an anonymous request is rejected with 401 instead of resolving to {@code null}. */
+    boolean required() default true;
+}
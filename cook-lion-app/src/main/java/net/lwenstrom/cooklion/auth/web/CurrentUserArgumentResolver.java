@@ -0,0 +1,58 @@
+package net.lwenstrom.cooklion.auth.web;
+
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.service.UserAccountService;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+@Component
+@RequiredArgsConstructor
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final UserAccountService userAccountService;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && UserIdentity.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(
+            MethodParameter parameter,
+            ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest,
+            WebDataBinderFactory binderFactory) {
+        boolean required = parameter.getParameterAnnotation(CurrentUser.class).required();
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            if (required) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+            }
+            return null;
+        }
+
+        // API tokens carry the username as subject
+        UserIdentity user = userAccountService
+                .findIdentityByUsername(authentication.getName())
+                .filter(UserIdentity::enabled)
+                .orElse(null);
+        if (user == null && required) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,21 @@
+package net.lwenstrom.cooklion.common.config;
+
+import net.lwenstrom.cooklion.common.persistence.StatementCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    @Value("${app.statement-budget.enforce:false}")
+    private boolean enforceStatementBudgets;
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        StatementCounter statementCounter = new StatementCounter(enforceStatementBudgets);
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+}
@@ -0,0 +1,27 @@
+package net.lwenstrom.cooklion.common.config;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.web.CurrentUserArgumentResolver;
+import net.lwenstrom.cooklion.common.persistence.StatementBudgetInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CurrentUserArgumentResolver currentUserArgumentResolver;
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementBudgetInterceptor()).addPathPatterns("/api/**");
+    }
+}
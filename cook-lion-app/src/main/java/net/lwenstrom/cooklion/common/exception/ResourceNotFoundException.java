@@ -0,0 +1,12 @@
+package net.lwenstrom.cooklion.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ResourceNotFoundException extends RuntimeException {
+
+    public ResourceNotFoundException(String resource, Object id) {
+        super(resource + " not found: " + id);
+    }
+}
@@ -0,0 +1,25 @@
+package net.lwenstrom.cooklion.common.model;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generates version 7 UUIDs (RFC 9562): a millisecond timestamp followed by random bits. Consecutive ids land next to
+ * each other in B-tree indexes, so bulk inserts append to the right edge of the primary key index instead of touching
+ * random pages like version 4 ids do.
+ */
+public final class TimeOrderedUuid {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private TimeOrderedUuid() {}
+
+    public static UUID next() {
+        long timestamp = System.currentTimeMillis();
+        long randomHigh = RANDOM.nextLong();
+        long randomLow = RANDOM.nextLong();
+        long mostSignificantBits = (timestamp << 16) | 0x7000L | (randomHigh & 0x0FFFL);
+        long leastSignificantBits = (randomLow & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
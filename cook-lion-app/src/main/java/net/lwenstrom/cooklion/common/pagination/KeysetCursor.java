@@ -0,0 +1,44 @@
+package net.lwenstrom.cooklion.common.pagination;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+
+/**
+ * Position in a listing ordered by {@code (createdAt, id)}: the sort key of the last row a client has seen. Clients
+ * get it as an opaque URL-safe string and pass it back unchanged to fetch the next page.
+ */
+public record KeysetCursor(Instant createdAt, UUID id) {
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(createdAt.getEpochSecond())
+                .putInt(createdAt.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /** Returns {@code null} for a missing cursor, meaning the first page. */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != ENCODED_BYTES) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Instant createdAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            return new KeysetCursor(createdAt, new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
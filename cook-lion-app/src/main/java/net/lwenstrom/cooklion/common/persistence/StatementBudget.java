@@ -0,0 +1,23 @@
+package net.lwenstrom.cooklion.common.persistence;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how many SQL statements Hibernate may issue while handling a request to the annotated controller method.
+ * The budget is independent of the number of rows returned, so exceeding it almost always means an N+1 query. It
+ * counts statements prepared by Hibernate only; plain JDBC access is not included.
+ *
+ * @see StatementCounter
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface StatementBudget {
+
+    /** Maximum number of statements, including lookups made while resolving the current user. */
+    int value();
+}
@@ -0,0 +1,8 @@
+package net.lwenstrom.cooklion.common.persistence;
+
+public class StatementBudgetExceededException extends IllegalStateException {
+
+    public StatementBudgetExceededException(String handler, int budget, String sql) {
+        super("Handler " + handler + " exceeded its budget of " + budget + " SQL statements with: " + sql);
+    }
+}
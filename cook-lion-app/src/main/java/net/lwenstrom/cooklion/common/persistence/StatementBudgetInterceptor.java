@@ -0,0 +1,44 @@
+package net.lwenstrom.cooklion.common.persistence;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/** Opens a {@link StatementBudget} for the duration of an annotated handler method. */
+@Slf4j
+public class StatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    @Override
+    public boolean preHandle(
+            @NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            StatementBudget budget = method.getMethodAnnotation(StatementBudget.class);
+            if (budget != null) {
+                StatementCounter.start(method.getShortLogMessage(), budget.value());
+            }
+        }
+        return true;
+    }
+
+    /** Streaming handlers return before their response is written; the thread must not keep their budget. */
+    @Override
+    public void afterConcurrentHandlingStarted(
+            @NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        StatementCounter.stop();
+    }
+
+    @Override
+    public void afterCompletion(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull Object handler,
+            Exception ex) {
+        int statements = StatementCounter.stop();
+        if (statements > 0) {
+            log.trace("{} {} issued {} SQL statements", request.getMethod(), request.getRequestURI(), statements);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package net.lwenstrom.cooklion.common.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the statements Hibernate prepares on the current thread while a {@link StatementBudget} is active. In
+ * enforcing mode the statement exceeding the budget fails with {@link StatementBudgetExceededException} before it
+ * runs, so any integration test hitting a regressed endpoint fails instead of passing slowly; otherwise the overrun is
+ * logged once per request.
+ */
+@Slf4j
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Budget> CURRENT = new ThreadLocal<>();
+
+    private final boolean enforce;
+
+    private static final class Budget {
+
+        private final String handler;
+        private final int limit;
+        private int count;
+        private boolean reported;
+
+        private Budget(String handler, int limit) {
+            this.handler = handler;
+            this.limit = limit;
+        }
+    }
+
+    public StatementCounter(boolean enforce) {
+        this.enforce = enforce;
+    }
+
+    static void start(String handler, int limit) {
+        CURRENT.set(new Budget(handler, limit));
+    }
+
+    /** Ends the budget of the current thread and returns the number of statements counted. */
+    static int stop() {
+        Budget budget = CURRENT.get();
+        CURRENT.remove();
+        return budget != null ? budget.count : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Budget budget = CURRENT.get();
+        if (budget != null && ++budget.count > budget.limit) {
+            if (enforce) {
+                throw new StatementBudgetExceededException(budget.handler, budget.limit, sql);
+            }
+            if (!budget.reported) {
+                budget.reported = true;
+                log.warn(
+                        "Handler {} exceeded its budget of {} SQL statements, possible N+1 query: {}",
+                        budget.handler,
+                        budget.limit,
+                        sql);
+            }
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,118 @@
+package net.lwenstrom.cooklion.files.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import net.lwenstrom.cooklion.files.dto.FileAssetView;
+import net.lwenstrom.cooklion.files.service.FileDownload;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Writes file contents for whole and single-range requests. Contents are immutable, so the checksum serves as a strong
+ * ETag for revalidation and {@code If-Range}. Requests for several ranges get the whole file.
+ *
+ * <p>Local blobs are handed to Tomcat, which sends them with {@code sendfile} after the handler returns. Elsewhere the
+ * range goes through {@code FileChannel.transferTo} or the backend's equivalent into the response.
+ */
+final class FileContentWriter {
+
+    // Request attributes of Tomcat's sendfile support, see org.apache.catalina.Globals
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Types browsers render without running anything; everything else is served as an attachment. */
+    private static final Set<String> INLINE_TYPES =
+            Set.of("image/png", "image/jpeg", "image/gif", "image/webp", "image/avif");
+
+    private FileContentWriter() {}
+
+    static void write(
+            FileDownload download, CacheControl cacheControl, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        FileAssetView file = download.file();
+        String etag = "\"" + file.checksumSha256() + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        long size = download.content().size();
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(
+                file.contentType() != null ? file.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        boolean inline = file.contentType() != null && INLINE_TYPES.contains(file.contentType());
+        ContentDisposition.Builder disposition = inline ? ContentDisposition.inline() : ContentDisposition.attachment();
+        response.setHeader(
+                HttpHeaders.CONTENT_DISPOSITION,
+                disposition.filename(file.filename(), StandardCharsets.UTF_8).build().toString());
+
+        long start = 0;
+        long length = size;
+        HttpRange range = requestedRange(request, etag);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(size);
+                length = range.getRangeEnd(size) - start + 1;
+            } catch (IllegalArgumentException e) {
+                length = 0;
+            }
+            if (length <= 0 || start >= size) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + length - 1) + "/" + size);
+        }
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        Optional<Path> localFile = download.content().localFile();
+        if (localFile.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, localFile.get().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        try (WritableByteChannel output = Channels.newChannel(response.getOutputStream())) {
+            download.content().transferTo(start, length, output);
+        }
+    }
+
+    /** The single range to serve, or null for the whole file. */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        // A range of a different version than the client holds would be spliced into the wrong content
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.getFirst() : null;
+        } catch (IllegalArgumentException e) {
+            // Invalid ranges are ignored
+            return null;
+        }
+    }
+}
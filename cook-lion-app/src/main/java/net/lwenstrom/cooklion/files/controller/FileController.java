@@ -0,0 +1,80 @@
+package net.lwenstrom.cooklion.files.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.io.IOException;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.common.persistence.StatementBudget;
+import net.lwenstrom.cooklion.files.dto.FileAssetView;
+import net.lwenstrom.cooklion.files.service.FileDownload;
+import net.lwenstrom.cooklion.files.service.FileStorageService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Uploads and downloads of files. An upload is the raw request body with the file's content type; it is streamed
+ * into storage, never buffered as a whole. Downloads run on the request thread and support {@code Range} requests.
+ */
+@RestController
+@RequestMapping("/api/files")
+@Validated
+@RequiredArgsConstructor
+public class FileController {
+
+    private final FileStorageService fileStorageService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @StatementBudget(2)
+    public FileAssetView upload(
+            @CurrentUser UserIdentity user,
+            @RequestParam @NotBlank @Size(max = 255) String filename,
+            @RequestParam(defaultValue = "false") boolean publiclyAccessible,
+            HttpServletRequest request)
+            throws IOException {
+        return fileStorageService.upload(
+                user, filename, request.getContentType(), publiclyAccessible, request.getInputStream());
+    }
+
+    @GetMapping("/{id}")
+    @StatementBudget(2)
+    public FileAssetView get(@PathVariable UUID id, @CurrentUser UserIdentity user) {
+        return fileStorageService.get(id, user.id());
+    }
+
+    @GetMapping("/{id}/content")
+    @StatementBudget(2)
+    public void download(
+            @PathVariable UUID id,
+            @CurrentUser UserIdentity user,
+            HttpServletRequest request,
+            HttpServletResponse response)
+            throws IOException {
+        try (FileDownload download = fileStorageService.open(id, user.id())) {
+            FileContentWriter.write(download, CacheControl.noCache().cachePrivate(), request, response);
+        }
+    }
+
+    /** Public files only; shared caches may store the response but have to revalidate it. */
+    @GetMapping("/public/{id}/content")
+    @StatementBudget(1)
+    public void downloadPublic(@PathVariable UUID id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        try (FileDownload download = fileStorageService.open(id, null)) {
+            FileContentWriter.write(download, CacheControl.noCache().cachePublic(), request, response);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package net.lwenstrom.cooklion.files.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+import net.lwenstrom.cooklion.files.model.FileAsset;
+
+public record FileAssetView(
+        UUID id,
+        String filename,
+        String contentType,
+        long sizeBytes,
+        String checksumSha256,
+        boolean publiclyAccessible,
+        Instant createdAt) {
+
+    public static FileAssetView of(FileAsset asset) {
+        return new FileAssetView(
+                asset.getId(),
+                asset.getFilename(),
+                asset.getContentType(),
+                asset.getSizeBytes(),
+                asset.getChecksumSha256(),
+                asset.isPubliclyAccessible(),
+                asset.getCreatedAt());
+    }
+}
@@ -21,7 +21,8 @@ import net.lwenstrom.cooklion.common.model.AbstractAuditableEntity;
         name = "file_assets",
         indexes = {
             @Index(name = "idx_file_assets_owner", columnList = "owner_id"),
-            @Index(name = "idx_file_assets_storage_key", columnList = "storage_key", unique = true)
+            // Not unique: identical uploads share a blob
+            @Index(name = "idx_file_assets_storage_key", columnList = "storage_key")
         })
 public class FileAsset extends AbstractAuditableEntity {
 
@@ -41,9 +42,10 @@ public class FileAsset extends AbstractAuditableEntity {
     @Column(name = "size_bytes", nullable = false)
     private long sizeBytes;
 
+    /** Key of the blob in the storage backend; the SHA-256 of the content, so identical uploads share it. */
     @NotBlank
     @Size(max = 512)
-    @Column(name = "storage_key", nullable = false, unique = true, length = 512)
+    @Column(name = "storage_key", nullable = false, length = 512)
     private String storageKey;
 
     @Size(max = 128)
@@ -0,0 +1,21 @@
+package net.lwenstrom.cooklion.files.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+import net.lwenstrom.cooklion.files.model.FileAsset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FileAssetRepository extends JpaRepository<FileAsset, UUID> {
+
+    /** A file the viewer owns, or a public one; a null viewer only sees public files. */
+    @Query(
+            """
+            SELECT f FROM FileAsset f
+            WHERE f.id = :id AND (f.publiclyAccessible = true OR f.owner.id = :viewerId)
+            """)
+    Optional<FileAsset> findVisible(@Param("id") UUID id, @Param("viewerId") UUID viewerId);
+}
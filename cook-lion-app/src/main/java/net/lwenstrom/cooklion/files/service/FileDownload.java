@@ -0,0 +1,15 @@
+package net.lwenstrom.cooklion.files.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import net.lwenstrom.cooklion.files.dto.FileAssetView;
+import net.lwenstrom.cooklion.files.storage.BlobContent;
+
+/** A file together with its opened content; closing it releases the content. */
+public record FileDownload(FileAssetView file, BlobContent content) implements Closeable {
+
+    @Override
+    public void close() throws IOException {
+        content.close();
+    }
+}
@@ -0,0 +1,241 @@
+package net.lwenstrom.cooklion.files.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.service.UserAccountService;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.files.dto.FileAssetView;
+import net.lwenstrom.cooklion.files.model.FileAsset;
+import net.lwenstrom.cooklion.files.repository.FileAssetRepository;
+import net.lwenstrom.cooklion.files.storage.StorageBackend;
+import net.lwenstrom.cooklion.files.storage.StoredBlob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Uploads and downloads of files. Contents go to the {@link StorageBackend} outside of any transaction, so no database
+ * connection is held while bytes move; the database only records which file uses which blob.
+ *
+ * <p>Blobs are shared between files and never deleted along with one. Instead a sweep deletes blobs that no file
+ * references and that were last stored longer ago than the grace period, which has to exceed the time between storing
+ * a blob and committing its file. Candidates are moved to the backend's trash before the references are checked again,
+ * so a blob reused meanwhile is restored rather than lost. The sweep also removes the blobs of uploads that failed
+ * after storing, and uploads abandoned halfway.
+ */
+@Slf4j
+@Service
+public class FileStorageService {
+
+    private static final int MAX_CONTENT_TYPE_LENGTH = 128;
+    private static final int SWEEP_BATCH_SIZE = 500;
+    private static final Duration ABANDONED_UPLOAD_AGE = Duration.ofDays(1);
+
+    private static final String REFERENCED_KEYS_SQL =
+            "SELECT DISTINCT storage_key FROM file_assets WHERE storage_key = ANY(?)";
+
+    private final StorageBackend storageBackend;
+    private final FileAssetRepository fileAssetRepository;
+    private final UserAccountService userAccountService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSize maxSize;
+    private final Duration sweepGracePeriod;
+
+    public FileStorageService(
+            StorageBackend storageBackend,
+            FileAssetRepository fileAssetRepository,
+            UserAccountService userAccountService,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.files.max-size:20MB}") DataSize maxSize,
+            @Value("${app.files.sweep-grace-period:PT1H}") Duration sweepGracePeriod) {
+        this.storageBackend = storageBackend;
+        this.fileAssetRepository = fileAssetRepository;
+        this.userAccountService = userAccountService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxSize = maxSize;
+        this.sweepGracePeriod = sweepGracePeriod;
+    }
+
+    public FileAssetView upload(
+            UserIdentity owner, String filename, String contentType, boolean publiclyAccessible, InputStream content)
+            throws IOException {
+        if (contentType != null && contentType.length() > MAX_CONTENT_TYPE_LENGTH) {
+            throw new BadRequestException("Content type must be at most " + MAX_CONTENT_TYPE_LENGTH + " characters");
+        }
+        if (contentType != null) {
+            try {
+                MediaType.parseMediaType(contentType);
+            } catch (InvalidMediaTypeException e) {
+                throw new BadRequestException("Invalid content type: " + contentType);
+            }
+        }
+        StoredBlob blob = storageBackend.put(new SizeLimitedInputStream(content, maxSize));
+
+        return transactionTemplate.execute(status -> {
+            FileAsset asset = new FileAsset();
+            asset.setOwner(userAccountService.getReference(owner.id()));
+            asset.setFilename(filename);
+            asset.setContentType(contentType);
+            asset.setSizeBytes(blob.sizeBytes());
+            asset.setStorageKey(blob.key());
+            asset.setChecksumSha256(blob.key());
+            asset.setPubliclyAccessible(publiclyAccessible);
+            return FileAssetView.of(fileAssetRepository.saveAndFlush(asset));
+        });
+    }
+
+    /** @param viewerId the user downloading, null for anonymous downloads of public files */
+    public FileAssetView get(UUID fileId, UUID viewerId) {
+        return fileAssetRepository
+                .findVisible(fileId, viewerId)
+                .map(FileAssetView::of)
+                .orElseThrow(() -> new ResourceNotFoundException("File", fileId));
+    }
+
+    /** Opens the content of a file; the caller closes the download. */
+    public FileDownload open(UUID fileId, UUID viewerId) throws IOException {
+        FileAsset asset = fileAssetRepository
+                .findVisible(fileId, viewerId)
+                .orElseThrow(() -> new ResourceNotFoundException("File", fileId));
+        return storageBackend
+                .open(asset.getStorageKey())
+                .map(content -> new FileDownload(FileAssetView.of(asset), content))
+                .orElseThrow(() -> {
+                    log.error("Blob {} of file {} is missing", asset.getStorageKey(), fileId);
+                    return new ResourceNotFoundException("File", fileId);
+                });
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.files.sweep-interval:PT6H}",
+            fixedDelayString = "${app.files.sweep-interval:PT6H}")
+    public void sweepUnreferencedBlobs() {
+        Instant now = Instant.now();
+        Instant storedBefore = now.minus(sweepGracePeriod);
+        int deleted = 0;
+        try {
+            storageBackend.recover(now.minus(ABANDONED_UPLOAD_AGE));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Recovering the file storage before sweeping failed", e);
+            return;
+        }
+        try (Stream<String> keys = storageBackend.keysStoredBefore(storedBefore)) {
+            List<String> batch = new ArrayList<>(SWEEP_BATCH_SIZE);
+            for (Iterator<String> iterator = keys.iterator(); iterator.hasNext(); ) {
+                batch.add(iterator.next());
+                if (batch.size() == SWEEP_BATCH_SIZE || !iterator.hasNext()) {
+                    deleted += deleteUnreferenced(batch, storedBefore);
+                    batch.clear();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Sweeping unreferenced blobs failed after deleting {}", deleted, e);
+            return;
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced blobs", deleted);
+        }
+    }
+
+    private int deleteUnreferenced(List<String> keys, Instant storedBefore) throws IOException {
+        Set<String> referenced = referencedKeys(keys);
+        List<String> trashed = new ArrayList<>();
+        for (String key : keys) {
+            // An upload reusing the blob since it was listed stores it again, which the backend checks
+            if (!referenced.contains(key) && storageBackend.trashIfStoredBefore(key, storedBefore)) {
+                trashed.add(key);
+            }
+        }
+        if (trashed.isEmpty()) {
+            return 0;
+        }
+
+        // Files committed since the first check, by uploads slower than the grace period
+        Set<String> referencedNow = referencedKeys(trashed);
+        int deleted = 0;
+        for (String key : trashed) {
+            if (referencedNow.contains(key)) {
+                log.warn("Blob {} was referenced while being swept, restoring it", key);
+                storageBackend.restore(key);
+            } else {
+                storageBackend.deleteTrashed(key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private Set<String> referencedKeys(List<String> keys) {
+        return new HashSet<>(jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(REFERENCED_KEYS_SQL);
+                    statement.setArray(1, connection.createArrayOf("text", keys.toArray(String[]::new)));
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getString(1)));
+    }
+
+    /** Fails the upload as soon as it exceeds the limit, before the rest of it is stored. */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+
+        private final DataSize limit;
+        private long read;
+
+        SizeLimitedInputStream(InputStream in, DataSize limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (read > limit.toBytes()) {
+                throw new ResponseStatusException(
+                        HttpStatus.CONTENT_TOO_LARGE, "Files must be at most " + limit.toMegabytes() + " MB");
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package net.lwenstrom.cooklion.files.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/** A blob opened for reading, for whole or ranged downloads. */
+public interface BlobContent extends Closeable {
+
+    long size();
+
+    /** The file holding the blob, for servers that send files themselves; empty for remote backends. */
+    Optional<Path> localFile();
+
+    /** Writes {@code count} bytes starting at {@code position} to the target. */
+    void transferTo(long position, long count, WritableByteChannel target) throws IOException;
+}
@@ -0,0 +1,240 @@
+package net.lwenstrom.cooklion.files.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores blobs as files under {@code blobs/ab/cd/abcd...}, two directory levels keeping directories small. Uploads are
+ * written to {@code incoming/} while they are hashed and then renamed into place, so a blob is never visible partly
+ * written. The modification time of a blob records when it was last stored.
+ *
+ * <p>Renames are the points where uploads and the sweep meet. An upload touches an existing blob and then checks that
+ * it is still in place; the sweep renames a blob to {@code trash/} and only then checks its modification time. Either
+ * the upload touched the blob before the rename, and the sweep sees the new time and restores it, or the blob was gone
+ * when the upload looked, and the upload renames its own copy into place.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.files.storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path blobs;
+    private final Path incoming;
+    private final Path trash;
+
+    public LocalStorageBackend(@Value("${app.files.storage.local.root:data/files}") Path root) throws IOException {
+        Path absoluteRoot = root.toAbsolutePath();
+        this.blobs = Files.createDirectories(absoluteRoot.resolve("blobs"));
+        this.incoming = Files.createDirectories(absoluteRoot.resolve("incoming"));
+        this.trash = Files.createDirectories(absoluteRoot.resolve("trash"));
+        log.info("Storing files under {}", absoluteRoot);
+    }
+
+    @Override
+    public StoredBlob put(InputStream content) throws IOException {
+        Path upload = Files.createTempFile(incoming, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (FileChannel channel = FileChannel.open(upload, StandardOpenOption.WRITE);
+                    OutputStream output = Channels.newOutputStream(channel)) {
+                size = new DigestInputStream(content, digest).transferTo(output);
+                // Durable before it becomes visible under its key
+                channel.force(false);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(key);
+            // Checked after touching, a sweep may have moved the blob to the trash just before
+            boolean stored = touch(target) && Files.exists(target);
+            if (!stored) {
+                Files.createDirectories(target.getParent());
+                // A concurrent upload of the same content renames identical bytes onto the same key
+                Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredBlob(key, size);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    @Override
+    public Optional<BlobContent> open(String key) throws IOException {
+        Path file = pathOf(key);
+        try {
+            return Optional.of(new LocalBlob(file, FileChannel.open(file, StandardOpenOption.READ)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Stream<String> keysStoredBefore(Instant instant) throws IOException {
+        FileTime cutoff = FileTime.from(instant);
+        return Files.find(blobs, 3, (path, attributes) -> attributes.isRegularFile()
+                        && attributes.lastModifiedTime().compareTo(cutoff) < 0)
+                .map(path -> path.getFileName().toString())
+                .filter(name -> KEY.matcher(name).matches());
+    }
+
+    @Override
+    public boolean trashIfStoredBefore(String key, Instant instant) throws IOException {
+        Path trashed = trashPathOf(key);
+        try {
+            Files.move(pathOf(key), trashed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        // Uploads cannot touch the blob any more, so its time is final now
+        if (Files.getLastModifiedTime(trashed).toInstant().isBefore(instant)) {
+            return true;
+        }
+        restore(key);
+        return false;
+    }
+
+    @Override
+    public void restore(String key) throws IOException {
+        Path target = pathOf(key);
+        Files.createDirectories(target.getParent());
+        // Replaces a copy an upload may have put in place meanwhile, which has the same bytes
+        Files.move(trashPathOf(key), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void deleteTrashed(String key) throws IOException {
+        Files.deleteIfExists(trashPathOf(key));
+    }
+
+    @Override
+    public void recover(Instant abandonedBefore) throws IOException {
+        List<String> trashed;
+        try (Stream<Path> files = Files.list(trash)) {
+            trashed = files.map(path -> path.getFileName().toString())
+                    .filter(name -> KEY.matcher(name).matches())
+                    .toList();
+        }
+        for (String key : trashed) {
+            restore(key);
+        }
+
+        FileTime cutoff = FileTime.from(abandonedBefore);
+        List<Path> abandoned;
+        try (Stream<Path> files = Files.list(incoming)) {
+            abandoned = files.filter(path -> lastModified(path).compareTo(cutoff) < 0)
+                    .toList();
+        }
+        for (Path upload : abandoned) {
+            Files.deleteIfExists(upload);
+        }
+        if (!trashed.isEmpty() || !abandoned.isEmpty()) {
+            log.info("Restored {} trashed blobs and deleted {} abandoned uploads", trashed.size(), abandoned.size());
+        }
+    }
+
+    private Path pathOf(String key) {
+        checkKey(key);
+        return blobs.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private Path trashPathOf(String key) {
+        checkKey(key);
+        return trash.resolve(key);
+    }
+
+    private static void checkKey(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Not a blob key: " + key);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            // Finished meanwhile, the upload removed it
+            return FileTime.from(Instant.now());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Marks an existing blob as stored now; false if there is none. */
+    private static boolean touch(Path file) throws IOException {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record LocalBlob(Path file, FileChannel channel) implements BlobContent {
+
+        @Override
+        public long size() {
+            try {
+                return channel.size();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot determine the size of " + file, e);
+            }
+        }
+
+        @Override
+        public Optional<Path> localFile() {
+            return Optional.of(file);
+        }
+
+        /** Uses {@link FileChannel#transferTo}, which lets the kernel copy into socket and file channels directly. */
+        @Override
+        public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            long end = position + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred == 0 && position >= channel.size()) {
+                    throw new EOFException("Blob " + file.getFileName() + " ends before " + end);
+                }
+                position += transferred;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.lwenstrom.cooklion.files.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Keeps file contents as immutable blobs keyed by the hex SHA-256 of their bytes, so identical uploads share one blob.
+ * Backends only hold bytes: which files use a blob is recorded in the database, and blobs no file uses are removed by
+ * a periodic sweep.
+ *
+ * <p>Storing content that already exists counts as storing it again, which keeps the blob from being swept while the
+ * file referencing it is saved. The sweep first moves a blob to a trash area, where it is out of reach of uploads, and
+ * only deletes it once the blob was not stored again and is still unreferenced; otherwise it restores it. Backends need
+ * nothing beyond put, ranged get, list, move and delete, so an object store can serve as well as the local file system.
+ */
+public interface StorageBackend {
+
+    /** Reads the content to its end and stores it, unless a blob with the same key exists. */
+    StoredBlob put(InputStream content) throws IOException;
+
+    /** Opens a blob for reading; empty if there is none with that key. */
+    Optional<BlobContent> open(String key) throws IOException;
+
+    /** Keys of the blobs last stored before the given instant. The caller closes the stream. */
+    Stream<String> keysStoredBefore(Instant instant) throws IOException;
+
+    /**
+     * Moves a blob to the trash unless it was stored again since the given instant. An upload of the same content
+     * meanwhile stores the blob anew.
+     *
+     * @return whether the blob is in the trash
+     */
+    boolean trashIfStoredBefore(String key, Instant instant) throws IOException;
+
+    /** Moves a trashed blob back, for a blob that turned out to be referenced. */
+    void restore(String key) throws IOException;
+
+    /** Deletes a trashed blob for good. */
+    void deleteTrashed(String key) throws IOException;
+
+    /**
+     * Restores blobs a sweep left in the trash, for instance by crashing, and deletes uploads abandoned before the
+     * given instant.
+     */
+    void recover(Instant abandonedBefore) throws IOException;
+}
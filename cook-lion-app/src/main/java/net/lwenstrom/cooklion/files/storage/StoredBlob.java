@@ -0,0 +1,4 @@
+package net.lwenstrom.cooklion.files.storage;
+
+/** @param key the hex SHA-256 of the content */
+public record StoredBlob(String key, long sizeBytes) {}
@@ -0,0 +1,10 @@
+package net.lwenstrom.cooklion.grocery.compile;
+
+import java.util.UUID;
+
+/**
+ * A grocery item merged from one or more ingredient lines.
+ *
+ * @param sourceRecipeId the recipe all lines came from, null if they came from several
+ */
+record CompiledItem(String name, String quantity, String category, UUID sourceRecipeId) {}
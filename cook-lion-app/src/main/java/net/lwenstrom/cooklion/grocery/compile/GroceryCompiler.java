@@ -0,0 +1,131 @@
+package net.lwenstrom.cooklion.grocery.compile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Merges the ingredients of many recipes into grocery items in a single pass. Lines are merged by name and category;
+ * their amounts are summed per dimension in the base unit (grams, milliliters, pieces), so "200 g flour" and
+ * "0.5 kg flour" become "700 g flour". An item keeps the unit of its lines if they all used the same one, otherwise the
+ * sum is shown in the metric unit that fits its size.
+ *
+ * <p>Not thread-safe; one instance compiles one list.
+ */
+final class GroceryCompiler {
+
+    private static final QuantityUnit.Dimension[] DIMENSIONS = QuantityUnit.Dimension.values();
+
+    private final Map<String, Item> items = new HashMap<>();
+    private final List<Item> order = new ArrayList<>();
+
+    /**
+     * @param factor multiplier for all amounts, e.g. the number of times the recipe is planned times the ratio of the
+     *     wanted servings to the recipe's servings
+     */
+    void add(UUID recipeId, List<ParsedIngredient> ingredients, double factor) {
+        for (ParsedIngredient ingredient : ingredients) {
+            String category = ingredient.category();
+            String key = category != null
+                    ? ingredient.key() + '\n' + category.toLowerCase(Locale.ROOT)
+                    : ingredient.key();
+            Item item = items.get(key);
+            if (item == null) {
+                item = new Item(ingredient.name(), category, recipeId);
+                items.put(key, item);
+                order.add(item);
+            } else if (item.sourceRecipeId != null && !item.sourceRecipeId.equals(recipeId)) {
+                item.sourceRecipeId = null;
+            }
+            if (ingredient.unit() != null) {
+                item.add(ingredient.unit(), ingredient.amount() * factor);
+            }
+        }
+    }
+
+    /** The merged items ordered by category, uncategorized last, and by first appearance within a category. */
+    List<CompiledItem> compile() {
+        List<Item> sorted = new ArrayList<>(order);
+        sorted.sort(Comparator.comparing(
+                (Item item) -> item.category, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        List<CompiledItem> compiled = new ArrayList<>(sorted.size());
+        for (Item item : sorted) {
+            compiled.add(new CompiledItem(item.name, item.quantity(), item.category, item.sourceRecipeId));
+        }
+        return compiled;
+    }
+
+    private static final class Item {
+
+        private static final int NO_UNIT = -1;
+        private static final int MIXED_UNITS = -2;
+
+        private final String name;
+        private final String category;
+        private final double[] amounts = new double[DIMENSIONS.length];
+        private final int[] units = {NO_UNIT, NO_UNIT, NO_UNIT};
+        // Only set while all lines come from the same recipe
+        private UUID sourceRecipeId;
+
+        Item(String name, String category, UUID sourceRecipeId) {
+            this.name = name;
+            this.category = category;
+            this.sourceRecipeId = sourceRecipeId;
+        }
+
+        void add(QuantityUnit unit, double amount) {
+            int dimension = unit.dimension().ordinal();
+            amounts[dimension] += unit.toBase(amount);
+            if (units[dimension] == NO_UNIT) {
+                units[dimension] = unit.ordinal();
+            } else if (units[dimension] != unit.ordinal()) {
+                units[dimension] = MIXED_UNITS;
+            }
+        }
+
+        /** E.g. "700 g", "1.5 l + 2" or null if no line had a quantity. */
+        String quantity() {
+            StringBuilder quantity = new StringBuilder();
+            for (QuantityUnit.Dimension dimension : DIMENSIONS) {
+                double base = amounts[dimension.ordinal()];
+                if (base <= 0) {
+                    continue;
+                }
+                int unitOrdinal = units[dimension.ordinal()];
+                QuantityUnit unit =
+                        unitOrdinal >= 0 ? QuantityUnit.values()[unitOrdinal] : metricUnit(dimension, base);
+                if (!quantity.isEmpty()) {
+                    quantity.append(" + ");
+                }
+                quantity.append(format(unit, unit.fromBase(base)));
+            }
+            return quantity.isEmpty() ? null : quantity.toString();
+        }
+
+        private static QuantityUnit metricUnit(QuantityUnit.Dimension dimension, double base) {
+            return switch (dimension) {
+                case MASS -> base >= 1000 ? QuantityUnit.KILOGRAM : QuantityUnit.GRAM;
+                case VOLUME -> base >= 1000 ? QuantityUnit.LITER : QuantityUnit.MILLILITER;
+                case COUNT -> QuantityUnit.PIECE;
+            };
+        }
+
+        private static String format(QuantityUnit unit, double amount) {
+            String number;
+            if (unit.dimension() == QuantityUnit.Dimension.COUNT) {
+                // Nobody buys a third of an egg; the epsilon keeps 2.0000001 from becoming 3
+                number = Long.toString((long) Math.ceil(amount - 1e-6));
+            } else if (amount >= 100) {
+                number = Long.toString(Math.round(amount));
+            } else {
+                double rounded = Math.round(amount * 100) / 100.0;
+                number = rounded == Math.rint(rounded) ? Long.toString((long) rounded) : Double.toString(rounded);
+            }
+            return unit.symbol().isEmpty() ? number : number + ' ' + unit.symbol();
+        }
+    }
+}
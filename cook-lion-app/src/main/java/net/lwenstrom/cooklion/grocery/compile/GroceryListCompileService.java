@@ -0,0 +1,154 @@
+package net.lwenstrom.cooklion.grocery.compile;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.common.model.TimeOrderedUuid;
+import net.lwenstrom.cooklion.grocery.dto.CompileGroceryListRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemView;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListView;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import net.lwenstrom.cooklion.grocery.model.GroceryListStatus;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanHeader;
+import net.lwenstrom.cooklion.mealplan.service.MealPlanQueryService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Compiles a grocery list from the recipes of a meal plan. Each planned recipe is read and parsed once, however often
+ * it is planned, and its ingredients are merged with a factor for the number of times it is planned and the wanted
+ * servings. The list and all its items are written with a single statement.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class GroceryListCompileService {
+
+    // Grouped by the recipe's primary key, so its other columns can be selected without aggregating them
+    private static final String PLANNED_RECIPES_SQL =
+            """
+            SELECT r.id, r.title, r.servings, r.instructions_markdown, count(*) AS planned
+            FROM meal_plan_entries e
+            JOIN recipes r ON r.id = e.recipe_id
+            WHERE e.meal_plan_id = ? AND e.date BETWEEN ? AND ? AND (r.author_id = ? OR r.visibility = 'PUBLIC')
+            GROUP BY r.id
+            ORDER BY min(e.date), r.id
+            """;
+
+    private static final String INSERT_LIST_SQL =
+            """
+            WITH list AS (
+                INSERT INTO grocery_lists (
+                    id, user_id, meal_plan_id, title, status, item_position_counter, version, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, 0, now(), now())
+                RETURNING id
+            )
+            INSERT INTO grocery_items (
+                id, grocery_list_id, name, quantity, category, checked, position, recipe_id,
+                version, created_at, updated_at)
+            SELECT i.id, list.id, i.name, i.quantity, i.category, false, i.position, i.recipe_id, 0, now(), now()
+            FROM list
+            CROSS JOIN unnest(?::uuid[], ?::text[], ?::text[], ?::text[], ?::int[], ?::uuid[])
+                AS i(id, name, quantity, category, position, recipe_id)
+            """;
+
+    private final MealPlanQueryService mealPlanQueryService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public GroceryListView compile(UUID userId, CompileGroceryListRequest request) {
+        MealPlanHeader plan = mealPlanQueryService.getOwnedHeader(request.mealPlanId(), userId);
+        LocalDate from = request.from() != null ? request.from() : plan.startDate();
+        LocalDate to = request.to() != null ? request.to() : plan.endDate();
+        if (to.isBefore(from)) {
+            throw new BadRequestException("End date cannot be before start date");
+        }
+
+        GroceryCompiler compiler = new GroceryCompiler();
+        Map<UUID, String> recipeTitles = new HashMap<>();
+        jdbcTemplate.query(
+                PLANNED_RECIPES_SQL,
+                rs -> {
+                    UUID recipeId = rs.getObject("id", UUID.class);
+                    Integer servings = rs.getObject("servings", Integer.class);
+                    double factor = rs.getLong("planned");
+                    if (request.servings() != null && servings != null && servings > 0) {
+                        factor *= (double) request.servings() / servings;
+                    }
+                    recipeTitles.put(recipeId, rs.getString("title"));
+                    compiler.add(recipeId, IngredientParser.parse(rs.getString("instructions_markdown")), factor);
+                },
+                plan.id(),
+                from,
+                to,
+                userId);
+
+        List<GroceryItemView> items = new ArrayList<>();
+        for (CompiledItem item : compiler.compile()) {
+            items.add(new GroceryItemView(
+                    TimeOrderedUuid.next(),
+                    item.name(),
+                    item.quantity(),
+                    item.category(),
+                    false,
+                    (items.size() + 1) * GroceryItem.POSITION_GAP,
+                    null,
+                    item.sourceRecipeId(),
+                    item.sourceRecipeId() != null ? recipeTitles.get(item.sourceRecipeId()) : null,
+                    0));
+        }
+        String title = request.title() != null && !request.title().isBlank()
+                ? request.title()
+                : truncate("Groceries for " + plan.title(), 140);
+        UUID listId = TimeOrderedUuid.next();
+        insert(listId, userId, plan.id(), title, items);
+        log.debug(
+                "Compiled grocery list {} with {} items from {} recipes of meal plan {}",
+                listId,
+                items.size(),
+                recipeTitles.size(),
+                plan.id());
+        return new GroceryListView(listId, title, GroceryListStatus.ACTIVE, plan.id(), 0, items);
+    }
+
+    private void insert(UUID listId, UUID userId, UUID mealPlanId, String title, List<GroceryItemView> items) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_LIST_SQL);
+            statement.setObject(1, listId);
+            statement.setObject(2, userId);
+            statement.setObject(3, mealPlanId);
+            statement.setString(4, title);
+            // The status column is mapped by ordinal
+            statement.setInt(5, GroceryListStatus.ACTIVE.ordinal());
+            statement.setInt(6, items.size());
+            statement.setArray(7, connection.createArrayOf("text", toStrings(items, GroceryItemView::id)));
+            statement.setArray(8, connection.createArrayOf("text", toStrings(items, GroceryItemView::name)));
+            statement.setArray(9, connection.createArrayOf("text", toStrings(items, GroceryItemView::quantity)));
+            statement.setArray(10, connection.createArrayOf("text", toStrings(items, GroceryItemView::category)));
+            statement.setArray(11, connection.createArrayOf("text", toStrings(items, GroceryItemView::position)));
+            statement.setArray(
+                    12, connection.createArrayOf("text", toStrings(items, GroceryItemView::sourceRecipeId)));
+            return statement;
+        });
+    }
+
+    private static String[] toStrings(List<GroceryItemView> items, Function<GroceryItemView, ?> field) {
+        return items.stream()
+                .map(field)
+                .map(value -> value != null ? value.toString() : null)
+                .toArray(String[]::new);
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+}
@@ -0,0 +1,150 @@
+package net.lwenstrom.cooklion.grocery.compile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the ingredient list from a recipe's markdown. Recipes have no structured ingredients; by convention they are
+ * the list items below a heading starting with "Ingredients" (or "Zutaten"), up to the next heading of the same or a
+ * higher level. Deeper headings inside the section, e.g. "### Dairy", become the category of the lines below them.
+ *
+ * <p>A line starts with an optional quantity: an integer, decimal, fraction, mixed number or range (the upper bound
+ * counts), followed by an optional unit of one or two words, e.g. "200 g flour", "1 1/2 cups milk", "2 fl oz cream",
+ * "2-3 onions, diced". Unknown words after the number are part of the name and the quantity is a count. Parenthesized
+ * remarks and everything after the first comma are preparation notes and not part of the name.
+ */
+final class IngredientParser {
+
+    private static final Pattern HEADING = Pattern.compile("^\\s{0,3}(#{1,6})\\s+(.*?)[\\s#]*$");
+    private static final Pattern SECTION_TITLE = Pattern.compile("(?i)(?:ingredients|zutaten)\\b");
+    private static final Pattern LIST_ITEM = Pattern.compile("^\\s*(?:[-*+]|\\d+[.)])\\s+(?:\\[[ xX]]\\s+)?(.+)$");
+    private static final String NUMBER = "(\\d+\\s+\\d+/\\d+|\\d+/\\d+|\\d+(?:[.,]\\d+)?)";
+    private static final Pattern QUANTITY =
+            Pattern.compile("^" + NUMBER + "(?:\\s*(?:-|\u2013|to)\\s*" + NUMBER + ")?\\s*(.*)$");
+    private static final Pattern FIRST_WORD = Pattern.compile("^(\\S+)\\s*(.*)$");
+    private static final Pattern FIRST_TWO_WORDS = Pattern.compile("^(\\S+\\s+\\S+)\\s*(.*)$");
+    private static final Pattern REMARKS = Pattern.compile("\\([^)]*\\)|[*_`]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String[][] VULGAR_FRACTIONS = {
+        {"\u00bc", " 1/4"},
+        {"\u00bd", " 1/2"},
+        {"\u00be", " 3/4"},
+        {"\u2153", " 1/3"},
+        {"\u2154", " 2/3"},
+        {"\u215b", " 1/8"}
+    };
+
+    private IngredientParser() {}
+
+    static List<ParsedIngredient> parse(String markdown) {
+        List<ParsedIngredient> ingredients = new ArrayList<>();
+        if (markdown == null) {
+            return ingredients;
+        }
+        int sectionLevel = 0;
+        String category = null;
+        for (String line : markdown.split("\\R")) {
+            Matcher heading = HEADING.matcher(line);
+            if (heading.matches()) {
+                int level = heading.group(1).length();
+                String title = heading.group(2).trim();
+                if (sectionLevel > 0 && level > sectionLevel) {
+                    category = title.isEmpty() ? null : clean(title, 64);
+                } else if (SECTION_TITLE.matcher(title).lookingAt()) {
+                    sectionLevel = level;
+                    category = null;
+                } else {
+                    sectionLevel = 0;
+                }
+                continue;
+            }
+            if (sectionLevel == 0) {
+                continue;
+            }
+            Matcher item = LIST_ITEM.matcher(line);
+            if (item.matches()) {
+                ParsedIngredient ingredient = parseLine(item.group(1), category);
+                if (ingredient != null) {
+                    ingredients.add(ingredient);
+                }
+            }
+        }
+        return ingredients;
+    }
+
+    /** Parses a single line without its list marker; null if nothing but a quantity is left. */
+    static ParsedIngredient parseLine(String text, String category) {
+        String line = text;
+        for (String[] fraction : VULGAR_FRACTIONS) {
+            line = line.replace(fraction[0], fraction[1]);
+        }
+        line = line.trim();
+
+        QuantityUnit unit = null;
+        double amount = 0;
+        Matcher quantity = QUANTITY.matcher(line);
+        if (quantity.matches()) {
+            amount = parseNumber(quantity.group(2) != null ? quantity.group(2) : quantity.group(1));
+            line = quantity.group(3);
+            unit = QuantityUnit.PIECE;
+            // Two-word units such as "fl oz" first, "oz" alone would leave "fl" in the name
+            for (Pattern words : List.of(FIRST_TWO_WORDS, FIRST_WORD)) {
+                Matcher word = words.matcher(line);
+                if (word.matches()) {
+                    QuantityUnit named = QuantityUnit.of(word.group(1));
+                    if (named != null && !word.group(2).isEmpty()) {
+                        unit = named;
+                        line = word.group(2);
+                        break;
+                    }
+                }
+            }
+            if (line.regionMatches(true, 0, "of ", 0, 3)) {
+                line = line.substring(3);
+            }
+        }
+
+        int comma = line.indexOf(',');
+        String name = clean(comma >= 0 ? line.substring(0, comma) : line, 140);
+        if (name.isEmpty()) {
+            return null;
+        }
+        return new ParsedIngredient(name, key(name), category, unit, amount);
+    }
+
+    private static double parseNumber(String number) {
+        String[] parts = WHITESPACE.split(number.trim());
+        double value = 0;
+        for (String part : parts) {
+            int slash = part.indexOf('/');
+            if (slash < 0) {
+                value += Double.parseDouble(part.replace(',', '.'));
+            } else {
+                double denominator = Double.parseDouble(part.substring(slash + 1));
+                if (denominator != 0) {
+                    value += Double.parseDouble(part.substring(0, slash)) / denominator;
+                }
+            }
+        }
+        return value;
+    }
+
+    private static String clean(String text, int maxLength) {
+        String cleaned = WHITESPACE.matcher(REMARKS.matcher(text).replaceAll(" ")).replaceAll(" ").trim();
+        return cleaned.length() > maxLength ? cleaned.substring(0, maxLength).trim() : cleaned;
+    }
+
+    static String key(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        if (key.length() > 4 && key.endsWith("oes")) {
+            return key.substring(0, key.length() - 2);
+        }
+        if (key.length() > 3 && key.endsWith("s") && !key.endsWith("ss")) {
+            return key.substring(0, key.length() - 1);
+        }
+        return key;
+    }
+}
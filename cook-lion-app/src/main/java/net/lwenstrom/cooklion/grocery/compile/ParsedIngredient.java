@@ -0,0 +1,11 @@
+package net.lwenstrom.cooklion.grocery.compile;
+
+/**
+ * One ingredient line of a recipe.
+ *
+ * @param key the name normalized for merging: lower case, single spaces, simple plurals removed
+ * @param category the sub-heading the line was listed under, if any
+ * @param unit null for lines without a quantity, such as "salt"
+ * @param amount in {@code unit}, 0 without a unit
+ */
+record ParsedIngredient(String name, String key, String category, QuantityUnit unit, double amount) {}
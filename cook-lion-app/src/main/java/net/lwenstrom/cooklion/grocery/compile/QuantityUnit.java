@@ -0,0 +1,76 @@
+package net.lwenstrom.cooklion.grocery.compile;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/** Units understood in ingredient lines, each with its factor to the base unit of its dimension. */
+enum QuantityUnit {
+    MILLIGRAM(Dimension.MASS, 0.001, "mg", "mg", "milligram", "milligrams"),
+    GRAM(Dimension.MASS, 1, "g", "g", "gr", "gram", "grams", "gramm"),
+    KILOGRAM(Dimension.MASS, 1000, "kg", "kg", "kilo", "kilos", "kilogram", "kilograms", "kilogramm"),
+    OUNCE(Dimension.MASS, 28.3495, "oz", "oz", "ounce", "ounces"),
+    POUND(Dimension.MASS, 453.592, "lb", "lb", "lbs", "pound", "pounds"),
+    MILLILITER(Dimension.VOLUME, 1, "ml", "ml", "milliliter", "milliliters", "millilitre", "millilitres"),
+    CENTILITER(Dimension.VOLUME, 10, "cl", "cl"),
+    DECILITER(Dimension.VOLUME, 100, "dl", "dl"),
+    LITER(Dimension.VOLUME, 1000, "l", "l", "liter", "liters", "litre", "litres"),
+    TEASPOON(Dimension.VOLUME, 5, "tsp", "tsp", "teaspoon", "teaspoons", "tl"),
+    TABLESPOON(Dimension.VOLUME, 15, "tbsp", "tbsp", "tbs", "tablespoon", "tablespoons", "el"),
+    FLUID_OUNCE(Dimension.VOLUME, 29.5735, "fl oz", "floz", "fluid ounce", "fluid ounces"),
+    CUP(Dimension.VOLUME, 240, "cup", "cup", "cups"),
+    PIECE(Dimension.COUNT, 1, "", "pc", "pcs", "piece", "pieces", "stk", "st\u00fcck");
+
+    enum Dimension {
+        MASS,
+        VOLUME,
+        COUNT
+    }
+
+    private static final Map<String, QuantityUnit> BY_ALIAS = new HashMap<>();
+
+    static {
+        for (QuantityUnit unit : values()) {
+            for (String alias : unit.aliases) {
+                BY_ALIAS.put(alias, unit);
+            }
+        }
+    }
+
+    private final Dimension dimension;
+    private final double factor;
+    private final String symbol;
+    private final String[] aliases;
+
+    QuantityUnit(Dimension dimension, double factor, String symbol, String... aliases) {
+        this.dimension = dimension;
+        this.factor = factor;
+        this.symbol = symbol;
+        this.aliases = aliases;
+    }
+
+    Dimension dimension() {
+        return dimension;
+    }
+
+    String symbol() {
+        return symbol;
+    }
+
+    double toBase(double amount) {
+        return amount * factor;
+    }
+
+    double fromBase(double amount) {
+        return amount / factor;
+    }
+
+    /**
+     * Looks up a unit as written in a recipe, one word or two, ignoring case, periods and the spacing between words;
+     * null if unknown.
+     */
+    static QuantityUnit of(String words) {
+        String normalized = words.toLowerCase(Locale.ROOT).replace(".", "").replaceAll("\\s+", " ");
+        return BY_ALIAS.get(normalized);
+    }
+}
@@ -0,0 +1,120 @@
+package net.lwenstrom.cooklion.grocery.controller;
+
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.common.persistence.StatementBudget;
+import net.lwenstrom.cooklion.grocery.compile.GroceryListCompileService;
+import net.lwenstrom.cooklion.grocery.dto.AddGroceryItemRequest;
+import net.lwenstrom.cooklion.grocery.dto.CompileGroceryListRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutationResult;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutationsRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemView;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListDelta;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListHeader;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListStatusRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListView;
+import net.lwenstrom.cooklion.grocery.dto.ReorderGroceryItemsRequest;
+import net.lwenstrom.cooklion.grocery.service.GroceryItemBatchService;
+import net.lwenstrom.cooklion.grocery.service.GroceryItemPositionService;
+import net.lwenstrom.cooklion.grocery.service.GroceryListQueryService;
+import net.lwenstrom.cooklion.grocery.service.GroceryListService;
+import net.lwenstrom.cooklion.grocery.stream.GroceryListEventHub;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/grocery-lists")
+@RequiredArgsConstructor
+public class GroceryListController {
+
+    private final GroceryListQueryService groceryListQueryService;
+    private final GroceryListCompileService groceryListCompileService;
+    private final GroceryItemPositionService groceryItemPositionService;
+    private final GroceryListService groceryListService;
+    private final GroceryItemBatchService groceryItemBatchService;
+    private final GroceryListEventHub groceryListEventHub;
+
+    @GetMapping("/{id}")
+    @StatementBudget(3)
+    public GroceryListView get(@PathVariable UUID id, @CurrentUser UserIdentity user) {
+        return groceryListQueryService.view(id, user.id());
+    }
+
+    /** Creates a list with the merged ingredients of all recipes planned in the meal plan. */
+    @PostMapping("/compile")
+    @ResponseStatus(HttpStatus.CREATED)
+    @StatementBudget(2)
+    public GroceryListView compile(
+            @CurrentUser UserIdentity user, @Valid @RequestBody CompileGroceryListRequest request) {
+        return groceryListCompileService.compile(user.id(), request);
+    }
+
+    /** Applies a drag-and-drop move of one item or a full re-sort, and returns the list in its new order. */
+    @PostMapping("/{id}/items/reorder")
+    @StatementBudget(3)
+    public GroceryListView reorder(
+            @PathVariable UUID id,
+            @CurrentUser UserIdentity user,
+            @Valid @RequestBody ReorderGroceryItemsRequest request) {
+        return groceryItemPositionService.reorder(id, user.id(), request);
+    }
+
+    /**
+     * Streams the changes of the list as server-sent events named after their delta type. Subscribe before fetching
+     * the list, and fetch it again on a RESYNC event.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @StatementBudget(2)
+    public Flux<ServerSentEvent<GroceryListDelta>> events(@PathVariable UUID id, @CurrentUser UserIdentity user) {
+        groceryListQueryService.getOwnedHeader(id, user.id());
+        return groceryListEventHub.subscribe(id);
+    }
+
+    @PostMapping("/{id}/items")
+    @ResponseStatus(HttpStatus.CREATED)
+    @StatementBudget(3)
+    public GroceryItemView addItem(
+            @PathVariable UUID id, @CurrentUser UserIdentity user, @Valid @RequestBody AddGroceryItemRequest request) {
+        return groceryListService.addItem(id, user.id(), request);
+    }
+
+    @PostMapping("/{id}/items/{itemId}/toggle")
+    @StatementBudget(4)
+    public GroceryItemView toggleItem(
+            @PathVariable UUID id, @PathVariable UUID itemId, @CurrentUser UserIdentity user) {
+        return groceryListService.toggleChecked(id, itemId, user.id());
+    }
+
+    /** Checks, renames and moves many items at once, with one outcome per item instead of failing the batch. */
+    @PostMapping("/{id}/items/batch")
+    @StatementBudget(3)
+    public List<GroceryItemMutationResult> mutateItems(
+            @PathVariable UUID id,
+            @CurrentUser UserIdentity user,
+            @Valid @RequestBody GroceryItemMutationsRequest request) {
+        return groceryItemBatchService.apply(id, user.id(), request.mutations());
+    }
+
+    @PutMapping("/{id}/status")
+    @StatementBudget(3)
+    public GroceryListHeader changeStatus(
+            @PathVariable UUID id,
+            @CurrentUser UserIdentity user,
+            @Valid @RequestBody GroceryListStatusRequest request) {
+        return groceryListService.changeStatus(id, user.id(), request);
+    }
+}
@@ -0,0 +1,11 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/** An item added by hand; it is appended to the end of the list. */
+public record AddGroceryItemRequest(
+        @NotBlank @Size(max = 140) String name,
+        @Size(max = 64) String quantity,
+        @Size(max = 64) String category,
+        @Size(max = 255) String notes) {}
@@ -0,0 +1,21 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Parameters for compiling a grocery list from a meal plan. Unset values fall back to the plan's title and range and
+ * to each recipe's own servings.
+ *
+ * @param servings scales every recipe with known servings to this number of servings
+ */
+public record CompileGroceryListRequest(
+        @NotNull UUID mealPlanId,
+        @Size(max = 140) String title,
+        LocalDate from,
+        LocalDate to,
+        @Positive @Max(100) Integer servings) {}
@@ -0,0 +1,28 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.UUID;
+
+/**
+ * A partial update of one item; fields left null stay unchanged.
+ *
+ * @param expectedVersion the version the client based the change on, null to apply it to any version
+ * @param move where to move the item, applied after the moves of earlier mutations in the batch
+ */
+public record GroceryItemMutation(
+        @NotNull UUID itemId,
+        Long expectedVersion,
+        Boolean checked,
+        @Size(max = 140) String name,
+        @Size(max = 64) String quantity,
+        @Valid Move move) {
+
+    /** @param afterItemId the item to place it below, null to move it to the top */
+    public record Move(UUID afterItemId) {}
+
+    public boolean changesNothing() {
+        return checked == null && name == null && quantity == null && move == null;
+    }
+}
@@ -0,0 +1,39 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.UUID;
+
+/**
+ * The outcome of one item mutation.
+ *
+ * @param version the item's version after an applied mutation
+ * @param current the item as it is now, for conflicts
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GroceryItemMutationResult(
+        UUID itemId, Outcome outcome, Long version, String message, GroceryItemView current) {
+
+    public enum Outcome {
+        APPLIED,
+        /** The item changed since the expected version. */
+        CONFLICT,
+        NOT_FOUND,
+        REJECTED
+    }
+
+    public static GroceryItemMutationResult applied(UUID itemId, long version) {
+        return new GroceryItemMutationResult(itemId, Outcome.APPLIED, version, null, null);
+    }
+
+    public static GroceryItemMutationResult conflict(GroceryItemView current) {
+        return new GroceryItemMutationResult(current.id(), Outcome.CONFLICT, null, null, current);
+    }
+
+    public static GroceryItemMutationResult notFound(UUID itemId) {
+        return new GroceryItemMutationResult(itemId, Outcome.NOT_FOUND, null, null, null);
+    }
+
+    public static GroceryItemMutationResult rejected(UUID itemId, String message) {
+        return new GroceryItemMutationResult(itemId, Outcome.REJECTED, null, message, null);
+    }
+}
@@ -0,0 +1,9 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record GroceryItemMutationsRequest(
+        @NotNull @Size(max = 500) List<@Valid @NotNull GroceryItemMutation> mutations) {}
@@ -0,0 +1,16 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import java.util.UUID;
+
+/** An item with the title of its source recipe, selected in the same query as the item. */
+public record GroceryItemView(
+        UUID id,
+        String name,
+        String quantity,
+        String category,
+        boolean checked,
+        int position,
+        String notes,
+        UUID sourceRecipeId,
+        String sourceRecipeTitle,
+        long version) {}
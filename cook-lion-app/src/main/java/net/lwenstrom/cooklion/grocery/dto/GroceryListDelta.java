@@ -0,0 +1,63 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.model.GroceryListStatus;
+
+/**
+ * A change of a grocery list as pushed to subscribed clients. Only the fields of its type are set, the others are
+ * left out of the JSON. Moves are relative to the item above, so clients can apply them without knowing positions.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GroceryListDelta(
+        Type type,
+        UUID itemId,
+        GroceryItemView item,
+        Boolean checked,
+        UUID afterItemId,
+        List<UUID> order,
+        GroceryListStatus status,
+        Long version) {
+
+    public enum Type {
+        ITEM_ADDED,
+        ITEM_CHECKED,
+        /** The item's fields changed; carries the whole item. */
+        ITEM_UPDATED,
+        ITEM_MOVED,
+        ITEMS_REORDERED,
+        STATUS_CHANGED,
+        /** Deltas were dropped; the client has to fetch the whole list again. */
+        RESYNC
+    }
+
+    public static GroceryListDelta itemAdded(GroceryItemView item) {
+        return new GroceryListDelta(Type.ITEM_ADDED, item.id(), item, null, null, null, null, item.version());
+    }
+
+    public static GroceryListDelta itemChecked(UUID itemId, boolean checked, long version) {
+        return new GroceryListDelta(Type.ITEM_CHECKED, itemId, null, checked, null, null, null, version);
+    }
+
+    public static GroceryListDelta itemUpdated(GroceryItemView item) {
+        return new GroceryListDelta(Type.ITEM_UPDATED, item.id(), item, null, null, null, null, item.version());
+    }
+
+    /** @param afterItemId null if the item moved to the top */
+    public static GroceryListDelta itemMoved(UUID itemId, UUID afterItemId, long version) {
+        return new GroceryListDelta(Type.ITEM_MOVED, itemId, null, null, afterItemId, null, null, version);
+    }
+
+    public static GroceryListDelta itemsReordered(List<UUID> order) {
+        return new GroceryListDelta(Type.ITEMS_REORDERED, null, null, null, null, List.copyOf(order), null, null);
+    }
+
+    public static GroceryListDelta statusChanged(GroceryListStatus status, long version) {
+        return new GroceryListDelta(Type.STATUS_CHANGED, null, null, null, null, null, status, version);
+    }
+
+    public static GroceryListDelta resync() {
+        return new GroceryListDelta(Type.RESYNC, null, null, null, null, null, null, null);
+    }
+}
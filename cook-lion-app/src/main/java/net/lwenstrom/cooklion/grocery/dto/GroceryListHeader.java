@@ -0,0 +1,8 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.model.GroceryListStatus;
+
+/** The list's own columns, selected without its items. */
+public record GroceryListHeader(
+        UUID id, UUID userId, UUID mealPlanId, String title, GroceryListStatus status, long version) {}
@@ -0,0 +1,6 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import jakarta.validation.constraints.NotNull;
+import net.lwenstrom.cooklion.grocery.model.GroceryListStatus;
+
+public record GroceryListStatusRequest(@NotNull GroceryListStatus status) {}
@@ -0,0 +1,8 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.model.GroceryListStatus;
+
+public record GroceryListView(
+        UUID id, String title, GroceryListStatus status, UUID mealPlanId, long version, List<GroceryItemView> items) {}
@@ -0,0 +1,14 @@
+package net.lwenstrom.cooklion.grocery.dto;
+
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Either a single move or a full re-sort of a grocery list's items.
+ *
+ * @param itemId the item to move, for a drag-and-drop move
+ * @param afterItemId the item to place it below, null to move it to the top
+ * @param order every item of the list in its new order, for a full re-sort instead of a move
+ */
+public record ReorderGroceryItemsRequest(UUID itemId, UUID afterItemId, @Size(max = 10000) List<UUID> order) {}
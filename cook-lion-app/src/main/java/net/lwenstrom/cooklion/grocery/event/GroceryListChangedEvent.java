@@ -0,0 +1,7 @@
+package net.lwenstrom.cooklion.grocery.event;
+
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListDelta;
+
+/** Published for every change of a grocery list or its items; pushed to the list's subscribers after commit. */
+public record GroceryListChangedEvent(UUID groceryListId, GroceryListDelta delta) {}
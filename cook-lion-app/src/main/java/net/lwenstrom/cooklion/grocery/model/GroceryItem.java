@@ -17,6 +17,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import net.lwenstrom.cooklion.common.model.AbstractAuditableEntity;
 import net.lwenstrom.cooklion.recipe.model.Recipe;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Getter
 @Setter
@@ -24,15 +25,21 @@ import net.lwenstrom.cooklion.recipe.model.Recipe;
 @AllArgsConstructor
 @Builder
 @Entity
+// Only changed columns are written, so a toggle never overwrites a position set by a concurrent renumbering
+@DynamicUpdate
 @Table(
         name = "grocery_items",
         indexes = {
-            @Index(name = "idx_grocery_items_list", columnList = "grocery_list_id"),
-            @Index(name = "idx_grocery_items_category", columnList = "category"),
-            @Index(name = "idx_grocery_items_position", columnList = "position")
+            // Also serves lookups by list alone; neighbors of a position are a single index probe
+            @Index(name = "idx_grocery_items_list_position", columnList = "grocery_list_id, position"),
+            @Index(name = "idx_grocery_items_list_updated", columnList = "grocery_list_id, updated_at, id"),
+            @Index(name = "idx_grocery_items_category", columnList = "category")
         })
 public class GroceryItem extends AbstractAuditableEntity {
 
+    /** Distance between newly allocated positions, so an item can be moved between two others by one UPDATE. */
+    public static final int POSITION_GAP = 1024;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "grocery_list_id", nullable = false)
     private GroceryList groceryList;
@@ -66,8 +73,8 @@ public class GroceryItem extends AbstractAuditableEntity {
     @PrePersist
     private void beforeSave() {
         if (position <= 0) {
-            // Auto-assign position if not set
-            position = groceryList.getNextItemPosition();
+            // Deriving it from the list's items would load all of them for every insert
+            throw new IllegalStateException("Grocery item positions must be allocated from the list's counter");
         }
     }
 
@@ -6,6 +6,9 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
@@ -24,15 +27,23 @@ import net.lwenstrom.cooklion.mealplan.model.MealPlan;
 @Setter
 @ToString(exclude = {"user", "mealPlan", "items"})
 @Entity
+@NamedEntityGraph(
+        name = GroceryList.ITEMS_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "items", subgraph = "items"),
+        subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("sourceRecipe")))
 @Table(
         name = "grocery_lists",
         indexes = {
-            @Index(name = "idx_grocery_lists_user", columnList = "user_id"),
+            // Also serves lookups by user; the sync feed reads a user's lists in the order they changed
+            @Index(name = "idx_grocery_lists_user_updated", columnList = "user_id, updated_at"),
             @Index(name = "idx_grocery_lists_meal_plan", columnList = "meal_plan_id"),
             @Index(name = "idx_grocery_lists_status", columnList = "status")
         })
 public class GroceryList extends AbstractAuditableEntity {
 
+    /** The list with its items and their source recipes, for code that works on the whole list. */
+    public static final String ITEMS_GRAPH = "GroceryList.items";
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private UserAccount user;
@@ -49,15 +60,15 @@ public class GroceryList extends AbstractAuditableEntity {
     @Column(name = "status", nullable = false, length = 16)
     private GroceryListStatus status = GroceryListStatus.ACTIVE;
 
+    /**
+     * Number of item positions handed out so far, in units of {@link GroceryItem#POSITION_GAP}. Only advanced by an
+     * atomic UPDATE in {@code GroceryItemPositionService}, never written by Hibernate after the insert, so concurrent
+     * additions get distinct positions without loading the items or bumping the list's version.
+     */
+    @Column(name = "item_position_counter", nullable = false, updatable = false)
+    private int itemPositionCounter = 0;
+
     @OneToMany(mappedBy = "groceryList", orphanRemoval = true)
     @OrderBy("position ASC")
     private Set<GroceryItem> items = new LinkedHashSet<>();
-
-    public int getNextItemPosition() {
-        if (items.isEmpty()) {
-            return 1;
-        } else {
-            return items.stream().mapToInt(GroceryItem::getPosition).max().orElse(1) + 1;
-        }
-    }
 }
@@ -0,0 +1,40 @@
+package net.lwenstrom.cooklion.grocery.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemView;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GroceryItemRepository extends JpaRepository<GroceryItem, UUID> {
+
+    @Query(
+            """
+            SELECT new net.lwenstrom.cooklion.grocery.dto.GroceryItemView(
+                i.id, i.name, i.quantity, i.category, i.checked, i.position, i.notes, r.id, r.title, i.version)
+            FROM GroceryItem i LEFT JOIN i.sourceRecipe r
+            WHERE i.groceryList.id = :groceryListId
+            ORDER BY i.position
+            """)
+    List<GroceryItemView> findViewsByGroceryListId(@Param("groceryListId") UUID groceryListId);
+
+    @Query(
+            """
+            SELECT new net.lwenstrom.cooklion.grocery.dto.GroceryItemView(
+                i.id, i.name, i.quantity, i.category, i.checked, i.position, i.notes, r.id, r.title, i.version)
+            FROM GroceryItem i LEFT JOIN i.sourceRecipe r
+            WHERE i.groceryList.id = :groceryListId AND i.id IN :ids
+            """)
+    List<GroceryItemView> findViewsByGroceryListIdAndIdIn(
+            @Param("groceryListId") UUID groceryListId, @Param("ids") Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = "sourceRecipe")
+    Optional<GroceryItem> findByIdAndGroceryListId(UUID id, UUID groceryListId);
+}
@@ -0,0 +1,23 @@
+package net.lwenstrom.cooklion.grocery.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListHeader;
+import net.lwenstrom.cooklion.grocery.model.GroceryList;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GroceryListRepository extends JpaRepository<GroceryList, UUID> {
+
+    @Query("SELECT new net.lwenstrom.cooklion.grocery.dto.GroceryListHeader("
+            + "l.id, l.user.id, l.mealPlan.id, l.title, l.status, l.version) "
+            + "FROM GroceryList l WHERE l.id = :id")
+    Optional<GroceryListHeader> findHeaderById(@Param("id") UUID id);
+
+    @EntityGraph(GroceryList.ITEMS_GRAPH)
+    Optional<GroceryList> findWithItemsById(UUID id);
+}
@@ -0,0 +1,287 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutation;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutationResult;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemView;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListDelta;
+import net.lwenstrom.cooklion.grocery.event.GroceryListChangedEvent;
+import net.lwenstrom.cooklion.grocery.repository.GroceryItemRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Applies many item changes of one list at once, e.g. everything checked off at checkout. All field changes and moves
+ * are written by a single UPDATE guarded by the expected versions, instead of loading and saving each item. Moves are
+ * planned in memory on the list's locked positions first, so a batch of moves costs one read and at most three writes:
+ * the positions renumbered on the way, the list's counter for moves to the end, and the UPDATE itself.
+ * Items the UPDATE skipped are read once more to report conflicts with their current state.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class GroceryItemBatchService {
+
+    // Locks the items, so the planned positions and the versions checked against stay valid until the UPDATE, and the
+    // list, so no item is appended at the positions planned for moves to the end
+    private static final String LOCK_POSITIONS_SQL =
+            """
+            SELECT i.id, i.position, i.version, l.item_position_counter
+            FROM grocery_items i
+            JOIN grocery_lists l ON l.id = i.grocery_list_id
+            WHERE i.grocery_list_id = ?
+            ORDER BY i.position, i.id
+            FOR UPDATE
+            """;
+
+    // Only positions change, like a renumbering; versions stay so the clients' pending changes remain valid
+    private static final String REPOSITION_SQL =
+            """
+            UPDATE grocery_items t
+            SET position = u.position, updated_at = now()
+            FROM unnest(?::uuid[], ?::int[]) AS u(id, position)
+            WHERE t.id = u.id AND t.grocery_list_id = ? AND t.position <> u.position
+            """;
+
+    private static final String UPDATE_SQL =
+            """
+            UPDATE grocery_items t
+            SET checked = coalesce(u.checked, t.checked), name = coalesce(u.name, t.name),
+                quantity = coalesce(u.quantity, t.quantity), position = coalesce(u.position, t.position),
+                version = t.version + 1, updated_at = now()
+            FROM unnest(?::uuid[], ?::bigint[], ?::boolean[], ?::text[], ?::text[], ?::int[])
+                AS u(id, expected_version, checked, name, quantity, position)
+            WHERE t.id = u.id AND t.grocery_list_id = ?
+                AND (u.expected_version IS NULL OR t.version = u.expected_version)
+            RETURNING t.id, t.name, t.quantity, t.category, t.checked, t.position, t.notes, t.recipe_id,
+                (SELECT r.title FROM recipes r WHERE r.id = t.recipe_id) AS recipe_title, t.version
+            """;
+
+    private final GroceryListQueryService groceryListQueryService;
+    private final GroceryItemPositionService groceryItemPositionService;
+    private final GroceryItemRepository groceryItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** @return one result per mutation, in the order of the mutations */
+    public List<GroceryItemMutationResult> apply(UUID groceryListId, UUID userId, List<GroceryItemMutation> mutations) {
+        groceryListQueryService.getOwnedHeader(groceryListId, userId);
+        if (mutations.stream().map(GroceryItemMutation::itemId).distinct().count() != mutations.size()) {
+            throw new BadRequestException("An item can only be mutated once per batch");
+        }
+        Map<UUID, GroceryItemMutationResult> results = new HashMap<>();
+        Map<UUID, GroceryItemMutation> pending = new LinkedHashMap<>();
+        for (GroceryItemMutation mutation : mutations) {
+            String problem = problemOf(mutation);
+            if (problem != null) {
+                results.put(mutation.itemId(), GroceryItemMutationResult.rejected(mutation.itemId(), problem));
+            } else {
+                pending.put(mutation.itemId(), mutation);
+            }
+        }
+
+        Map<UUID, Integer> positions = Map.of();
+        Set<UUID> skipped = new HashSet<>();
+        if (pending.values().stream().anyMatch(mutation -> mutation.move() != null)) {
+            positions = planMoves(groceryListId, pending, results, skipped);
+        }
+        List<GroceryItemMutation> writes = pending.values().stream()
+                .filter(mutation -> !results.containsKey(mutation.itemId()) && !skipped.contains(mutation.itemId()))
+                .toList();
+        Map<UUID, GroceryItemView> written = writes.isEmpty() ? Map.of() : update(groceryListId, writes, positions);
+        for (GroceryItemView item : written.values()) {
+            results.put(item.id(), GroceryItemMutationResult.applied(item.id(), item.version()));
+        }
+
+        List<UUID> unwritten = pending.keySet().stream()
+                .filter(id -> !results.containsKey(id))
+                .toList();
+        if (!unwritten.isEmpty()) {
+            Map<UUID, GroceryItemView> current = new HashMap<>();
+            groceryItemRepository
+                    .findViewsByGroceryListIdAndIdIn(groceryListId, unwritten)
+                    .forEach(item -> current.put(item.id(), item));
+            for (UUID id : unwritten) {
+                GroceryItemView item = current.get(id);
+                results.put(
+                        id,
+                        item != null
+                                ? GroceryItemMutationResult.conflict(item)
+                                : GroceryItemMutationResult.notFound(id));
+            }
+        }
+
+        // In batch order, so subscribers replay the moves in the order they were planned
+        for (GroceryItemMutation mutation : pending.values()) {
+            GroceryItemView item = written.get(mutation.itemId());
+            if (item != null) {
+                publish(groceryListId, mutation, item);
+            }
+        }
+        log.debug(
+                "Applied {} of {} item mutations to grocery list {}", written.size(), mutations.size(), groceryListId);
+        return mutations.stream().map(mutation -> results.get(mutation.itemId())).toList();
+    }
+
+    /** Why the mutation cannot be applied in any state of the list, or null. */
+    private static String problemOf(GroceryItemMutation mutation) {
+        if (mutation.changesNothing()) {
+            return "The mutation changes nothing";
+        }
+        if (mutation.name() != null && mutation.name().isBlank()) {
+            return "The name must not be blank";
+        }
+        if (mutation.move() != null && mutation.itemId().equals(mutation.move().afterItemId())) {
+            return "An item cannot be moved below itself";
+        }
+        return null;
+    }
+
+    /**
+     * Applies the moves to the locked order of the list in memory and writes the positions of items renumbered on
+     * the way. Mutations of missing items or with a stale version are skipped and classified after the UPDATE.
+     *
+     * @return the planned positions of the moved items
+     */
+    private Map<UUID, Integer> planMoves(
+            UUID groceryListId,
+            Map<UUID, GroceryItemMutation> pending,
+            Map<UUID, GroceryItemMutationResult> results,
+            Set<UUID> skipped) {
+        List<UUID> order = new ArrayList<>();
+        Map<UUID, Integer> positions = new HashMap<>();
+        Map<UUID, Long> versions = new HashMap<>();
+        int[] positionCounter = {0};
+        jdbcTemplate.query(
+                LOCK_POSITIONS_SQL,
+                rs -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    order.add(id);
+                    positions.put(id, rs.getInt("position"));
+                    versions.put(id, rs.getLong("version"));
+                    positionCounter[0] = rs.getInt("item_position_counter");
+                },
+                groceryListId);
+
+        PlannedOrder plan = new PlannedOrder(order, positions, positionCounter[0]);
+        List<UUID> moved = new ArrayList<>();
+        for (GroceryItemMutation mutation : pending.values()) {
+            Long version = versions.get(mutation.itemId());
+            if (version == null
+                    || (mutation.expectedVersion() != null && !mutation.expectedVersion().equals(version))) {
+                skipped.add(mutation.itemId());
+            } else if (mutation.move() != null) {
+                UUID afterItemId = mutation.move().afterItemId();
+                if (afterItemId != null && !versions.containsKey(afterItemId)) {
+                    results.put(
+                            mutation.itemId(),
+                            GroceryItemMutationResult.rejected(mutation.itemId(), "Unknown item to move below"));
+                } else {
+                    plan.move(mutation.itemId(), afterItemId);
+                    moved.add(mutation.itemId());
+                }
+            }
+        }
+        if (plan.positionCounter() != positionCounter[0]) {
+            groceryItemPositionService.reserve(groceryListId, plan.positionCounter());
+        }
+        if (plan.renumbered()) {
+            int repositioned = reposition(groceryListId, plan.positions());
+            log.debug("Renumbered {} items of grocery list {}", repositioned, groceryListId);
+        }
+        Map<UUID, Integer> movedPositions = new HashMap<>();
+        moved.forEach(id -> movedPositions.put(id, plan.positionOf(id)));
+        return movedPositions;
+    }
+
+    private int reposition(UUID groceryListId, Map<UUID, Integer> positions) {
+        List<UUID> ids = List.copyOf(positions.keySet());
+        String[] idStrings = ids.stream().map(UUID::toString).toArray(String[]::new);
+        String[] positionStrings = ids.stream().map(id -> positions.get(id).toString()).toArray(String[]::new);
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(REPOSITION_SQL);
+            statement.setArray(1, connection.createArrayOf("text", idStrings));
+            statement.setArray(2, connection.createArrayOf("text", positionStrings));
+            statement.setObject(3, groceryListId);
+            return statement;
+        });
+    }
+
+    /** @return the written items by id */
+    private Map<UUID, GroceryItemView> update(
+            UUID groceryListId, List<GroceryItemMutation> writes, Map<UUID, Integer> positions) {
+        String[] ids = toStrings(writes, GroceryItemMutation::itemId);
+        String[] expectedVersions = toStrings(writes, GroceryItemMutation::expectedVersion);
+        String[] checked = toStrings(writes, GroceryItemMutation::checked);
+        String[] names = toStrings(writes, GroceryItemMutation::name);
+        String[] quantities = toStrings(writes, GroceryItemMutation::quantity);
+        // Null for items that do not move
+        String[] newPositions = toStrings(writes, mutation -> positions.get(mutation.itemId()));
+        Map<UUID, GroceryItemView> written = new HashMap<>();
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(UPDATE_SQL);
+                    statement.setArray(1, connection.createArrayOf("text", ids));
+                    statement.setArray(2, connection.createArrayOf("text", expectedVersions));
+                    statement.setArray(3, connection.createArrayOf("text", checked));
+                    statement.setArray(4, connection.createArrayOf("text", names));
+                    statement.setArray(5, connection.createArrayOf("text", quantities));
+                    statement.setArray(6, connection.createArrayOf("text", newPositions));
+                    statement.setObject(7, groceryListId);
+                    return statement;
+                },
+                rs -> {
+                    GroceryItemView item = new GroceryItemView(
+                            rs.getObject("id", UUID.class),
+                            rs.getString("name"),
+                            rs.getString("quantity"),
+                            rs.getString("category"),
+                            rs.getBoolean("checked"),
+                            rs.getInt("position"),
+                            rs.getString("notes"),
+                            rs.getObject("recipe_id", UUID.class),
+                            rs.getString("recipe_title"),
+                            rs.getLong("version"));
+                    written.put(item.id(), item);
+                });
+        return written;
+    }
+
+    /** A move as a relative move, a rename as the whole item, a check alone as the coalescable check delta. */
+    private void publish(UUID groceryListId, GroceryItemMutation mutation, GroceryItemView item) {
+        if (mutation.name() != null || mutation.quantity() != null) {
+            eventPublisher.publishEvent(new GroceryListChangedEvent(groceryListId, GroceryListDelta.itemUpdated(item)));
+        } else if (mutation.checked() != null) {
+            eventPublisher.publishEvent(new GroceryListChangedEvent(
+                    groceryListId, GroceryListDelta.itemChecked(item.id(), item.checked(), item.version())));
+        }
+        if (mutation.move() != null) {
+            eventPublisher.publishEvent(new GroceryListChangedEvent(
+                    groceryListId,
+                    GroceryListDelta.itemMoved(item.id(), mutation.move().afterItemId(), item.version())));
+        }
+    }
+
+    private static String[] toStrings(List<GroceryItemMutation> mutations, Function<GroceryItemMutation, ?> field) {
+        return mutations.stream()
+                .map(field)
+                .map(value -> Objects.toString(value, null))
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,215 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListDelta;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListHeader;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListView;
+import net.lwenstrom.cooklion.grocery.dto.ReorderGroceryItemsRequest;
+import net.lwenstrom.cooklion.grocery.event.GroceryListChangedEvent;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Orders the items of grocery lists. New items take positions from the list's counter, {@link GroceryItem#POSITION_GAP}
+ * apart, so appending never reads the existing items. A move places the item halfway between its new neighbors and
+ * writes a single row; only when two neighbors are adjacent is the list renumbered, with one UPDATE for all items. A
+ * full re-sort is one UPDATE as well, skipping the items already in place.
+ *
+ * <p>Every allocation and every move to the end consumes counter values. Before the positions would overflow an int,
+ * the list is renumbered and its counter restarts behind the items.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class GroceryItemPositionService {
+
+    private static final String ALLOCATE_SQL =
+            """
+            UPDATE grocery_lists SET item_position_counter = item_position_counter + ?
+            WHERE id = ?
+            RETURNING item_position_counter
+            """;
+
+    private static final String RESTART_COUNTER_SQL =
+            """
+            UPDATE grocery_lists
+            SET item_position_counter = (SELECT count(*) FROM grocery_items WHERE grocery_list_id = ?) + ?
+            WHERE id = ?
+            RETURNING item_position_counter
+            """;
+
+    private static final String RESERVE_SQL = "UPDATE grocery_lists SET item_position_counter = ? WHERE id = ?";
+
+    private static final String POSITION_SQL =
+            "SELECT position FROM grocery_items WHERE id = ? AND grocery_list_id = ?";
+
+    private static final String NEXT_POSITION_SQL =
+            "SELECT min(position) FROM grocery_items WHERE grocery_list_id = ? AND position > ? AND id <> ?";
+
+    private static final String MOVE_SQL =
+            """
+            UPDATE grocery_items SET position = ?, version = version + 1, updated_at = now()
+            WHERE id = ? AND grocery_list_id = ?
+            RETURNING version
+            """;
+
+    // Keeps the current order; the counter never falls below the item count, so it stays ahead of the new positions.
+    // Versions are left alone: the relative order clients see is unchanged, so their pending edits stay valid.
+    private static final String RENUMBER_SQL =
+            """
+            UPDATE grocery_items i
+            SET position = o.rank * ?, updated_at = now()
+            FROM (
+                SELECT id, row_number() OVER (ORDER BY position, id) AS rank
+                FROM grocery_items
+                WHERE grocery_list_id = ?
+            ) o
+            WHERE i.id = o.id AND i.position <> o.rank * ?
+            """;
+
+    private static final String COUNT_LISTED_SQL =
+            """
+            SELECT count(*) FILTER (WHERE id = ANY(?::uuid[])) AS listed, count(*) AS total
+            FROM grocery_items
+            WHERE grocery_list_id = ?
+            """;
+
+    private static final String RESORT_SQL =
+            """
+            UPDATE grocery_items i
+            SET position = o.rank * ?, version = i.version + 1, updated_at = now()
+            FROM unnest(?::uuid[]) WITH ORDINALITY AS o(id, rank)
+            WHERE i.id = o.id AND i.grocery_list_id = ? AND i.position <> o.rank * ?
+            """;
+
+    private final GroceryListQueryService groceryListQueryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Reserves positions for new items at the end of the list.
+     *
+     * @return the first of {@code count} positions, each {@link GroceryItem#POSITION_GAP} after the previous one
+     */
+    public int allocate(UUID groceryListId, int count) {
+        List<Integer> counters = jdbcTemplate.queryForList(ALLOCATE_SQL, Integer.class, count, groceryListId);
+        if (counters.isEmpty()) {
+            throw new ResourceNotFoundException("Grocery list", groceryListId);
+        }
+        int counter = counters.getFirst();
+        if (counter > ItemPositions.MAX_COUNTER) {
+            counter = restartCounter(groceryListId, count);
+        }
+        return (counter - count + 1) * GroceryItem.POSITION_GAP;
+    }
+
+    /**
+     * Stores a counter planned while the list was locked, see {@link PlannedOrder}.
+     *
+     * @param counter at least the list's item count
+     */
+    void reserve(UUID groceryListId, int counter) {
+        jdbcTemplate.update(RESERVE_SQL, counter, groceryListId);
+    }
+
+    /** Renumbers the list, whose row the allocation locked, and restarts its counter behind the items. */
+    private int restartCounter(UUID groceryListId, int count) {
+        int renumbered = renumber(groceryListId);
+        Integer counter = jdbcTemplate.queryForObject(
+                RESTART_COUNTER_SQL, Integer.class, groceryListId, count, groceryListId);
+        if (counter == null || counter > ItemPositions.MAX_COUNTER) {
+            throw new BadRequestException("A grocery list can hold at most " + ItemPositions.MAX_COUNTER + " items");
+        }
+        log.info(
+                "Renumbered {} items of grocery list {} and restarted its position counter",
+                renumbered,
+                groceryListId);
+        return counter;
+    }
+
+    public GroceryListView reorder(UUID groceryListId, UUID userId, ReorderGroceryItemsRequest request) {
+        GroceryListHeader list = groceryListQueryService.getOwnedHeader(groceryListId, userId);
+        if (request.order() != null && request.itemId() == null) {
+            resort(groceryListId, request.order());
+        } else if (request.order() == null && request.itemId() != null) {
+            move(groceryListId, request.itemId(), request.afterItemId());
+        } else {
+            throw new BadRequestException("Either an item to move or the complete order is required");
+        }
+        return groceryListQueryService.view(list);
+    }
+
+    private void move(UUID groceryListId, UUID itemId, UUID afterItemId) {
+        if (itemId.equals(afterItemId)) {
+            throw new BadRequestException("An item cannot be moved below itself");
+        }
+        int position = positionAfter(groceryListId, itemId, afterItemId);
+        if (position == ItemPositions.NO_GAP) {
+            int renumbered = renumber(groceryListId);
+            log.debug("Renumbered {} items of grocery list {}", renumbered, groceryListId);
+            position = positionAfter(groceryListId, itemId, afterItemId);
+        }
+        List<Long> versions = jdbcTemplate.queryForList(MOVE_SQL, Long.class, position, itemId, groceryListId);
+        if (versions.isEmpty()) {
+            throw new ResourceNotFoundException("Grocery item", itemId);
+        }
+        eventPublisher.publishEvent(new GroceryListChangedEvent(
+                groceryListId, GroceryListDelta.itemMoved(itemId, afterItemId, versions.getFirst())));
+    }
+
+    /** A free position right below the given item, a newly allocated one at the end of the list or NO_GAP. */
+    private int positionAfter(UUID groceryListId, UUID itemId, UUID afterItemId) {
+        int before = afterItemId != null ? positionOf(groceryListId, afterItemId) : 0;
+        Integer after = jdbcTemplate.queryForObject(NEXT_POSITION_SQL, Integer.class, groceryListId, before, itemId);
+        return after != null ? ItemPositions.between(before, after) : allocate(groceryListId, 1);
+    }
+
+    private int positionOf(UUID groceryListId, UUID itemId) {
+        List<Integer> positions = jdbcTemplate.queryForList(POSITION_SQL, Integer.class, itemId, groceryListId);
+        if (positions.isEmpty()) {
+            throw new ResourceNotFoundException("Grocery item", itemId);
+        }
+        return positions.getFirst();
+    }
+
+    private int renumber(UUID groceryListId) {
+        return jdbcTemplate.update(RENUMBER_SQL, GroceryItem.POSITION_GAP, groceryListId, GroceryItem.POSITION_GAP);
+    }
+
+    private void resort(UUID groceryListId, List<UUID> order) {
+        String[] ids = order.stream().map(UUID::toString).toArray(String[]::new);
+        boolean complete = new HashSet<>(order).size() == order.size()
+                && Boolean.TRUE.equals(jdbcTemplate.query(
+                        connection -> {
+                            PreparedStatement statement = connection.prepareStatement(COUNT_LISTED_SQL);
+                            statement.setArray(1, connection.createArrayOf("text", ids));
+                            statement.setObject(2, groceryListId);
+                            return statement;
+                        },
+                        rs -> rs.next() && rs.getInt("listed") == ids.length && rs.getInt("total") == ids.length));
+        if (!complete) {
+            throw new BadRequestException("The order must list every item of the grocery list exactly once");
+        }
+        int updated = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RESORT_SQL);
+            statement.setInt(1, GroceryItem.POSITION_GAP);
+            statement.setArray(2, connection.createArrayOf("text", ids));
+            statement.setObject(3, groceryListId);
+            statement.setInt(4, GroceryItem.POSITION_GAP);
+            return statement;
+        });
+        log.debug("Re-sorted grocery list {}, {} of {} items moved", groceryListId, updated, ids.length);
+        eventPublisher.publishEvent(new GroceryListChangedEvent(groceryListId, GroceryListDelta.itemsReordered(order)));
+    }
+}
@@ -0,0 +1,43 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListHeader;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListView;
+import net.lwenstrom.cooklion.grocery.repository.GroceryItemRepository;
+import net.lwenstrom.cooklion.grocery.repository.GroceryListRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Read side of grocery lists: one query for the list, one for all items with their source recipes. */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class GroceryListQueryService {
+
+    private final GroceryListRepository groceryListRepository;
+    private final GroceryItemRepository groceryItemRepository;
+
+    /** Returns the list header if it belongs to the user; other users' lists are reported as missing. */
+    public GroceryListHeader getOwnedHeader(UUID groceryListId, UUID userId) {
+        return groceryListRepository
+                .findHeaderById(groceryListId)
+                .filter(header -> header.userId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Grocery list", groceryListId));
+    }
+
+    public GroceryListView view(UUID groceryListId, UUID userId) {
+        return view(getOwnedHeader(groceryListId, userId));
+    }
+
+    GroceryListView view(GroceryListHeader header) {
+        return new GroceryListView(
+                header.id(),
+                header.title(),
+                header.status(),
+                header.mealPlanId(),
+                header.version(),
+                groceryItemRepository.findViewsByGroceryListId(header.id()));
+    }
+}
@@ -0,0 +1,107 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.grocery.dto.AddGroceryItemRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemView;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListDelta;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListHeader;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListStatusRequest;
+import net.lwenstrom.cooklion.grocery.event.GroceryListChangedEvent;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import net.lwenstrom.cooklion.grocery.model.GroceryList;
+import net.lwenstrom.cooklion.grocery.repository.GroceryItemRepository;
+import net.lwenstrom.cooklion.grocery.repository.GroceryListRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Write path for grocery lists and their items. Every change publishes a {@link GroceryListChangedEvent} with the
+ * delta that subscribed clients apply to their copy of the list.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class GroceryListService {
+
+    private final GroceryListRepository groceryListRepository;
+    private final GroceryItemRepository groceryItemRepository;
+    private final GroceryListQueryService groceryListQueryService;
+    private final GroceryItemPositionService groceryItemPositionService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public GroceryItemView addItem(UUID groceryListId, UUID userId, AddGroceryItemRequest request) {
+        groceryListQueryService.getOwnedHeader(groceryListId, userId);
+        GroceryItem item = GroceryItem.builder()
+                .groceryList(groceryListRepository.getReferenceById(groceryListId))
+                .name(request.name())
+                .quantity(request.quantity())
+                .category(request.category())
+                .notes(request.notes())
+                .position(groceryItemPositionService.allocate(groceryListId, 1))
+                .build();
+
+        // Flush so the view carries the generated id and version
+        GroceryItemView view = toView(groceryItemRepository.saveAndFlush(item));
+        eventPublisher.publishEvent(new GroceryListChangedEvent(groceryListId, GroceryListDelta.itemAdded(view)));
+        return view;
+    }
+
+    public GroceryItemView toggleChecked(UUID groceryListId, UUID itemId, UUID userId) {
+        groceryListQueryService.getOwnedHeader(groceryListId, userId);
+        GroceryItem item = groceryItemRepository
+                .findByIdAndGroceryListId(itemId, groceryListId)
+                .orElseThrow(() -> new ResourceNotFoundException("Grocery item", itemId));
+        item.toggleChecked();
+
+        GroceryItemView view = toView(groceryItemRepository.saveAndFlush(item));
+        eventPublisher.publishEvent(new GroceryListChangedEvent(
+                groceryListId, GroceryListDelta.itemChecked(itemId, view.checked(), view.version())));
+        return view;
+    }
+
+    public GroceryListHeader changeStatus(UUID groceryListId, UUID userId, GroceryListStatusRequest request) {
+        GroceryList list = groceryListRepository
+                .findById(groceryListId)
+                .filter(candidate -> candidate.getUser().getId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Grocery list", groceryListId));
+        if (list.getStatus() == request.status()) {
+            return toHeader(list, userId);
+        }
+        list.setStatus(request.status());
+
+        GroceryList savedList = groceryListRepository.saveAndFlush(list);
+        eventPublisher.publishEvent(new GroceryListChangedEvent(
+                groceryListId, GroceryListDelta.statusChanged(savedList.getStatus(), savedList.getVersion())));
+        log.debug("Grocery list {} is now {}", groceryListId, savedList.getStatus());
+        return toHeader(savedList, userId);
+    }
+
+    private static GroceryItemView toView(GroceryItem item) {
+        return new GroceryItemView(
+                item.getId(),
+                item.getName(),
+                item.getQuantity(),
+                item.getCategory(),
+                item.isChecked(),
+                item.getPosition(),
+                item.getNotes(),
+                item.getSourceRecipe() != null ? item.getSourceRecipe().getId() : null,
+                item.getSourceRecipe() != null ? item.getSourceRecipe().getTitle() : null,
+                item.getVersion());
+    }
+
+    private static GroceryListHeader toHeader(GroceryList list, UUID userId) {
+        return new GroceryListHeader(
+                list.getId(),
+                userId,
+                list.getMealPlan() != null ? list.getMealPlan().getId() : null,
+                list.getTitle(),
+                list.getStatus(),
+                list.getVersion());
+    }
+}
@@ -0,0 +1,24 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+
+/** Position arithmetic for gap-based item ordering; see {@link GroceryItemPositionService}. */
+final class ItemPositions {
+
+    static final int NO_GAP = -1;
+
+    /** The highest position counter whose positions still fit into an int; beyond it the list has to be renumbered. */
+    static final int MAX_COUNTER = Integer.MAX_VALUE / GroceryItem.POSITION_GAP;
+
+    private ItemPositions() {}
+
+    /**
+     * Returns a position strictly between two neighbors, or {@link #NO_GAP} if they are adjacent and the list has to be
+     * renumbered first.
+     *
+     * @param before position of the item above, 0 for the top of the list
+     */
+    static int between(int before, int after) {
+        return after - before >= 2 ? before + (after - before) / 2 : NO_GAP;
+    }
+}
@@ -0,0 +1,85 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+
+/**
+ * The order of a list's items in memory, for planning many moves before writing any. A move takes a position between
+ * its new neighbors like {@link GroceryItemPositionService#reorder} does; if they are adjacent, all items are
+ * renumbered in memory. Moves to the end take the next positions of the list's counter, which the caller stores with a
+ * single {@link GroceryItemPositionService#reserve} afterwards; if the counter would overflow the positions, the items
+ * are renumbered and the counter restarts behind them. Not thread-safe.
+ */
+final class PlannedOrder {
+
+    private final List<UUID> order;
+    private final Map<UUID, Integer> positions;
+    private int positionCounter;
+    private boolean renumbered;
+
+    /**
+     * @param order the item ids in their current order, modified in place
+     * @param positions the items' positions, modified in place
+     * @param positionCounter the list's position counter, locked until the planned counter is stored
+     */
+    PlannedOrder(List<UUID> order, Map<UUID, Integer> positions, int positionCounter) {
+        this.order = order;
+        this.positions = positions;
+        this.positionCounter = positionCounter;
+    }
+
+    /** @param afterItemId the item to place it below, null for the top; must be another item of the list */
+    void move(UUID itemId, UUID afterItemId) {
+        order.remove(itemId);
+        int index = afterItemId != null ? order.indexOf(afterItemId) + 1 : 0;
+        order.add(index, itemId);
+        positions.put(itemId, positionAt(index));
+    }
+
+    int positionOf(UUID itemId) {
+        return positions.get(itemId);
+    }
+
+    /** Whether items that were not moved got new positions as well. */
+    boolean renumbered() {
+        return renumbered;
+    }
+
+    Map<UUID, Integer> positions() {
+        return positions;
+    }
+
+    /** The list's position counter after the moves to the end. */
+    int positionCounter() {
+        return positionCounter;
+    }
+
+    private int positionAt(int index) {
+        if (index == order.size() - 1) {
+            if (positionCounter >= ItemPositions.MAX_COUNTER) {
+                renumber();
+                positionCounter = order.size();
+                return positions.get(order.get(index));
+            }
+            positionCounter++;
+            return positionCounter * GroceryItem.POSITION_GAP;
+        }
+        int before = index > 0 ? positions.get(order.get(index - 1)) : 0;
+        int position = ItemPositions.between(before, positions.get(order.get(index + 1)));
+        if (position == ItemPositions.NO_GAP) {
+            renumber();
+            return positions.get(order.get(index));
+        }
+        return position;
+    }
+
+    /** The moved item is already at its index, so it is renumbered along with the others. */
+    private void renumber() {
+        for (int i = 0; i < order.size(); i++) {
+            positions.put(order.get(i), (i + 1) * GroceryItem.POSITION_GAP);
+        }
+        renumbered = true;
+    }
+}
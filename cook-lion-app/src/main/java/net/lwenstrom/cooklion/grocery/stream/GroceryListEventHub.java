@@ -0,0 +1,227 @@
+package net.lwenstrom.cooklion.grocery.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListDelta;
+import net.lwenstrom.cooklion.grocery.event.GroceryListChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Fans out committed grocery list changes to the clients subscribed to a list. Idle subscribers hold no thread: a
+ * subscription is a reactive stream written by Spring MVC's async support, and deltas are pushed by the flush task.
+ *
+ * <p>Changes are collected per list and fanned out every flush interval in one batch, so rapid toggles of the same
+ * item, or status changes, reach subscribers as a single delta with the final state. Each subscriber has a bounded
+ * buffer and is only sent as much as it requested; a subscriber that falls behind has its buffer dropped and gets a
+ * {@link GroceryListDelta.Type#RESYNC RESYNC} delta instead, after which it receives deltas again.
+ *
+ * <p>Subscribers only see changes made on this instance; like the caches, the hub is local.
+ */
+@Slf4j
+@Component
+public class GroceryListEventHub {
+
+    private static final ServerSentEvent<GroceryListDelta> HEARTBEAT =
+            ServerSentEvent.<GroceryListDelta>builder().comment("keepalive").build();
+
+    private final Map<UUID, Channel> channels = new ConcurrentHashMap<>();
+    private final Set<Channel> dirty = ConcurrentHashMap.newKeySet();
+    private final int bufferSize;
+    private final Duration maxConnectionAge;
+    private final Counter resyncs;
+
+    public GroceryListEventHub(
+            MeterRegistry meterRegistry,
+            @Value("${app.grocery-lists.sync.buffer-size:256}") int bufferSize,
+            @Value("${app.grocery-lists.sync.max-connection-age:PT15M}") Duration maxConnectionAge) {
+        this.bufferSize = bufferSize;
+        this.maxConnectionAge = maxConnectionAge;
+        this.resyncs = Counter.builder("grocery-lists.sync.resyncs")
+                .description("Subscribers whose buffered deltas were dropped for a resync")
+                .register(meterRegistry);
+        Gauge.builder("grocery-lists.sync.subscribers", this, GroceryListEventHub::subscriberCount)
+                .description("Clients subscribed to grocery list changes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Streams the changes of a list, starting with those committed after the subscription. Clients should subscribe
+     * before fetching the list, so no change falls between the two. The stream completes after the maximum connection
+     * age, below the async request timeout; event source clients reconnect on their own.
+     */
+    public Flux<ServerSentEvent<GroceryListDelta>> subscribe(UUID groceryListId) {
+        Flux<ServerSentEvent<GroceryListDelta>> events = Flux.create(
+                sink -> {
+                    Subscriber subscriber = new Subscriber(sink);
+                    channels.compute(groceryListId, (id, channel) -> {
+                        Channel target = channel != null ? channel : new Channel();
+                        target.subscribers.add(subscriber);
+                        return target;
+                    });
+                    sink.onRequest(subscriber::request);
+                    sink.onDispose(() -> unsubscribe(groceryListId, subscriber));
+                },
+                // Never triggered, subscribers only emit what was requested
+                FluxSink.OverflowStrategy.ERROR);
+        return events.take(maxConnectionAge);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroceryListChanged(GroceryListChangedEvent event) {
+        Channel channel = channels.get(event.groceryListId());
+        if (channel != null) {
+            channel.add(event.delta());
+            dirty.add(channel);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.grocery-lists.sync.flush-interval:PT0.1S}")
+    public void flush() {
+        for (Iterator<Channel> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            Channel channel = iterator.next();
+            // Removed before draining, so a delta added meanwhile marks the channel dirty again
+            iterator.remove();
+            List<GroceryListDelta> batch = channel.drain();
+            if (!batch.isEmpty()) {
+                channel.subscribers.forEach(subscriber -> subscriber.offer(batch));
+            }
+        }
+    }
+
+    /** Keeps proxies from closing idle connections and lets failed writes reveal clients that went away. */
+    @Scheduled(fixedDelayString = "${app.grocery-lists.sync.heartbeat-interval:PT25S}")
+    public void heartbeat() {
+        channels.values().forEach(channel -> channel.subscribers.forEach(Subscriber::heartbeat));
+    }
+
+    @PreDestroy
+    void completeAll() {
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.sink.complete()));
+    }
+
+    private void unsubscribe(UUID groceryListId, Subscriber subscriber) {
+        channels.computeIfPresent(groceryListId, (id, channel) -> {
+            channel.subscribers.remove(subscriber);
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    private double subscriberCount() {
+        return channels.values().stream()
+                .mapToInt(channel -> channel.subscribers.size())
+                .sum();
+    }
+
+    /** Deltas with a key carry a complete state and replace a queued predecessor; null for deltas that must all go. */
+    private static Object coalescingKey(GroceryListDelta delta) {
+        return switch (delta.type()) {
+            case ITEM_CHECKED -> delta.itemId();
+            case STATUS_CHANGED, RESYNC -> delta.type();
+            default -> null;
+        };
+    }
+
+    private final class Channel {
+
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        // Deltas since the last flush; a replacing delta moves to the end, behind everything it may depend on
+        private final LinkedHashMap<Object, GroceryListDelta> pending = new LinkedHashMap<>();
+
+        synchronized void add(GroceryListDelta delta) {
+            if (pending.size() >= bufferSize) {
+                pending.clear();
+                pending.put(GroceryListDelta.Type.RESYNC, GroceryListDelta.resync());
+            }
+            Object key = coalescingKey(delta);
+            if (key == null) {
+                key = new Object();
+            } else {
+                pending.remove(key);
+            }
+            pending.put(key, delta);
+        }
+
+        synchronized List<GroceryListDelta> drain() {
+            List<GroceryListDelta> batch = new ArrayList<>(pending.values());
+            pending.clear();
+            return batch;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final FluxSink<ServerSentEvent<GroceryListDelta>> sink;
+        private final ArrayDeque<GroceryListDelta> queue = new ArrayDeque<>();
+        private long demand;
+        private boolean resyncPending;
+
+        Subscriber(FluxSink<ServerSentEvent<GroceryListDelta>> sink) {
+            this.sink = sink;
+        }
+
+        synchronized void offer(List<GroceryListDelta> batch) {
+            if (resyncPending) {
+                // The client refetches the list after the resync, which covers these deltas
+                return;
+            }
+            if (queue.size() + batch.size() > bufferSize) {
+                queue.clear();
+                resyncPending = true;
+                resyncs.increment();
+                log.debug("Grocery list subscriber fell behind, dropping its buffer for a resync");
+            } else {
+                queue.addAll(batch);
+            }
+            drain();
+        }
+
+        synchronized void request(long n) {
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            drain();
+        }
+
+        synchronized void heartbeat() {
+            if (demand > 0 && queue.isEmpty() && !resyncPending) {
+                demand--;
+                sink.next(HEARTBEAT);
+            }
+        }
+
+        private void drain() {
+            while (demand > 0) {
+                GroceryListDelta delta;
+                if (resyncPending) {
+                    resyncPending = false;
+                    delta = GroceryListDelta.resync();
+                } else {
+                    delta = queue.poll();
+                    if (delta == null) {
+                        return;
+                    }
+                }
+                demand--;
+                sink.next(ServerSentEvent.builder(delta).event(delta.type().name()).build());
+            }
+        }
+    }
+}
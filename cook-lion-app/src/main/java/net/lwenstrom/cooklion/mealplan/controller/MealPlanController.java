@@ -0,0 +1,94 @@
+package net.lwenstrom.cooklion.mealplan.controller;
+
+import jakarta.validation.Valid;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.common.persistence.StatementBudget;
+import net.lwenstrom.cooklion.mealplan.dto.CloneMealPlanRequest;
+import net.lwenstrom.cooklion.mealplan.dto.ClonedMealPlan;
+import net.lwenstrom.cooklion.mealplan.dto.CurrentMealsView;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanHeader;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanWeekView;
+import net.lwenstrom.cooklion.mealplan.dto.ShiftMealPlanRequest;
+import net.lwenstrom.cooklion.mealplan.dto.ShuffleRequest;
+import net.lwenstrom.cooklion.mealplan.dto.ShuffleResult;
+import net.lwenstrom.cooklion.mealplan.service.MealPlanCopyService;
+import net.lwenstrom.cooklion.mealplan.service.MealPlanQueryService;
+import net.lwenstrom.cooklion.mealplan.shuffle.MealPlanShuffleService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/meal-plans")
+@RequiredArgsConstructor
+public class MealPlanController {
+
+    private final MealPlanQueryService mealPlanQueryService;
+    private final MealPlanShuffleService mealPlanShuffleService;
+    private final MealPlanCopyService mealPlanCopyService;
+
+    /**
+     * Today's meals and this week's across all active plans, for the dashboard. Dates follow the caller's time zone,
+     * UTC unless given.
+     */
+    @GetMapping("/current")
+    @StatementBudget(2)
+    public CurrentMealsView current(@CurrentUser UserIdentity user, @RequestParam(defaultValue = "UTC") String zone) {
+        ZoneId zoneId;
+        try {
+            zoneId = ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            throw new BadRequestException("Unknown time zone: " + zone);
+        }
+        return mealPlanQueryService.current(user.id(), zoneId);
+    }
+
+    /** The week containing {@code date}, today's week by default. */
+    @GetMapping("/{id}/week")
+    @StatementBudget(3)
+    public MealPlanWeekView week(
+            @PathVariable UUID id,
+            @CurrentUser UserIdentity user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return mealPlanQueryService.week(id, user.id(), date != null ? date : LocalDate.now());
+    }
+
+    /** Fills the empty slots of the plan, or of a range within it, with recipes picked in shuffle mode. */
+    @PostMapping("/{id}/shuffle")
+    @StatementBudget(3)
+    public ShuffleResult shuffle(
+            @PathVariable UUID id, @CurrentUser UserIdentity user, @Valid @RequestBody ShuffleRequest request) {
+        return mealPlanShuffleService.shuffle(id, user.id(), request);
+    }
+
+    /** Copies the plan with its entries to a new date range, e.g. to reuse last month's plan. */
+    @PostMapping("/{id}/clone")
+    @ResponseStatus(HttpStatus.CREATED)
+    @StatementBudget(3)
+    public ClonedMealPlan cloneMealPlan(
+            @PathVariable UUID id, @CurrentUser UserIdentity user, @Valid @RequestBody CloneMealPlanRequest request) {
+        return mealPlanCopyService.clone(id, user, request);
+    }
+
+    /** Moves the plan and all its entries by a number of days. */
+    @PostMapping("/{id}/shift")
+    @StatementBudget(2)
+    public MealPlanHeader shift(
+            @PathVariable UUID id, @CurrentUser UserIdentity user, @Valid @RequestBody ShiftMealPlanRequest request) {
+        return mealPlanCopyService.shift(id, user.id(), request.days());
+    }
+}
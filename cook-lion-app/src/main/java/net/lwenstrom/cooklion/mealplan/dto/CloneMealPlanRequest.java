@@ -0,0 +1,16 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Copies a plan to a new date range. Entries keep their position relative to the start date.
+ *
+ * @param endDate end of the copy, the source's length by default; entries falling after it are not copied
+ * @param title title of the copy, the source's by default
+ * @param userId owner of the copy, the caller by default; copying for another user requires the admin role
+ */
+public record CloneMealPlanRequest(
+        @NotNull LocalDate startDate, LocalDate endDate, @Size(max = 140) String title, UUID userId) {}
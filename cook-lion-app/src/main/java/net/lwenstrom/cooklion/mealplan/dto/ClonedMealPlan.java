@@ -0,0 +1,7 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+/**
+ * @param entryCount entries copied; entries outside the new range or pointing to recipes the new owner cannot see are
+ *     left out
+ */
+public record ClonedMealPlan(MealPlanHeader plan, int entryCount) {}
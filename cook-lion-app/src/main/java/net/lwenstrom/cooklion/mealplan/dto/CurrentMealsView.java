@@ -0,0 +1,18 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * The entries of all active plans of a user for today and the current week, as seen in the user's time zone.
+ *
+ * @param todaysEntries the entries of {@code today}, also contained in {@code week}
+ * @param week the seven days starting on Monday, each with its entries ordered by meal type
+ */
+public record CurrentMealsView(
+        ZoneId zone,
+        LocalDate today,
+        List<MealPlanEntryView> todaysEntries,
+        LocalDate weekStart,
+        List<MealPlanWeekView.Day> week) {}
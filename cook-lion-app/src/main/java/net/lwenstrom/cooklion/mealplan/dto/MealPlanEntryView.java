@@ -0,0 +1,17 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import net.lwenstrom.cooklion.mealplan.model.MealType;
+
+/** An entry with the recipe fields the week view shows, selected in the same query as the entry. */
+public record MealPlanEntryView(
+        UUID id,
+        LocalDate date,
+        MealType mealType,
+        String note,
+        UUID recipeId,
+        String recipeTitle,
+        String recipeSlug,
+        Integer prepTimeMinutes,
+        Integer cookTimeMinutes) {}
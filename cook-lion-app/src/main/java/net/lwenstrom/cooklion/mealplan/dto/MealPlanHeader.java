@@ -0,0 +1,8 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/** The plan's own columns, selected without its entries. */
+public record MealPlanHeader(
+        UUID id, UUID userId, String title, LocalDate startDate, LocalDate endDate, boolean active, long version) {}
@@ -0,0 +1,12 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public record MealPlanWeekView(
+        UUID id, String title, LocalDate startDate, LocalDate endDate, LocalDate weekStart, List<Day> days) {
+
+    /** One day of the week, with its entries ordered by meal type. Days without entries are included. */
+    public record Day(LocalDate date, List<MealPlanEntryView> entries) {}
+}
@@ -0,0 +1,7 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/** Moves a plan and all its entries by a number of days, negative to move it back. */
+public record ShiftMealPlanRequest(@Min(-3660) @Max(3660) int days) {}
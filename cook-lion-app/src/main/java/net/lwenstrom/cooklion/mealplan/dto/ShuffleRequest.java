@@ -0,0 +1,31 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import java.time.LocalDate;
+import java.util.Set;
+import net.lwenstrom.cooklion.mealplan.model.MealType;
+
+/**
+ * Parameters for filling a meal plan in shuffle mode. Unset values fall back to the plan's range, dinner only and no
+ * repeats within a week.
+ *
+ * @param maxMinutesPerDay upper bound for prep and cook time of all meals of a day
+ * @param minServings recipes with fewer or unknown servings are not used
+ * @param maxTagShare upper bound for the share of meals carrying the same tag
+ * @param includePublic whether to draw from public recipes of other users as well as the caller's own
+ * @param seed makes the result reproducible; a random one is chosen and returned when unset
+ */
+public record ShuffleRequest(
+        LocalDate from,
+        LocalDate to,
+        Set<MealType> mealTypes,
+        @Min(0) @Max(60) Integer noRepeatDays,
+        @Positive Integer maxMinutesPerDay,
+        @Positive Integer minServings,
+        @DecimalMin("0.05") @DecimalMax("1.0") Double maxTagShare,
+        boolean includePublic,
+        Long seed) {}
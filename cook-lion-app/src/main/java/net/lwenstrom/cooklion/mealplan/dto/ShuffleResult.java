@@ -0,0 +1,21 @@
+package net.lwenstrom.cooklion.mealplan.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.mealplan.model.MealType;
+
+/**
+ * Outcome of a shuffle run.
+ *
+ * @param seed the seed used; passing it again reproduces the plan for unchanged data
+ * @param entries the entries created
+ * @param unfilled slots no recipe could be placed in without breaking a constraint
+ * @param complete {@code false} if the time budget cut the search short, in which case the plan is valid but may not
+ *     be as varied as it could be
+ */
+public record ShuffleResult(
+        UUID mealPlanId, long seed, List<MealPlanEntryView> entries, List<Slot> unfilled, boolean complete) {
+
+    public record Slot(LocalDate date, MealType mealType) {}
+}
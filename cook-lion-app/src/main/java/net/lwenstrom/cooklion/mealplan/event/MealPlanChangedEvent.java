@@ -0,0 +1,11 @@
+package net.lwenstrom.cooklion.mealplan.event;
+
+import java.util.UUID;
+
+/**
+ * Published whenever entries of a meal plan were created, changed or removed, including by set-based writes that
+ * bypass the entities.
+ *
+ * @param userId owner of the plan
+ */
+public record MealPlanChangedEvent(UUID mealPlanId, UUID userId) {}
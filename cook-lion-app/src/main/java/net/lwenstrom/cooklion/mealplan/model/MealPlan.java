@@ -7,6 +7,9 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.PrePersist;
@@ -28,15 +31,23 @@ import net.lwenstrom.cooklion.common.model.AbstractAuditableEntity;
 @Setter
 @ToString(exclude = {"user", "entries"})
 @Entity
+@NamedEntityGraph(
+        name = MealPlan.ENTRIES_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "entries", subgraph = "entries"),
+        subgraphs = @NamedSubgraph(name = "entries", attributeNodes = @NamedAttributeNode("recipe")))
 @Table(
         name = "meal_plans",
         indexes = {
-            @Index(name = "idx_meal_plans_user", columnList = "user_id"),
+            // Also serves lookups by user; the sync feed reads a user's plans in the order they changed
+            @Index(name = "idx_meal_plans_user_updated", columnList = "user_id, updated_at"),
             @Index(name = "idx_meal_plans_start_end", columnList = "start_date,end_date"),
             @Index(name = "idx_meal_plans_active", columnList = "is_active")
         })
 public class MealPlan extends AbstractAuditableEntity {
 
+    /** The plan with its entries and their recipes, for code that works on the whole plan. */
+    public static final String ENTRIES_GRAPH = "MealPlan.entries";
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private UserAccount user;
@@ -69,6 +80,10 @@ public class MealPlan extends AbstractAuditableEntity {
         }
     }
 
+    /**
+     * Evaluated in memory on a loaded plan. To find the current meals of a user, query with the same predicate in SQL
+     * instead of loading all plans, see {@code MealPlanEntryRepository#findActiveViewsByUserIdAndDateBetween}.
+     */
     public boolean isCurrentlyActive() {
         LocalDate today = LocalDate.now();
         return active
@@ -22,7 +22,8 @@ import net.lwenstrom.cooklion.recipe.model.Recipe;
 @Table(
         name = "meal_plan_entries",
         indexes = {
-            @Index(name = "idx_meal_plan_entries_plan", columnList = "meal_plan_id"),
+            // Also serves lookups by plan; the sync feed reads a plan's entries in the order they changed
+            @Index(name = "idx_meal_plan_entries_plan_updated", columnList = "meal_plan_id, updated_at, id"),
             @Index(name = "idx_meal_plan_entries_date", columnList = "date"),
             @Index(name = "idx_meal_plan_entries_recipe", columnList = "recipe_id")
         })
@@ -0,0 +1,44 @@
+package net.lwenstrom.cooklion.mealplan.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanEntryView;
+import net.lwenstrom.cooklion.mealplan.model.MealPlanEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MealPlanEntryRepository extends JpaRepository<MealPlanEntry, UUID> {
+
+    @Query(
+            """
+            SELECT new net.lwenstrom.cooklion.mealplan.dto.MealPlanEntryView(
+                e.id, e.date, e.mealType, e.note, r.id, r.title, r.slug, r.prepTimeMinutes, r.cookTimeMinutes)
+            FROM MealPlanEntry e LEFT JOIN e.recipe r
+            WHERE e.mealPlan.id = :mealPlanId AND e.date BETWEEN :from AND :to
+            ORDER BY e.date
+            """)
+    List<MealPlanEntryView> findViewsByMealPlanIdAndDateBetween(
+            @Param("mealPlanId") UUID mealPlanId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Entries of the user's active plans in the range. Whether a plan is active on an entry's date is decided in SQL,
+     * so neither plans nor entries outside the range are loaded.
+     */
+    @Query(
+            """
+            SELECT new net.lwenstrom.cooklion.mealplan.dto.MealPlanEntryView(
+                e.id, e.date, e.mealType, e.note, r.id, r.title, r.slug, r.prepTimeMinutes, r.cookTimeMinutes)
+            FROM MealPlanEntry e JOIN e.mealPlan p LEFT JOIN e.recipe r
+            WHERE p.user.id = :userId AND p.active = true
+                AND p.startDate <= :to AND p.endDate >= :from
+                AND e.date BETWEEN :from AND :to
+                AND e.date BETWEEN p.startDate AND p.endDate
+            ORDER BY e.date
+            """)
+    List<MealPlanEntryView> findActiveViewsByUserIdAndDateBetween(
+            @Param("userId") UUID userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,23 @@
+package net.lwenstrom.cooklion.mealplan.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanHeader;
+import net.lwenstrom.cooklion.mealplan.model.MealPlan;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MealPlanRepository extends JpaRepository<MealPlan, UUID> {
+
+    @Query("SELECT new net.lwenstrom.cooklion.mealplan.dto.MealPlanHeader("
+            + "p.id, p.user.id, p.title, p.startDate, p.endDate, p.active, p.version) "
+            + "FROM MealPlan p WHERE p.id = :id")
+    Optional<MealPlanHeader> findHeaderById(@Param("id") UUID id);
+
+    @EntityGraph(MealPlan.ENTRIES_GRAPH)
+    Optional<MealPlan> findWithEntriesById(UUID id);
+}
@@ -0,0 +1,128 @@
+package net.lwenstrom.cooklion.mealplan.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import net.lwenstrom.cooklion.mealplan.dto.CurrentMealsView;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanEntryView;
+import net.lwenstrom.cooklion.mealplan.event.MealPlanChangedEvent;
+import net.lwenstrom.cooklion.recipe.event.RecipeChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Per-user cache of {@link CurrentMealsView}s. An entry is only served for the zone and the day it was computed for,
+ * and expires at the next midnight of its zone at the latest, so the view rolls over to the new day on its own.
+ *
+ * <p>Entries are evicted after commits changing one of the user's plans or a recipe the view shows. Eviction is local
+ * to this instance; the time to live bounds how long other instances may serve the previous state.
+ */
+@Component
+public class CurrentMealsCache {
+
+    private final Cache<UUID, Entry> cache;
+    private final Clock clock;
+
+    /** @param recipeIds recipes shown in the view, precomputed for recipe change lookups */
+    private record Entry(CurrentMealsView view, Set<UUID> recipeIds) {}
+
+    public CurrentMealsCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.current-meals.maximum-size:10000}") long maximumSize,
+            @Value("${app.cache.current-meals.ttl:PT10M}") Duration ttl) {
+        this.clock = Clock.systemUTC();
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfter(new UntilMidnight(ttl, clock))
+                        .recordStats()
+                        .build(),
+                "meal-plans.current");
+    }
+
+    /**
+     * Returns the cached view if it was computed for the given zone and today's date there, otherwise computes and
+     * caches a new one. Computation happens under the entry's lock; an eviction arriving meanwhile waits for it and
+     * then removes the result, so a view read before a commit cannot outlive the eviction.
+     */
+    public CurrentMealsView get(UUID userId, ZoneId zone, Function<LocalDate, CurrentMealsView> loader) {
+        LocalDate today = LocalDate.now(clock.withZone(zone));
+        // Plain lookup first, so hits and misses show up in the cache statistics
+        Entry cached = cache.getIfPresent(userId);
+        if (isCurrent(cached, zone, today)) {
+            return cached.view();
+        }
+        Entry entry = cache.asMap().compute(userId, (id, current) -> {
+            if (isCurrent(current, zone, today)) {
+                return current;
+            }
+            CurrentMealsView view = loader.apply(today);
+            return new Entry(view, recipeIdsOf(view));
+        });
+        return entry.view();
+    }
+
+    public void evict(UUID userId) {
+        cache.invalidate(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMealPlanChanged(MealPlanChangedEvent event) {
+        evict(event.userId());
+    }
+
+    /** Titles and times of planned recipes are part of the view; scanning is cheap next to a recipe edit. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        cache.asMap().values().removeIf(entry -> entry.recipeIds().contains(event.recipeId()));
+    }
+
+    private static boolean isCurrent(Entry entry, ZoneId zone, LocalDate today) {
+        return entry != null && entry.view().zone().equals(zone) && entry.view().today().equals(today);
+    }
+
+    private static Set<UUID> recipeIdsOf(CurrentMealsView view) {
+        return view.week().stream()
+                .flatMap(day -> day.entries().stream())
+                .map(MealPlanEntryView::recipeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /** Expires entries after the time to live or at the next midnight of their zone, whichever comes first. */
+    private record UntilMidnight(Duration ttl, Clock clock) implements Expiry<UUID, Entry> {
+
+        @Override
+        public long expireAfterCreate(UUID key, Entry entry, long currentTime) {
+            ZonedDateTime now = ZonedDateTime.now(clock.withZone(entry.view().zone()));
+            ZonedDateTime midnight = entry.view().today().plusDays(1).atStartOfDay(entry.view().zone());
+            // Negative if midnight passed while the view was computed, which expires it right away
+            long untilMidnight = Math.max(0, Duration.between(now, midnight).toNanos());
+            return Math.min(untilMidnight, ttl.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(UUID key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
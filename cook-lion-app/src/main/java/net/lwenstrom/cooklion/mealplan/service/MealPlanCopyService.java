@@ -0,0 +1,158 @@
+package net.lwenstrom.cooklion.mealplan.service;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.auth.model.Role;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.service.UserAccountService;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.common.exception.ConflictException;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.common.model.TimeOrderedUuid;
+import net.lwenstrom.cooklion.mealplan.dto.CloneMealPlanRequest;
+import net.lwenstrom.cooklion.mealplan.dto.ClonedMealPlan;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanHeader;
+import net.lwenstrom.cooklion.mealplan.event.MealPlanChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Copies and moves whole meal plans with set-based SQL. Going through the entities would cascade one INSERT or UPDATE
+ * per entry; here a clone and a shift are two statements each, independent of the number of entries. Copied entries
+ * get time-ordered ids generated here, like every other insert.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class MealPlanCopyService {
+
+    // Entries that land in the new range and whose recipe the new owner may read, in date order for their ids
+    private static final String ENTRIES_TO_COPY_SQL =
+            """
+            SELECT e.id
+            FROM meal_plan_entries e
+            LEFT JOIN recipes r ON r.id = e.recipe_id
+            WHERE e.meal_plan_id = ?
+                AND e.date + ? BETWEEN ? AND ?
+                AND (e.recipe_id IS NULL OR r.visibility = 'PUBLIC' OR r.author_id = ?)
+            ORDER BY e.date, e.id
+            """;
+
+    // The plan and its entries in one statement; the entry INSERT sees the plan row inserted by its sibling CTE
+    private static final String CLONE_SQL =
+            """
+            WITH plan AS (
+                INSERT INTO meal_plans (
+                    id, user_id, title, start_date, end_date, is_active, version, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, true, 0, now(), now())
+                RETURNING id
+            ), copied AS (
+                INSERT INTO meal_plan_entries (
+                    id, meal_plan_id, date, meal_type, recipe_id, note, version, created_at, updated_at)
+                SELECT c.id, plan.id, e.date + ?, e.meal_type, e.recipe_id, e.note, 0, now(), now()
+                FROM plan
+                CROSS JOIN unnest(?::uuid[], ?::uuid[]) AS c(id, source_id)
+                JOIN meal_plan_entries e ON e.id = c.source_id
+                RETURNING 1
+            )
+            SELECT count(*) FROM copied
+            """;
+
+    private static final String SHIFT_PLAN_SQL =
+            """
+            UPDATE meal_plans
+            SET start_date = start_date + ?, end_date = end_date + ?, version = version + 1, updated_at = now()
+            WHERE id = ? AND version = ?
+            """;
+
+    private static final String SHIFT_ENTRIES_SQL =
+            """
+            UPDATE meal_plan_entries
+            SET date = date + ?, version = version + 1, updated_at = now()
+            WHERE meal_plan_id = ?
+            """;
+
+    private final MealPlanQueryService mealPlanQueryService;
+    private final UserAccountService userAccountService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ClonedMealPlan clone(UUID mealPlanId, UserIdentity actor, CloneMealPlanRequest request) {
+        MealPlanHeader source = mealPlanQueryService.getOwnedHeader(mealPlanId, actor.id());
+        UUID ownerId = request.userId() != null ? request.userId() : actor.id();
+        if (!ownerId.equals(actor.id())) {
+            if (!actor.roles().contains(Role.ADMIN)) {
+                throw new AccessDeniedException("Only admins can copy meal plans for other users");
+            }
+            userAccountService
+                    .findIdentityById(ownerId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User", ownerId));
+        }
+
+        long offset = ChronoUnit.DAYS.between(source.startDate(), request.startDate());
+        LocalDate endDate = request.endDate() != null ? request.endDate() : source.endDate().plusDays(offset);
+        // Same rule as MealPlan#validateDateRange, checked up front because no entity is involved
+        if (endDate.isBefore(request.startDate())) {
+            throw new BadRequestException("End date cannot be before start date");
+        }
+        String title = request.title() != null && !request.title().isBlank() ? request.title() : source.title();
+
+        List<UUID> sourceIds = jdbcTemplate.queryForList(
+                ENTRIES_TO_COPY_SQL, UUID.class, mealPlanId, (int) offset, request.startDate(), endDate, ownerId);
+        String[] entryIds = sourceIds.stream().map(id -> TimeOrderedUuid.next().toString()).toArray(String[]::new);
+        String[] sourceEntryIds = sourceIds.stream().map(UUID::toString).toArray(String[]::new);
+
+        UUID copyId = TimeOrderedUuid.next();
+        int copied = jdbcTemplate
+                .query(
+                        connection -> {
+                            PreparedStatement statement = connection.prepareStatement(CLONE_SQL);
+                            statement.setObject(1, copyId);
+                            statement.setObject(2, ownerId);
+                            statement.setString(3, title);
+                            statement.setObject(4, request.startDate());
+                            statement.setObject(5, endDate);
+                            statement.setInt(6, (int) offset);
+                            statement.setArray(7, connection.createArrayOf("text", entryIds));
+                            statement.setArray(8, connection.createArrayOf("text", sourceEntryIds));
+                            return statement;
+                        },
+                        (rs, rowNum) -> rs.getInt(1))
+                .getFirst();
+        eventPublisher.publishEvent(new MealPlanChangedEvent(copyId, ownerId));
+        log.debug("Cloned meal plan {} to {} with {} entries", mealPlanId, copyId, copied);
+        return new ClonedMealPlan(
+                new MealPlanHeader(copyId, ownerId, title, request.startDate(), endDate, true, 0), copied);
+    }
+
+    /** Moves the plan and its entries; fails with a conflict if the plan changed since its header was read. */
+    public MealPlanHeader shift(UUID mealPlanId, UUID userId, int days) {
+        MealPlanHeader plan = mealPlanQueryService.getOwnedHeader(mealPlanId, userId);
+        if (days == 0) {
+            return plan;
+        }
+        if (jdbcTemplate.update(SHIFT_PLAN_SQL, days, days, mealPlanId, plan.version()) == 0) {
+            throw new ConflictException("The meal plan was changed concurrently, please try again");
+        }
+        int shifted = jdbcTemplate.update(SHIFT_ENTRIES_SQL, days, mealPlanId);
+        eventPublisher.publishEvent(new MealPlanChangedEvent(mealPlanId, userId));
+        log.debug("Shifted meal plan {} and {} entries by {} days", mealPlanId, shifted, days);
+        return new MealPlanHeader(
+                plan.id(),
+                plan.userId(),
+                plan.title(),
+                plan.startDate().plusDays(days),
+                plan.endDate().plusDays(days),
+                plan.active(),
+                plan.version() + 1);
+    }
+}
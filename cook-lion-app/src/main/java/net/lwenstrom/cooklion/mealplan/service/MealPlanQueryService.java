@@ -0,0 +1,96 @@
+package net.lwenstrom.cooklion.mealplan.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.mealplan.dto.CurrentMealsView;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanEntryView;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanHeader;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanWeekView;
+import net.lwenstrom.cooklion.mealplan.repository.MealPlanEntryRepository;
+import net.lwenstrom.cooklion.mealplan.repository.MealPlanRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Read side of meal plans. Each view costs a fixed number of queries, independent of the number of entries. */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MealPlanQueryService {
+
+    private static final int DAYS_PER_WEEK = 7;
+
+    private final MealPlanRepository mealPlanRepository;
+    private final MealPlanEntryRepository mealPlanEntryRepository;
+    private final CurrentMealsCache currentMealsCache;
+
+    /** Returns the plan header if it belongs to the user; other users' plans are reported as missing. */
+    public MealPlanHeader getOwnedHeader(UUID mealPlanId, UUID userId) {
+        return mealPlanRepository
+                .findHeaderById(mealPlanId)
+                .filter(header -> header.userId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Meal plan", mealPlanId));
+    }
+
+    /**
+     * Returns the week starting on the Monday on or before {@code day}: one query for the plan, one for the entries
+     * joined with their recipes.
+     */
+    public MealPlanWeekView week(UUID mealPlanId, UUID userId, LocalDate day) {
+        MealPlanHeader header = getOwnedHeader(mealPlanId, userId);
+        LocalDate weekStart = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate weekEnd = weekStart.plusDays(DAYS_PER_WEEK - 1);
+
+        List<MealPlanWeekView.Day> days = daysOf(
+                weekStart, mealPlanEntryRepository.findViewsByMealPlanIdAndDateBetween(mealPlanId, weekStart, weekEnd));
+        return new MealPlanWeekView(
+                header.id(), header.title(), header.startDate(), header.endDate(), weekStart, days);
+    }
+
+    /**
+     * Today's meals and the current week across all active plans of the user, with dates taken in the given zone.
+     * Served from {@link CurrentMealsCache}; a cache hit does not touch the database at all.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CurrentMealsView current(UUID userId, ZoneId zone) {
+        return currentMealsCache.get(userId, zone, today -> loadCurrent(userId, zone, today));
+    }
+
+    private CurrentMealsView loadCurrent(UUID userId, ZoneId zone, LocalDate today) {
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate weekEnd = weekStart.plusDays(DAYS_PER_WEEK - 1);
+        List<MealPlanWeekView.Day> days = daysOf(
+                weekStart, mealPlanEntryRepository.findActiveViewsByUserIdAndDateBetween(userId, weekStart, weekEnd));
+        List<MealPlanEntryView> todaysEntries = days.stream()
+                .filter(day -> day.date().equals(today))
+                .findFirst()
+                .map(MealPlanWeekView.Day::entries)
+                .orElse(List.of());
+        return new CurrentMealsView(zone, today, todaysEntries, weekStart, days);
+    }
+
+    /** Groups entries into the seven days starting at {@code weekStart}, ordered by meal type within a day. */
+    private static List<MealPlanWeekView.Day> daysOf(LocalDate weekStart, List<MealPlanEntryView> entries) {
+        Map<LocalDate, List<MealPlanEntryView>> entriesByDate =
+                entries.stream().collect(Collectors.groupingBy(MealPlanEntryView::date));
+        List<MealPlanWeekView.Day> days = new ArrayList<>(DAYS_PER_WEEK);
+        for (int i = 0; i < DAYS_PER_WEEK; i++) {
+            LocalDate date = weekStart.plusDays(i);
+            List<MealPlanEntryView> dayEntries = entriesByDate.getOrDefault(date, List.of()).stream()
+                    .sorted(Comparator.comparing(MealPlanEntryView::mealType))
+                    .toList();
+            days.add(new MealPlanWeekView.Day(date, dayEntries));
+        }
+        return days;
+    }
+}
@@ -0,0 +1,379 @@
+package net.lwenstrom.cooklion.mealplan.shuffle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.common.exception.ConflictException;
+import net.lwenstrom.cooklion.common.model.TimeOrderedUuid;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanEntryView;
+import net.lwenstrom.cooklion.mealplan.dto.MealPlanHeader;
+import net.lwenstrom.cooklion.mealplan.dto.ShuffleRequest;
+import net.lwenstrom.cooklion.mealplan.dto.ShuffleResult;
+import net.lwenstrom.cooklion.mealplan.event.MealPlanChangedEvent;
+import net.lwenstrom.cooklion.mealplan.model.MealType;
+import net.lwenstrom.cooklion.mealplan.repository.MealPlanEntryRepository;
+import net.lwenstrom.cooklion.mealplan.service.MealPlanQueryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Shuffle mode: fills the empty slots of a meal plan with recipes from the user's pool. Several independent
+ * {@link ShufflePlanner} attempts run in parallel on a dedicated fork-join pool and the best plan wins. Attempts derive
+ * their seeds from the request seed in a fixed order, so the same seed and data give the same plan as long as the time
+ * budget suffices.
+ *
+ * <p>No connection is held while planning. The entries are written afterwards with a single multi-row INSERT, guarded
+ * by the plan version read before planning, so concurrent shuffles of the same plan cannot both fill it.
+ */
+@Slf4j
+@Service
+public class MealPlanShuffleService {
+
+    private static final int DEFAULT_NO_REPEAT_DAYS = 7;
+    private static final int MAX_DAYS = 92;
+    private static final long RESULT_GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final String POOL_SQL =
+            """
+            SELECT r.id, r.title, r.slug, r.prep_time_minutes, r.cook_time_minutes,
+                   array_remove(array_agg(rt.tag_id), NULL) AS tag_ids
+            FROM recipes r
+            LEFT JOIN recipe_tags rt ON rt.recipe_id = r.id
+            WHERE (r.author_id = ? OR (? AND r.visibility = 'PUBLIC')) AND COALESCE(r.servings, 0) >= ?
+            GROUP BY r.id
+            ORDER BY r.created_at DESC, r.id DESC
+            LIMIT ?
+            """;
+
+    private static final String CLAIM_PLAN_SQL =
+            "UPDATE meal_plans SET version = version + 1, updated_at = now() WHERE id = ? AND version = ?";
+
+    private static final String INSERT_ENTRIES_SQL =
+            """
+            INSERT INTO meal_plan_entries (
+                id, meal_plan_id, date, meal_type, recipe_id, version, created_at, updated_at)
+            SELECT e.id, ?, e.date, e.meal_type, e.recipe_id, 0, now(), now()
+            FROM unnest(?::uuid[], ?::date[], ?::text[], ?::uuid[]) AS e(id, date, meal_type, recipe_id)
+            """;
+
+    private final MealPlanQueryService mealPlanQueryService;
+    private final MealPlanEntryRepository mealPlanEntryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool planners;
+    private final int attempts;
+    private final Duration timeBudget;
+    private final int maxPoolSize;
+    private final Timer planTimer;
+
+    public MealPlanShuffleService(
+            MealPlanQueryService mealPlanQueryService,
+            MealPlanEntryRepository mealPlanEntryRepository,
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.meal-plans.shuffle.parallelism:0}") int parallelism,
+            @Value("${app.meal-plans.shuffle.attempts:8}") int attempts,
+            @Value("${app.meal-plans.shuffle.time-budget:PT2S}") Duration timeBudget,
+            @Value("${app.meal-plans.shuffle.max-pool-size:5000}") int maxPoolSize) {
+        this.mealPlanQueryService = mealPlanQueryService;
+        this.mealPlanEntryRepository = mealPlanEntryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Planning is pure CPU work; a pool of its own keeps it from starving the common pool
+        this.planners = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.attempts = attempts;
+        this.timeBudget = timeBudget;
+        this.maxPoolSize = maxPoolSize;
+        this.planTimer = Timer.builder("meal-plans.shuffle")
+                .description("Time taken to plan meals in shuffle mode, excluding database access")
+                .register(meterRegistry);
+    }
+
+    public ShuffleResult shuffle(UUID mealPlanId, UUID userId, ShuffleRequest request) {
+        MealPlanHeader plan = mealPlanQueryService.getOwnedHeader(mealPlanId, userId);
+        LocalDate from = request.from() != null ? request.from() : plan.startDate();
+        LocalDate to = request.to() != null ? request.to() : plan.endDate();
+        if (to.isBefore(from) || from.isBefore(plan.startDate()) || to.isAfter(plan.endDate())) {
+            throw new BadRequestException("The range must lie within the meal plan");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new BadRequestException("At most " + MAX_DAYS + " days can be shuffled at once");
+        }
+        Set<MealType> mealTypes = request.mealTypes() == null || request.mealTypes().isEmpty()
+                ? EnumSet.of(MealType.DINNER)
+                : EnumSet.copyOf(request.mealTypes());
+        int noRepeatDays = request.noRepeatDays() != null ? request.noRepeatDays() : DEFAULT_NO_REPEAT_DAYS;
+        long seed = request.seed() != null ? request.seed() : ThreadLocalRandom.current().nextLong();
+
+        // Entries just outside the range still count for repeats
+        LocalDate windowStart = from.minusDays(Math.max(0, noRepeatDays - 1));
+        LocalDate windowEnd = to.plusDays(Math.max(0, noRepeatDays - 1));
+        List<MealPlanEntryView> existing =
+                mealPlanEntryRepository.findViewsByMealPlanIdAndDateBetween(mealPlanId, windowStart, windowEnd);
+        Problem problem = new Problem(windowStart);
+        loadPool(userId, request).forEach(problem::addCandidate);
+        for (MealPlanEntryView entry : existing) {
+            problem.addExisting(entry);
+        }
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (MealType mealType : mealTypes) {
+                problem.addOpenSlot(date, mealType);
+            }
+        }
+
+        ShufflePlanner planner = problem.planner(
+                new ShuffleConstraints(noRepeatDays, request.maxMinutesPerDay(), request.maxTagShare()));
+        ShufflePlanner.Attempt best = planTimer.record(() -> plan(planner, seed));
+        return persist(plan, problem, best, seed);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        planners.shutdownNow();
+    }
+
+    private ShufflePlanner.Attempt plan(ShufflePlanner planner, long seed) {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Callable<ShufflePlanner.Attempt>> tasks = new ArrayList<>(attempts);
+        for (int i = 0; i < attempts; i++) {
+            long attemptSeed = seeds.nextLong();
+            tasks.add(() -> planner.attempt(attemptSeed, deadline));
+        }
+
+        List<Future<ShufflePlanner.Attempt>> futures;
+        try {
+            // Attempts stop on their own at the deadline; the timeout only guards against one that does not
+            futures = planners.invokeAll(tasks, timeBudget.toNanos() + RESULT_GRACE_NANOS, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while planning meals", e);
+        }
+
+        ShufflePlanner.Attempt best = null;
+        for (Future<ShufflePlanner.Attempt> future : futures) {
+            if (future.isCancelled()) {
+                continue;
+            }
+            ShufflePlanner.Attempt attempt;
+            try {
+                attempt = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while planning meals", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Meal planning failed", e.getCause());
+            }
+            // Strictly better only, so ties go to the earliest attempt and the result stays deterministic
+            if (best == null || attempt.score() < best.score()) {
+                best = attempt;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("No meal plan attempt finished within " + timeBudget);
+        }
+        return best;
+    }
+
+    private ShuffleResult persist(MealPlanHeader plan, Problem problem, ShufflePlanner.Attempt best, long seed) {
+        List<MealPlanEntryView> created = new ArrayList<>();
+        List<ShuffleResult.Slot> unfilled = new ArrayList<>();
+        for (int i = 0; i < problem.openSlots.size(); i++) {
+            ShuffleResult.Slot slot = problem.openSlots.get(i);
+            int candidateIndex = best.assignment()[problem.fixedSlotCount() + i];
+            if (candidateIndex == ShufflePlanner.UNASSIGNED) {
+                unfilled.add(slot);
+                continue;
+            }
+            ShuffleCandidate candidate = problem.candidates.get(candidateIndex);
+            created.add(new MealPlanEntryView(
+                    TimeOrderedUuid.next(),
+                    slot.date(),
+                    slot.mealType(),
+                    null,
+                    candidate.recipeId(),
+                    candidate.title(),
+                    candidate.slug(),
+                    candidate.prepTimeMinutes(),
+                    candidate.cookTimeMinutes()));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update(CLAIM_PLAN_SQL, plan.id(), plan.version()) == 0) {
+                throw new ConflictException("The meal plan was changed while shuffling, please try again");
+            }
+            eventPublisher.publishEvent(new MealPlanChangedEvent(plan.id(), plan.userId()));
+            if (!created.isEmpty()) {
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(INSERT_ENTRIES_SQL);
+                    statement.setObject(1, plan.id());
+                    statement.setArray(
+                            2, connection.createArrayOf("text", toStrings(created, MealPlanEntryView::id)));
+                    statement.setArray(
+                            3, connection.createArrayOf("text", toStrings(created, MealPlanEntryView::date)));
+                    statement.setArray(
+                            4, connection.createArrayOf("text", toStrings(created, MealPlanEntryView::mealType)));
+                    statement.setArray(
+                            5, connection.createArrayOf("text", toStrings(created, MealPlanEntryView::recipeId)));
+                    return statement;
+                });
+            }
+        });
+        log.debug(
+                "Shuffled {} entries into meal plan {} with seed {}, {} slots left open",
+                created.size(),
+                plan.id(),
+                seed,
+                unfilled.size());
+        return new ShuffleResult(plan.id(), seed, created, unfilled, best.complete());
+    }
+
+    private List<PoolRecipe> loadPool(UUID userId, ShuffleRequest request) {
+        int minServings = request.minServings() != null ? request.minServings() : Integer.MIN_VALUE;
+        return jdbcTemplate.query(
+                POOL_SQL,
+                MealPlanShuffleService::mapPoolRecipe,
+                userId,
+                request.includePublic(),
+                minServings,
+                maxPoolSize);
+    }
+
+    private static PoolRecipe mapPoolRecipe(ResultSet rs, int rowNum) throws SQLException {
+        Array tagIds = rs.getArray("tag_ids");
+        return new PoolRecipe(
+                rs.getObject("id", UUID.class),
+                rs.getString("title"),
+                rs.getString("slug"),
+                rs.getObject("prep_time_minutes", Integer.class),
+                rs.getObject("cook_time_minutes", Integer.class),
+                tagIds != null ? (UUID[]) tagIds.getArray() : new UUID[0]);
+    }
+
+    private static String[] toStrings(List<MealPlanEntryView> entries, Function<MealPlanEntryView, ?> field) {
+        return entries.stream().map(field).map(Object::toString).toArray(String[]::new);
+    }
+
+    private record PoolRecipe(
+            UUID id, String title, String slug, Integer prepTimeMinutes, Integer cookTimeMinutes, UUID[] tagIds) {}
+
+    /** Translates recipes, existing entries and open slots into the index-based form the planner works on. */
+    private static final class Problem {
+
+        private final LocalDate firstDay;
+        private final List<ShuffleCandidate> candidates = new ArrayList<>();
+        private final Map<UUID, Integer> candidateIndexes = new HashMap<>();
+        private final Map<UUID, Integer> tagOrdinals = new HashMap<>();
+        private final List<Integer> fixedDays = new ArrayList<>();
+        private final List<Integer> fixedCandidates = new ArrayList<>();
+        private final Set<ShuffleResult.Slot> occupied = new HashSet<>();
+        private final List<ShuffleResult.Slot> openSlots = new ArrayList<>();
+
+        Problem(LocalDate firstDay) {
+            this.firstDay = firstDay;
+        }
+
+        void addCandidate(PoolRecipe recipe) {
+            int[] tags = new int[recipe.tagIds().length];
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = tagOrdinals.computeIfAbsent(recipe.tagIds()[i], tagId -> tagOrdinals.size());
+            }
+            candidateIndexes.put(recipe.id(), candidates.size());
+            candidates.add(new ShuffleCandidate(
+                    recipe.id(),
+                    recipe.title(),
+                    recipe.slug(),
+                    recipe.prepTimeMinutes(),
+                    recipe.cookTimeMinutes(),
+                    tags,
+                    true));
+        }
+
+        /** Existing entries occupy their slot; those with a recipe also count for the constraints. */
+        void addExisting(MealPlanEntryView entry) {
+            occupied.add(new ShuffleResult.Slot(entry.date(), entry.mealType()));
+            if (entry.recipeId() == null) {
+                return;
+            }
+            Integer index = candidateIndexes.get(entry.recipeId());
+            if (index == null) {
+                index = candidates.size();
+                candidateIndexes.put(entry.recipeId(), index);
+                candidates.add(new ShuffleCandidate(
+                        entry.recipeId(),
+                        entry.recipeTitle(),
+                        entry.recipeSlug(),
+                        entry.prepTimeMinutes(),
+                        entry.cookTimeMinutes(),
+                        new int[0],
+                        false));
+            }
+            fixedDays.add(dayOf(entry.date()));
+            fixedCandidates.add(index);
+        }
+
+        void addOpenSlot(LocalDate date, MealType mealType) {
+            ShuffleResult.Slot slot = new ShuffleResult.Slot(date, mealType);
+            if (occupied.add(slot)) {
+                openSlots.add(slot);
+            }
+        }
+
+        /** Fixed slots come first in the planner's slot order, followed by the open slots. */
+        int fixedSlotCount() {
+            return fixedDays.size();
+        }
+
+        ShufflePlanner planner(ShuffleConstraints constraints) {
+            int fixedCount = fixedDays.size();
+            int[] slotDays = new int[fixedCount + openSlots.size()];
+            int[] fixed = new int[slotDays.length];
+            for (int i = 0; i < fixedCount; i++) {
+                slotDays[i] = fixedDays.get(i);
+                fixed[i] = fixedCandidates.get(i);
+            }
+            for (int i = 0; i < openSlots.size(); i++) {
+                slotDays[fixedCount + i] = dayOf(openSlots.get(i).date());
+                fixed[fixedCount + i] = ShufflePlanner.UNASSIGNED;
+            }
+            return new ShufflePlanner(candidates, tagOrdinals.size(), slotDays, fixed, constraints);
+        }
+
+        private int dayOf(LocalDate date) {
+            return (int) ChronoUnit.DAYS.between(firstDay, date);
+        }
+    }
+}
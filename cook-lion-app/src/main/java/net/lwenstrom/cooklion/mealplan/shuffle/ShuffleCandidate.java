@@ -0,0 +1,24 @@
+package net.lwenstrom.cooklion.mealplan.shuffle;
+
+import java.util.UUID;
+
+/**
+ * A recipe as the planner sees it.
+ *
+ * @param tags dense tag ordinals of this planning run
+ * @param selectable whether the planner may place it; recipes only known from existing entries still count for the
+ *     constraints but are never added
+ */
+record ShuffleCandidate(
+        UUID recipeId,
+        String title,
+        String slug,
+        Integer prepTimeMinutes,
+        Integer cookTimeMinutes,
+        int[] tags,
+        boolean selectable) {
+
+    int totalMinutes() {
+        return (prepTimeMinutes != null ? prepTimeMinutes : 0) + (cookTimeMinutes != null ? cookTimeMinutes : 0);
+    }
+}
@@ -0,0 +1,10 @@
+package net.lwenstrom.cooklion.mealplan.shuffle;
+
+/**
+ * Hard constraints of a planning run.
+ *
+ * @param noRepeatDays a recipe is not planned again within this many days; 0 allows repeats on the same day
+ * @param maxMinutesPerDay upper bound for prep and cook time of all meals of a day, {@code null} for none
+ * @param maxTagShare upper bound for the share of meals carrying the same tag, {@code null} for none
+ */
+record ShuffleConstraints(int noRepeatDays, Integer maxMinutesPerDay, Double maxTagShare) {}
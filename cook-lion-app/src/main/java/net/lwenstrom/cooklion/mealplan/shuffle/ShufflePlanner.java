@@ -0,0 +1,243 @@
+package net.lwenstrom.cooklion.mealplan.shuffle;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Assigns recipes to the open slots of a meal plan. Hard constraints are never violated: a recipe is not repeated
+ * within {@link ShuffleConstraints#noRepeatDays()}, the minutes per day stay within the limit and no tag is used more
+ * often than its share allows. Within those, the planner minimizes a score that penalizes unfilled slots most, then
+ * recipes used many times and tags concentrated on few recipes, which spreads meals over the whole pool.
+ *
+ * <p>Each {@link #attempt(long, long) attempt} is a randomized greedy construction followed by a fixed number of
+ * local improvement steps, fully determined by its seed. Attempts share nothing but the immutable problem, so they can
+ * run in parallel.
+ */
+final class ShufflePlanner {
+
+    static final int UNASSIGNED = -1;
+
+    private static final long UNFILLED_PENALTY = 1_000_000L;
+    private static final int USAGE_WEIGHT = 4;
+    private static final int SAMPLES_PER_SLOT = 16;
+    private static final int IMPROVEMENT_STEPS_PER_SLOT = 200;
+    private static final int DEADLINE_CHECK_INTERVAL = 128;
+
+    private final int[] minutes;
+    private final int[][] tags;
+    private final int[] selectable;
+    private final int tagCount;
+    private final int[] slotDays;
+    private final int[] fixed;
+    private final int[] openSlots;
+    private final int noRepeatDays;
+    private final int maxMinutesPerDay;
+    private final int maxTagUses;
+
+    /**
+     * @param slotDays day index of each slot, counted from the earliest day considered
+     * @param fixed per slot the candidate already planned there, or {@link #UNASSIGNED} for slots to fill
+     */
+    ShufflePlanner(
+            List<ShuffleCandidate> candidates,
+            int tagCount,
+            int[] slotDays,
+            int[] fixed,
+            ShuffleConstraints constraints) {
+        this.tagCount = tagCount;
+        this.slotDays = slotDays;
+        this.fixed = fixed;
+        this.minutes = candidates.stream().mapToInt(ShuffleCandidate::totalMinutes).toArray();
+        this.tags = candidates.stream().map(ShuffleCandidate::tags).toArray(int[][]::new);
+        int[] selectableIndexes = new int[candidates.size()];
+        int selectableCount = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).selectable()) {
+                selectableIndexes[selectableCount++] = i;
+            }
+        }
+        this.selectable = Arrays.copyOf(selectableIndexes, selectableCount);
+        int[] open = new int[fixed.length];
+        int openCount = 0;
+        for (int slot = 0; slot < fixed.length; slot++) {
+            if (fixed[slot] == UNASSIGNED) {
+                open[openCount++] = slot;
+            }
+        }
+        this.openSlots = Arrays.copyOf(open, openCount);
+        this.noRepeatDays = constraints.noRepeatDays();
+        this.maxMinutesPerDay =
+                constraints.maxMinutesPerDay() != null ? constraints.maxMinutesPerDay() : Integer.MAX_VALUE;
+        this.maxTagUses = constraints.maxTagShare() != null
+                ? Math.max(1, (int) Math.ceil(constraints.maxTagShare() * slotDays.length))
+                : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Runs one attempt. Stops improving early when the deadline passes; the result is still a valid plan.
+     *
+     * @param deadline in {@link System#nanoTime()} terms
+     */
+    Attempt attempt(long seed, long deadline) {
+        SplittableRandom random = new SplittableRandom(seed);
+        State state = new State();
+        if (selectable.length == 0 || openSlots.length == 0) {
+            return state.toAttempt(true);
+        }
+
+        int[] order = openSlots.clone();
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        for (int slot : order) {
+            fillGreedily(state, slot, random);
+        }
+
+        int steps = openSlots.length * IMPROVEMENT_STEPS_PER_SLOT;
+        for (int step = 0; step < steps; step++) {
+            if (step % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                return state.toAttempt(false);
+            }
+            int slot = openSlots[random.nextInt(openSlots.length)];
+            improve(state, slot, selectable[random.nextInt(selectable.length)]);
+        }
+        return state.toAttempt(true);
+    }
+
+    /** Takes the best of a few sampled candidates; falls back to the first feasible one so slots rarely stay empty. */
+    private void fillGreedily(State state, int slot, SplittableRandom random) {
+        int best = UNASSIGNED;
+        long bestScore = Long.MAX_VALUE;
+        for (int sample = 0; sample < SAMPLES_PER_SLOT; sample++) {
+            int candidate = selectable[random.nextInt(selectable.length)];
+            if (state.isFeasible(slot, candidate)) {
+                state.assign(slot, candidate);
+                if (state.score < bestScore) {
+                    best = candidate;
+                    bestScore = state.score;
+                }
+                state.unassign(slot);
+            }
+        }
+        if (best == UNASSIGNED) {
+            int offset = random.nextInt(selectable.length);
+            for (int i = 0; i < selectable.length && best == UNASSIGNED; i++) {
+                int candidate = selectable[(offset + i) % selectable.length];
+                if (state.isFeasible(slot, candidate)) {
+                    best = candidate;
+                }
+            }
+        }
+        if (best != UNASSIGNED) {
+            state.assign(slot, best);
+        }
+    }
+
+    /** Moves the candidate into the slot if that keeps the plan feasible and does not make it worse. */
+    private void improve(State state, int slot, int candidate) {
+        int current = state.assignment[slot];
+        if (current == candidate) {
+            return;
+        }
+        long before = state.score;
+        if (current != UNASSIGNED) {
+            state.unassign(slot);
+        }
+        if (state.isFeasible(slot, candidate)) {
+            state.assign(slot, candidate);
+            // Accepting equal scores lets the search drift across plateaus
+            if (state.score <= before) {
+                return;
+            }
+            state.unassign(slot);
+        }
+        if (current != UNASSIGNED) {
+            state.assign(slot, current);
+        }
+    }
+
+    /**
+     * @param assignment candidate per slot, {@link #UNASSIGNED} for slots left empty
+     * @param complete whether the attempt ran all its steps before the deadline
+     */
+    record Attempt(int[] assignment, long score, boolean complete) {}
+
+    /** Mutable plan of one attempt with the aggregates the constraints and the score need. */
+    private final class State {
+
+        private final int[] assignment = new int[slotDays.length];
+        private final int[] dayMinutes;
+        private final int[] tagUses = new int[tagCount];
+        private final int[] usage = new int[minutes.length];
+        private long score = UNFILLED_PENALTY * slotDays.length;
+
+        State() {
+            int days = 0;
+            for (int day : slotDays) {
+                days = Math.max(days, day + 1);
+            }
+            dayMinutes = new int[days];
+            Arrays.fill(assignment, UNASSIGNED);
+            for (int slot = 0; slot < fixed.length; slot++) {
+                if (fixed[slot] != UNASSIGNED) {
+                    assign(slot, fixed[slot]);
+                }
+            }
+        }
+
+        boolean isFeasible(int slot, int candidate) {
+            int day = slotDays[slot];
+            if (dayMinutes[day] + minutes[candidate] > maxMinutesPerDay) {
+                return false;
+            }
+            for (int tag : tags[candidate]) {
+                if (tagUses[tag] >= maxTagUses) {
+                    return false;
+                }
+            }
+            if (noRepeatDays > 0 && usage[candidate] > 0) {
+                for (int other = 0; other < assignment.length; other++) {
+                    if (assignment[other] == candidate && Math.abs(slotDays[other] - day) < noRepeatDays) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        // The score is kept current incrementally: (n + 1)^2 - n^2 = 2n + 1
+
+        void assign(int slot, int candidate) {
+            assignment[slot] = candidate;
+            dayMinutes[slotDays[slot]] += minutes[candidate];
+            for (int tag : tags[candidate]) {
+                score += 2L * tagUses[tag] + 1;
+                tagUses[tag]++;
+            }
+            score += USAGE_WEIGHT * (2L * usage[candidate] + 1);
+            usage[candidate]++;
+            score -= UNFILLED_PENALTY;
+        }
+
+        void unassign(int slot) {
+            int candidate = assignment[slot];
+            assignment[slot] = UNASSIGNED;
+            dayMinutes[slotDays[slot]] -= minutes[candidate];
+            for (int tag : tags[candidate]) {
+                tagUses[tag]--;
+                score -= 2L * tagUses[tag] + 1;
+            }
+            usage[candidate]--;
+            score -= USAGE_WEIGHT * (2L * usage[candidate] + 1);
+            score += UNFILLED_PENALTY;
+        }
+
+        Attempt toAttempt(boolean complete) {
+            return new Attempt(assignment.clone(), score, complete);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package net.lwenstrom.cooklion.recipe.controller;
+
+import jakarta.validation.Valid;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.common.persistence.StatementBudget;
+import net.lwenstrom.cooklion.recipe.dto.RecipeDetail;
+import net.lwenstrom.cooklion.recipe.dto.RecipeRef;
+import net.lwenstrom.cooklion.recipe.dto.RecipeRequest;
+import net.lwenstrom.cooklion.recipe.dto.RecipeVersionStamp;
+import net.lwenstrom.cooklion.recipe.service.RecipeReadService;
+import net.lwenstrom.cooklion.recipe.service.RecipeService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/recipes")
+@RequiredArgsConstructor
+public class RecipeController {
+
+    private final RecipeService recipeService;
+    private final RecipeReadService recipeReadService;
+
+    @GetMapping("/{id}")
+    @StatementBudget(3)
+    public ResponseEntity<RecipeDetail> get(@PathVariable UUID id, @CurrentUser UserIdentity user, WebRequest request) {
+        return read(id, user.id(), CacheControl.noCache().cachePrivate(), request);
+    }
+
+    /** Public recipes only; shared caches may store the response but have to revalidate it. */
+    @GetMapping("/public/{id}")
+    @StatementBudget(2)
+    public ResponseEntity<RecipeDetail> getPublic(@PathVariable UUID id, WebRequest request) {
+        return read(id, null, CacheControl.noCache().cachePublic(), request);
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public RecipeRef create(@CurrentUser UserIdentity user, @Valid @RequestBody RecipeRequest request) {
+        return RecipeRef.of(recipeService.create(user, request));
+    }
+
+    @PutMapping("/{id}")
+    public RecipeRef update(
+            @PathVariable UUID id, @CurrentUser UserIdentity user, @Valid @RequestBody RecipeRequest request) {
+        return RecipeRef.of(recipeService.update(id, user, request));
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable UUID id, @CurrentUser UserIdentity user) {
+        recipeService.delete(id, user);
+    }
+
+    /** Answers {@code If-None-Match} revalidations after the version probe, before the recipe itself is loaded. */
+    private ResponseEntity<RecipeDetail> read(UUID id, UUID viewerId, CacheControl cacheControl, WebRequest request) {
+        RecipeVersionStamp stamp = recipeReadService.findVisibleVersion(id, viewerId);
+        if (request.checkNotModified(stamp.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(stamp.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        RecipeDetail detail = recipeReadService.getDetail(stamp, viewerId);
+        return ResponseEntity.ok()
+                .eTag(detail.toVersionStamp().etag())
+                .cacheControl(cacheControl)
+                .body(detail);
+    }
+}
@@ -0,0 +1,59 @@
+package net.lwenstrom.cooklion.recipe.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.recipe.service.RecipeExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * NDJSON downloads of recipes. The export writes to the servlet output stream on the request thread, so there is no
+ * async timeout and the security context stays in place for the whole transfer.
+ */
+@RestController
+@RequiredArgsConstructor
+public class RecipeExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final RecipeExportService recipeExportService;
+
+    @GetMapping("/api/recipes/export")
+    public void exportMine(
+            @CurrentUser UserIdentity user,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response)
+            throws IOException {
+        try (OutputStream output = prepare(response, "recipes-" + user.username(), gzip)) {
+            recipeExportService.exportAuthor(user.id(), output);
+        }
+    }
+
+    @GetMapping("/api/admin/recipes/export")
+    public void exportAll(@RequestParam(defaultValue = "false") boolean gzip, HttpServletResponse response)
+            throws IOException {
+        try (OutputStream output = prepare(response, "recipes", gzip)) {
+            recipeExportService.exportAll(output);
+        }
+    }
+
+    private static OutputStream prepare(HttpServletResponse response, String baseName, boolean gzip)
+            throws IOException {
+        String filename = baseName + (gzip ? ".ndjson.gz" : ".ndjson");
+        response.setContentType(gzip ? "application/gzip" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+        OutputStream output = response.getOutputStream();
+        return gzip ? new GZIPOutputStream(output, GZIP_BUFFER_SIZE) : output;
+    }
+}
@@ -0,0 +1,90 @@
+package net.lwenstrom.cooklion.recipe.controller;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.common.pagination.CursorPage;
+import net.lwenstrom.cooklion.common.persistence.StatementBudget;
+import net.lwenstrom.cooklion.recipe.dto.RecipeSummary;
+import net.lwenstrom.cooklion.recipe.dto.SimilarRecipe;
+import net.lwenstrom.cooklion.recipe.dto.TagFilterPage;
+import net.lwenstrom.cooklion.recipe.search.TagFilter;
+import net.lwenstrom.cooklion.recipe.service.RecipeQueryService;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/recipes")
+@RequiredArgsConstructor
+@Validated
+public class RecipeFeedController {
+
+    private final RecipeQueryService recipeQueryService;
+
+    @GetMapping("/public/feed")
+    @StatementBudget(1)
+    public CursorPage<RecipeSummary> publicFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return recipeQueryService.publicFeed(cursor, limit);
+    }
+
+    @GetMapping("/mine")
+    @StatementBudget(2)
+    public CursorPage<RecipeSummary> myRecipes(
+            @CurrentUser UserIdentity user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return recipeQueryService.recipesOf(user.id(), cursor, limit);
+    }
+
+    /** Public recipes carrying all of {@code all}, any of {@code any} and none of {@code none}, with tag counts. */
+    @GetMapping("/public/by-tags")
+    @StatementBudget(1)
+    public TagFilterPage publicByTags(
+            @RequestParam(required = false) Set<UUID> all,
+            @RequestParam(required = false) Set<UUID> any,
+            @RequestParam(required = false) Set<UUID> none,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return recipeQueryService.byTags(new TagFilter(all, any, none), null, limit);
+    }
+
+    /** Like the public variant, but also includes the caller's own recipes. */
+    @GetMapping("/by-tags")
+    @StatementBudget(2)
+    public TagFilterPage byTags(
+            @CurrentUser UserIdentity user,
+            @RequestParam(required = false) Set<UUID> all,
+            @RequestParam(required = false) Set<UUID> any,
+            @RequestParam(required = false) Set<UUID> none,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return recipeQueryService.byTags(new TagFilter(all, any, none), user.id(), limit);
+    }
+
+    /** Public recipes similar to a public one. */
+    @GetMapping("/public/{id}/similar")
+    @StatementBudget(2)
+    public List<SimilarRecipe> publicSimilar(
+            @PathVariable UUID id, @RequestParam(defaultValue = "10") @Min(1) @Max(50) int limit) {
+        return recipeQueryService.similarTo(id, null, limit);
+    }
+
+    /** Public recipes and the caller's own ones similar to a recipe the caller may read. */
+    @GetMapping("/{id}/similar")
+    @StatementBudget(3)
+    public List<SimilarRecipe> similar(
+            @CurrentUser UserIdentity user,
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int limit) {
+        return recipeQueryService.similarTo(id, user.id(), limit);
+    }
+}
@@ -0,0 +1,38 @@
+package net.lwenstrom.cooklion.recipe.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.recipe.dto.ImportReport;
+import net.lwenstrom.cooklion.recipe.service.RecipeImportService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Bulk import of recipes owned by the calling admin. The request body is streamed into the importer, it is never
+ * buffered as a whole.
+ */
+@RestController
+@RequestMapping("/api/admin/recipes")
+@RequiredArgsConstructor
+public class RecipeImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final RecipeImportService recipeImportService;
+
+    @PostMapping(
+            path = "/import",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV})
+    public ImportReport importRecipes(@CurrentUser UserIdentity user, HttpServletRequest request) throws IOException {
+        RecipeImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                        .isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? RecipeImportService.Format.CSV
+                : RecipeImportService.Format.JSON;
+        return recipeImportService.importRecipes(request.getInputStream(), format, user);
+    }
+}
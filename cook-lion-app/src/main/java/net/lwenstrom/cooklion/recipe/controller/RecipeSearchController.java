@@ -0,0 +1,43 @@
+package net.lwenstrom.cooklion.recipe.controller;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.recipe.search.RecipeSearchResult;
+import net.lwenstrom.cooklion.recipe.search.RecipeSearchService;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/recipes")
+@RequiredArgsConstructor
+@Validated
+public class RecipeSearchController {
+
+    private final RecipeSearchService recipeSearchService;
+
+    /** Searches public recipes and the caller's own ones. */
+    @GetMapping("/search")
+    public List<RecipeSearchResult> search(
+            @CurrentUser UserIdentity user,
+            @RequestParam("q") @NotBlank @Size(max = 200) String query,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return recipeSearchService.search(query, user.id(), limit);
+    }
+
+    /** Searches public recipes only; available without authentication. */
+    @GetMapping("/public/search")
+    public List<RecipeSearchResult> searchPublic(
+            @RequestParam("q") @NotBlank @Size(max = 200) String query,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return recipeSearchService.search(query, null, limit);
+    }
+}
@@ -0,0 +1,26 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+
+/**
+ * One line of a recipe export. The fields shared with {@link ImportedRecipe} use the same names, so an export can be
+ * imported again; the remaining fields are ignored on import.
+ */
+public record ExportedRecipe(
+        UUID id,
+        String title,
+        String slug,
+        String summary,
+        Integer prepTimeMinutes,
+        Integer cookTimeMinutes,
+        Integer servings,
+        RecipeVisibility visibility,
+        String instructionsMarkdown,
+        List<String> tags,
+        String authorUsername,
+        UUID coverImageId,
+        Instant createdAt,
+        Instant updatedAt) {}
@@ -0,0 +1,15 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Chunks are committed independently, so an import stopped by unreadable input keeps the
+ * rows written before.
+ *
+ * @param duplicates rows skipped because a recipe with the same slug exists or appeared earlier in the input
+ * @param rejected rows failing validation
+ * @param errors the first problems encountered, with row numbers
+ * @param completed whether the whole input was read
+ */
+public record ImportReport(
+        int imported, int duplicates, int rejected, List<String> errors, boolean completed, long durationMillis) {}
@@ -0,0 +1,19 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import java.util.List;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+
+/**
+ * One row of a bulk import, read from JSON (an array or newline-delimited objects) or CSV with a header row. In CSV,
+ * {@code tags} is a single column with names separated by {@code |}.
+ */
+public record ImportedRecipe(
+        String title,
+        String slug,
+        String summary,
+        Integer prepTimeMinutes,
+        Integer cookTimeMinutes,
+        Integer servings,
+        RecipeVisibility visibility,
+        String instructionsMarkdown,
+        List<String> tags) {}
@@ -0,0 +1,59 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.model.Recipe;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+
+/** Full view of a single recipe. Immutable, so one instance can be served from the read cache to every request. */
+public record RecipeDetail(
+        UUID id,
+        long version,
+        String slug,
+        String title,
+        String summary,
+        Integer prepTimeMinutes,
+        Integer cookTimeMinutes,
+        Integer servings,
+        RecipeVisibility visibility,
+        String instructionsMarkdown,
+        String instructionsHtml,
+        Author author,
+        List<TagRef> tags,
+        UUID coverImageId,
+        Instant createdAt,
+        Instant updatedAt) {
+
+    public record Author(UUID id, String username) {}
+
+    public record TagRef(UUID id, String name, String slug) {}
+
+    public static RecipeDetail of(Recipe recipe, String instructionsHtml) {
+        return new RecipeDetail(
+                recipe.getId(),
+                recipe.getVersion(),
+                recipe.getSlug(),
+                recipe.getTitle(),
+                recipe.getSummary(),
+                recipe.getPrepTimeMinutes(),
+                recipe.getCookTimeMinutes(),
+                recipe.getServings(),
+                recipe.getVisibility(),
+                recipe.getInstructionsMarkdown(),
+                instructionsHtml,
+                new Author(recipe.getAuthor().getId(), recipe.getAuthor().getUsername()),
+                recipe.getTags().stream()
+                        .map(tag -> new TagRef(tag.getId(), tag.getName(), tag.getSlug()))
+                        .sorted(Comparator.comparing(TagRef::name))
+                        .toList(),
+                recipe.getCoverImage() != null ? recipe.getCoverImage().getId() : null,
+                recipe.getCreatedAt(),
+                recipe.getUpdatedAt());
+    }
+
+    public RecipeVersionStamp toVersionStamp() {
+        return new RecipeVersionStamp(id, version, visibility, author.id());
+    }
+}
@@ -0,0 +1,11 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.model.Recipe;
+
+public record RecipeRef(UUID id, String slug, long version) {
+
+    public static RecipeRef of(Recipe recipe) {
+        return new RecipeRef(recipe.getId(), recipe.getSlug(), recipe.getVersion());
+    }
+}
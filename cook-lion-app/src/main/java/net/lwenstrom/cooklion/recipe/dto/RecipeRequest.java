@@ -0,0 +1,19 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import java.util.Set;
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+
+public record RecipeRequest(
+        @NotBlank @Size(max = 140) String title,
+        @Size(max = 160) String slug,
+        @Size(max = 4096) String summary,
+        @PositiveOrZero Integer prepTimeMinutes,
+        @PositiveOrZero Integer cookTimeMinutes,
+        @PositiveOrZero Integer servings,
+        RecipeVisibility visibility,
+        @Size(max = 20000) String instructionsMarkdown,
+        Set<UUID> tagIds) {}
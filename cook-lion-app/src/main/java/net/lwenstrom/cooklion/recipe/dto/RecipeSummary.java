@@ -0,0 +1,24 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+import net.lwenstrom.cooklion.common.pagination.KeysetCursor;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+
+/** List view of a recipe, selected directly by JPQL constructor expressions without loading entities. */
+public record RecipeSummary(
+        UUID id,
+        String slug,
+        String title,
+        String summary,
+        Integer prepTimeMinutes,
+        Integer cookTimeMinutes,
+        Integer servings,
+        RecipeVisibility visibility,
+        String authorUsername,
+        Instant createdAt) {
+
+    public KeysetCursor cursor() {
+        return new KeysetCursor(createdAt, id);
+    }
+}
@@ -0,0 +1,18 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+
+/** The columns needed to authorize a read and revalidate a cached copy, fetched without touching associations. */
+public record RecipeVersionStamp(UUID id, long version, RecipeVisibility visibility, UUID authorId) {
+
+    /** Public recipes are visible to everyone; private and shared ones only to their author. */
+    public boolean isVisibleTo(UUID viewerId) {
+        return visibility == RecipeVisibility.PUBLIC || (viewerId != null && viewerId.equals(authorId));
+    }
+
+    /** Strong validator for HTTP caching; every committed change increments the version. */
+    public String etag() {
+        return "\"" + version + "\"";
+    }
+}
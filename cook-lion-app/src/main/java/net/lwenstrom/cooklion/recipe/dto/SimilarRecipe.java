@@ -0,0 +1,4 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+/** @param similarity cosine similarity to the recipe asked about, 1 for identical content */
+public record SimilarRecipe(RecipeSummary recipe, float similarity) {}
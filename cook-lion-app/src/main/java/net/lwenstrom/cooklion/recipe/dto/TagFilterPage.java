@@ -0,0 +1,13 @@
+package net.lwenstrom.cooklion.recipe.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Recipes matching a tag filter, newest first.
+ *
+ * @param total number of matching recipes, of which {@code recipes} holds the first page
+ * @param tagCounts number of matching recipes per tag, for narrowing the filter further
+ */
+public record TagFilterPage(int total, List<RecipeSummary> recipes, Map<UUID, Integer> tagCounts) {}
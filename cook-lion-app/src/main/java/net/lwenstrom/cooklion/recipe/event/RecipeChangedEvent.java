@@ -0,0 +1,25 @@
+package net.lwenstrom.cooklion.recipe.event;
+
+import java.util.UUID;
+
+/**
+ * Published whenever a recipe is created, updated or deleted. Derived in-memory structures (search index, caches)
+ * listen for it after commit to stay in sync with the database.
+ *
+ * @param snapshot the committed state, {@code null} for deletions
+ */
+public record RecipeChangedEvent(UUID recipeId, Type type, RecipeSnapshot snapshot) {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    public static RecipeChangedEvent saved(RecipeSnapshot snapshot) {
+        return new RecipeChangedEvent(snapshot.id(), Type.SAVED, snapshot);
+    }
+
+    public static RecipeChangedEvent deleted(UUID recipeId) {
+        return new RecipeChangedEvent(recipeId, Type.DELETED, null);
+    }
+}
@@ -0,0 +1,52 @@
+package net.lwenstrom.cooklion.recipe.event;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import net.lwenstrom.cooklion.recipe.model.Recipe;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import net.lwenstrom.cooklion.recipe.model.Tag;
+
+/**
+ * Detached, immutable copy of a recipe as it was committed. Listeners of {@link RecipeChangedEvent} run after the
+ * transaction has ended and must not touch the entity, so everything they need travels in the snapshot.
+ *
+ * @param tags tag names keyed by tag id
+ */
+public record RecipeSnapshot(
+        UUID id,
+        UUID authorId,
+        RecipeVisibility visibility,
+        String slug,
+        String title,
+        String summary,
+        String instructionsMarkdown,
+        Integer prepTimeMinutes,
+        Integer cookTimeMinutes,
+        Integer servings,
+        Map<UUID, String> tags,
+        long version,
+        Instant createdAt) {
+
+    public RecipeSnapshot {
+        tags = Map.copyOf(tags);
+    }
+
+    public static RecipeSnapshot of(Recipe recipe) {
+        return new RecipeSnapshot(
+                recipe.getId(),
+                recipe.getAuthor().getId(),
+                recipe.getVisibility(),
+                recipe.getSlug(),
+                recipe.getTitle(),
+                recipe.getSummary(),
+                recipe.getInstructionsMarkdown(),
+                recipe.getPrepTimeMinutes(),
+                recipe.getCookTimeMinutes(),
+                recipe.getServings(),
+                recipe.getTags().stream().collect(Collectors.toMap(Tag::getId, Tag::getName)),
+                recipe.getVersion(),
+                recipe.getCreatedAt());
+    }
+}
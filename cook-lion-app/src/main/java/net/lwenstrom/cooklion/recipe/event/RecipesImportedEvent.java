@@ -0,0 +1,7 @@
+package net.lwenstrom.cooklion.recipe.event;
+
+/**
+ * Published after a bulk import has written recipes directly with JDBC. Imports bypass {@link RecipeChangedEvent}s;
+ * in-memory structures derived from recipes rebuild themselves instead.
+ */
+public record RecipesImportedEvent(int importedCount) {}
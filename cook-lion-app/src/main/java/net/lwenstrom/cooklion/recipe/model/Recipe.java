@@ -10,6 +10,8 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
@@ -27,15 +29,26 @@ import net.lwenstrom.cooklion.files.model.FileAsset;
 @Setter
 @ToString(exclude = {"author", "tags"})
 @Entity
+@NamedEntityGraph(
+        name = Recipe.DETAIL_GRAPH,
+        attributeNodes = {
+            @NamedAttributeNode("author"),
+            @NamedAttributeNode("tags"),
+            @NamedAttributeNode("coverImage")
+        })
 @Table(
         name = "recipes",
         indexes = {
-            @Index(name = "idx_recipes_author", columnList = "author_id"),
+            // Composite indexes match the keyset order of the listings, so a page is a single index range scan
+            @Index(name = "idx_recipes_author_created", columnList = "author_id, created_at, id"),
             @Index(name = "idx_recipes_slug", columnList = "slug", unique = true),
-            @Index(name = "idx_recipes_visibility", columnList = "visibility")
+            @Index(name = "idx_recipes_visibility_created", columnList = "visibility, created_at, id")
         })
 public class Recipe extends AbstractAuditableEntity {
 
+    /** Everything the recipe detail view renders, fetched in one query. */
+    public static final String DETAIL_GRAPH = "Recipe.detail";
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "author_id", nullable = false)
     private UserAccount author;
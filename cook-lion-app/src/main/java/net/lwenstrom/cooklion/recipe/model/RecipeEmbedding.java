@@ -0,0 +1,53 @@
+package net.lwenstrom.cooklion.recipe.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.lwenstrom.cooklion.common.model.AbstractAuditableEntity;
+
+/**
+ * Embedding vector of a recipe, stored as little-endian {@code float32} values: four bytes per dimension instead of a
+ * numeric array. Rows are written and read with plain JDBC by the similarity index; the mapping defines the schema.
+ *
+ * <p>{@code recipe_id} deliberately has no foreign key, so recipe deletes do not have to wait for the asynchronous
+ * embedding side. Rows of deleted recipes are removed by the index and swept on startup.
+ */
+@Getter
+@Setter
+@ToString(exclude = "vector")
+@Entity
+@Table(
+        name = "recipe_embeddings",
+        indexes = {@Index(name = "idx_recipe_embeddings_recipe", columnList = "recipe_id", unique = true)})
+public class RecipeEmbedding extends AbstractAuditableEntity {
+
+    @NotNull
+    @Column(name = "recipe_id", nullable = false, unique = true, columnDefinition = "uuid")
+    private UUID recipeId;
+
+    /** Version of the recipe the vector was computed from. */
+    @Column(name = "recipe_version", nullable = false)
+    private long recipeVersion;
+
+    @NotNull
+    @Column(name = "model", nullable = false, length = 128)
+    private String model;
+
+    /** SHA-256 of model id and embedded text; unchanged text is not embedded again. */
+    @NotNull
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "dimensions", nullable = false)
+    private int dimensions;
+
+    @NotNull
+    @Column(name = "vector", nullable = false, columnDefinition = "bytea")
+    private byte[] vector;
+}
@@ -0,0 +1,71 @@
+package net.lwenstrom.cooklion.recipe.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.dto.RecipeSummary;
+import net.lwenstrom.cooklion.recipe.dto.RecipeVersionStamp;
+import net.lwenstrom.cooklion.recipe.model.Recipe;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RecipeRepository extends JpaRepository<Recipe, UUID> {
+
+    String SUMMARY_SELECT =
+            """
+            SELECT new net.lwenstrom.cooklion.recipe.dto.RecipeSummary(
+                r.id, r.slug, r.title, r.summary, r.prepTimeMinutes, r.cookTimeMinutes, r.servings, r.visibility,
+                a.username, r.createdAt)
+            FROM Recipe r JOIN r.author a
+            """;
+
+    boolean existsBySlug(String slug);
+
+    @Query("SELECT new net.lwenstrom.cooklion.recipe.dto.RecipeVersionStamp(r.id, r.version, r.visibility, r.author.id)"
+            + " FROM Recipe r WHERE r.id = :id")
+    Optional<RecipeVersionStamp> findVersionStampById(@Param("id") UUID id);
+
+    @EntityGraph(Recipe.DETAIL_GRAPH)
+    Optional<Recipe> findDetailedById(UUID id);
+
+    @Query(SUMMARY_SELECT + "WHERE r.id IN :ids")
+    List<RecipeSummary> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Keyset pages seek on the (created_at, id) row value, which the composite indexes serve directly
+
+    @Query(SUMMARY_SELECT + "WHERE r.visibility = :visibility ORDER BY r.createdAt DESC, r.id DESC")
+    List<RecipeSummary> findSummariesByVisibility(@Param("visibility") RecipeVisibility visibility, Limit limit);
+
+    @Query(SUMMARY_SELECT
+            + """
+            WHERE r.visibility = :visibility AND (r.createdAt, r.id) < (:createdAt, :id)
+            ORDER BY r.createdAt DESC, r.id DESC
+            """)
+    List<RecipeSummary> findSummariesByVisibilityBefore(
+            @Param("visibility") RecipeVisibility visibility,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE a.id = :authorId ORDER BY r.createdAt DESC, r.id DESC")
+    List<RecipeSummary> findSummariesByAuthor(@Param("authorId") UUID authorId, Limit limit);
+
+    @Query(SUMMARY_SELECT
+            + """
+            WHERE a.id = :authorId AND (r.createdAt, r.id) < (:createdAt, :id)
+            ORDER BY r.createdAt DESC, r.id DESC
+            """)
+    List<RecipeSummary> findSummariesByAuthorBefore(
+            @Param("authorId") UUID authorId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Limit limit);
+}
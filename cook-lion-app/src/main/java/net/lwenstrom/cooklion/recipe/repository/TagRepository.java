@@ -0,0 +1,13 @@
+package net.lwenstrom.cooklion.recipe.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.model.Tag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TagRepository extends JpaRepository<Tag, UUID> {
+
+    Optional<Tag> findBySlug(String slug);
+}
@@ -0,0 +1,9 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.Map;
+
+/**
+ * A recipe with its boosted term frequencies. Analysis is the expensive part of indexing and happens outside the
+ * index lock.
+ */
+record AnalyzedRecipe(IndexedRecipe recipe, Map<String, Float> termFrequencies, float length) {}
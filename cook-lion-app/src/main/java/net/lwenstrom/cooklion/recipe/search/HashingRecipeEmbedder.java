@@ -0,0 +1,58 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in for a language model: feature hashing of words and word pairs into a fixed number of dimensions.
+ * Deterministic and free of I/O, which makes it suitable for tests and for running without Ollama. Recipes sharing
+ * vocabulary end up close to each other; synonyms do not.
+ */
+@Component
+@ConditionalOnProperty(name = "app.similarity.embedder", havingValue = "hashing")
+public class HashingRecipeEmbedder implements RecipeEmbedder {
+
+    private static final float BIGRAM_WEIGHT = 0.5f;
+
+    private final int dimensions;
+
+    public HashingRecipeEmbedder(@Value("${app.similarity.hashing.dimensions:256}") int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public String modelId() {
+        return "hashing-" + dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        String previous = null;
+        for (String token : TextAnalyzer.tokenize(text)) {
+            if (Language.ENGLISH.isStopword(token) || Language.GERMAN.isStopword(token)) {
+                previous = null;
+                continue;
+            }
+            add(vector, token, 1f);
+            if (previous != null) {
+                add(vector, previous + ' ' + token, BIGRAM_WEIGHT);
+            }
+            previous = token;
+        }
+        return vector;
+    }
+
+    /** Signed hashing: a second hash bit picks the sign, so collisions cancel out instead of piling up. */
+    private void add(float[] vector, String feature, float weight) {
+        // String.hashCode is specified, so the same text yields the same vector on every JVM
+        int hash = mix(feature.hashCode());
+        vector[Math.floorMod(hash, dimensions)] += (hash & 0x8000_0000) == 0 ? weight : -weight;
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E37_79B9;
+        return hash ^ (hash >>> 16);
+    }
+}
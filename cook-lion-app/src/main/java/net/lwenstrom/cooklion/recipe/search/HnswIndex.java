@@ -0,0 +1,422 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest-neighbour index over recipe embeddings, a hierarchical navigable small world graph (HNSW).
+ * Vectors are normalized on insert, so cosine similarity is a plain dot product. All vectors live in one flat
+ * {@code float[]}, one row per node, which keeps distance computations cache friendly.
+ *
+ * <p>Updates and removals leave the old node in the graph as a tombstone: it still routes searches but is never
+ * returned. Once tombstones dominate, the owner replaces the index with {@link #compacted()}.
+ *
+ * <p>Thread-safe; searches run concurrently, inserts are serialized.
+ */
+final class HnswIndex {
+
+    private static final int MAX_LINKS = 16;
+    private static final int MAX_LINKS_BOTTOM = 2 * MAX_LINKS;
+    private static final double LEVEL_MULTIPLIER = 1 / Math.log(MAX_LINKS);
+    private static final int MAX_LEVEL = 12;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int[] NO_LINKS = new int[0];
+    private static final Comparator<Candidate> CLOSEST_FIRST = Comparator.comparingDouble(Candidate::distance);
+
+    private final int efConstruction;
+    private final int efSearch;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Fixed seed: the same inserts always produce the same graph
+    private final SplittableRandom random = new SplittableRandom(0x5EED);
+
+    private final Map<UUID, Integer> nodeByRecipe = new HashMap<>();
+    private final BitSet tombstones = new BitSet();
+    private int dimensions = -1;
+    private float[] vectors = new float[0];
+    private int[][][] links = new int[INITIAL_CAPACITY][][];
+    private UUID[] recipeIds = new UUID[INITIAL_CAPACITY];
+    private UUID[] authorIds = new UUID[INITIAL_CAPACITY];
+    private boolean[] publicFlags = new boolean[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int nodeCount;
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    HnswIndex(int efConstruction, int efSearch) {
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * Adds or replaces the vector of a recipe. Versions older than the indexed one are ignored, so a late stored
+     * vector cannot overwrite a fresher one.
+     *
+     * @return whether the vector was indexed
+     */
+    boolean put(UUID recipeId, UUID authorId, boolean isPublic, long version, float[] vector) {
+        float[] normalized = normalize(vector);
+        if (normalized == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (dimensions == -1) {
+                dimensions = normalized.length;
+                vectors = new float[INITIAL_CAPACITY * dimensions];
+            } else if (normalized.length != dimensions) {
+                throw new IllegalArgumentException(
+                        "Expected " + dimensions + " dimensions but got " + normalized.length);
+            }
+            Integer existing = nodeByRecipe.get(recipeId);
+            if (existing != null) {
+                if (versions[existing] > version) {
+                    return false;
+                }
+                tombstones.set(existing);
+            }
+            insert(recipeId, authorId, isPublic, version, normalized);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Updates what searches filter on without touching the vector, e.g. when only the visibility changed. */
+    boolean updateMetadata(UUID recipeId, UUID authorId, boolean isPublic, long version) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeByRecipe.get(recipeId);
+            if (node == null || versions[node] > version) {
+                return false;
+            }
+            authorIds[node] = authorId;
+            publicFlags[node] = isPublic;
+            versions[node] = version;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(UUID recipeId) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeByRecipe.remove(recipeId);
+            if (node != null) {
+                tombstones.set(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Returns a copy of the normalized vector of a recipe, or {@code null} if it is not indexed. */
+    float[] vectorOf(UUID recipeId) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeByRecipe.get(recipeId);
+            if (node == null) {
+                return null;
+            }
+            return Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} recipes closest to the query vector that the viewer may see, most similar first.
+     * When the visibility filter rejects too many candidates, the search widens until enough are found or the whole
+     * graph has been considered.
+     *
+     * @param excludedId a recipe never to return, typically the one the query vector belongs to
+     * @param viewerId the requesting user, or {@code null} for public recipes only
+     */
+    List<SimilarRecipeResult> nearest(float[] query, int limit, UUID excludedId, UUID viewerId) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint == -1 || normalized == null || normalized.length != dimensions) {
+                return List.of();
+            }
+            int entry = entryPoint;
+            for (int level = topLevel; level > 0; level--) {
+                entry = greedyClosest(normalized, entry, level);
+            }
+
+            int ef = Math.max(efSearch, limit);
+            while (true) {
+                List<Candidate> candidates = searchLevel(normalized, entry, ef, 0);
+                candidates.sort(CLOSEST_FIRST);
+                List<SimilarRecipeResult> results = new ArrayList<>(limit);
+                for (Candidate candidate : candidates) {
+                    int node = candidate.node();
+                    if (tombstones.get(node)
+                            || recipeIds[node].equals(excludedId)
+                            || !(publicFlags[node] || authorIds[node].equals(viewerId))) {
+                        continue;
+                    }
+                    results.add(new SimilarRecipeResult(recipeIds[node], 1 - candidate.distance()));
+                    if (results.size() == limit) {
+                        return results;
+                    }
+                }
+                if (ef >= nodeCount) {
+                    return results;
+                }
+                ef = Math.min(ef * 4, nodeCount);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByRecipe.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Whether tombstones make up more than half of the graph. */
+    boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            int dead = nodeCount - nodeByRecipe.size();
+            return dead > 1000 && dead > nodeByRecipe.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Builds a new index from the live nodes of this one, leaving this one untouched. */
+    HnswIndex compacted() {
+        HnswIndex compacted = new HnswIndex(efConstruction, efSearch);
+        lock.readLock().lock();
+        try {
+            if (dimensions != -1) {
+                compacted.dimensions = dimensions;
+                compacted.vectors = new float[Math.max(nodeByRecipe.size(), INITIAL_CAPACITY) * dimensions];
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                if (!tombstones.get(node)) {
+                    float[] vector = Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions);
+                    compacted.insert(recipeIds[node], authorIds[node], publicFlags[node], versions[node], vector);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return compacted;
+    }
+
+    private void insert(UUID recipeId, UUID authorId, boolean isPublic, long version, float[] vector) {
+        int node = nodeCount++;
+        ensureCapacity(nodeCount);
+        System.arraycopy(vector, 0, vectors, node * dimensions, dimensions);
+        recipeIds[node] = recipeId;
+        authorIds[node] = authorId;
+        publicFlags[node] = isPublic;
+        versions[node] = version;
+        nodeByRecipe.put(recipeId, node);
+
+        int level = randomLevel();
+        links[node] = new int[level + 1][];
+        Arrays.fill(links[node], NO_LINKS);
+        if (entryPoint == -1) {
+            entryPoint = node;
+            topLevel = level;
+            return;
+        }
+
+        int entry = entryPoint;
+        for (int l = topLevel; l > level; l--) {
+            entry = greedyClosest(vector, entry, l);
+        }
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLevel(vector, entry, efConstruction, l);
+            candidates.sort(CLOSEST_FIRST);
+            int[] neighbours = selectNeighbours(candidates, maxLinks(l));
+            links[node][l] = neighbours;
+            for (int neighbour : neighbours) {
+                link(neighbour, node, l);
+            }
+            entry = candidates.getFirst().node();
+        }
+        if (level > topLevel) {
+            entryPoint = node;
+            topLevel = level;
+        }
+    }
+
+    /** Adds a back link, pruning the neighbour's links with the selection heuristic when it has too many. */
+    private void link(int from, int to, int level) {
+        int[] current = links[from][level];
+        int[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = to;
+        if (extended.length <= maxLinks(level)) {
+            links[from][level] = extended;
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(extended.length);
+        for (int neighbour : extended) {
+            candidates.add(new Candidate(neighbour, distance(from, neighbour)));
+        }
+        candidates.sort(CLOSEST_FIRST);
+        links[from][level] = selectNeighbours(candidates, maxLinks(level));
+    }
+
+    /**
+     * Neighbour selection heuristic of the HNSW paper: a candidate is taken only if it is closer to the new node than
+     * to any neighbour taken so far, which keeps links pointing in different directions. Remaining slots are filled
+     * with the closest skipped candidates.
+     *
+     * @param candidates sorted closest first
+     */
+    private int[] selectNeighbours(List<Candidate> candidates, int max) {
+        int[] selected = new int[Math.min(max, candidates.size())];
+        BitSet taken = new BitSet(candidates.size());
+        int count = 0;
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            Candidate candidate = candidates.get(i);
+            boolean diverse = true;
+            for (int j = 0; j < count && diverse; j++) {
+                diverse = distance(candidate.node(), selected[j]) >= candidate.distance();
+            }
+            if (diverse) {
+                selected[count++] = candidate.node();
+                taken.set(i);
+            }
+        }
+        int skipped = taken.nextClearBit(0);
+        while (count < selected.length && skipped < candidates.size()) {
+            selected[count++] = candidates.get(skipped).node();
+            skipped = taken.nextClearBit(skipped + 1);
+        }
+        return selected;
+    }
+
+    private int greedyClosest(float[] query, int entry, int level) {
+        int closest = entry;
+        float closestDistance = distance(query, entry);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : links[closest][level]) {
+                float distance = distance(query, neighbour);
+                if (distance < closestDistance) {
+                    closest = neighbour;
+                    closestDistance = distance;
+                    improved = true;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /** Best-first search on one level, keeping the {@code ef} closest nodes seen. */
+    private List<Candidate> searchLevel(float[] query, int entry, int ef, int level) {
+        BitSet visited = new BitSet(nodeCount);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(CLOSEST_FIRST);
+        PriorityQueue<Candidate> closest = new PriorityQueue<>(CLOSEST_FIRST.reversed());
+        Candidate start = new Candidate(entry, distance(query, entry));
+        visited.set(entry);
+        frontier.add(start);
+        closest.add(start);
+
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (closest.size() >= ef && current.distance() > closest.peek().distance()) {
+                break;
+            }
+            for (int neighbour : links[current.node()][level]) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float distance = distance(query, neighbour);
+                if (closest.size() < ef || distance < closest.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbour, distance);
+                    frontier.add(candidate);
+                    closest.add(candidate);
+                    if (closest.size() > ef) {
+                        closest.poll();
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(closest);
+    }
+
+    private float distance(float[] query, int node) {
+        int offset = node * dimensions;
+        float dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += query[i] * vectors[offset + i];
+        }
+        return 1 - dot;
+    }
+
+    private float distance(int a, int b) {
+        int offsetA = a * dimensions;
+        int offsetB = b * dimensions;
+        float dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += vectors[offsetA + i] * vectors[offsetB + i];
+        }
+        return 1 - dot;
+    }
+
+    private int randomLevel() {
+        // 1 - nextDouble() is in (0, 1], so the logarithm is finite
+        return Math.min(MAX_LEVEL, (int) (-Math.log(1 - random.nextDouble()) * LEVEL_MULTIPLIER));
+    }
+
+    private static int maxLinks(int level) {
+        return level == 0 ? MAX_LINKS_BOTTOM : MAX_LINKS;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= recipeIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, recipeIds.length * 2);
+        vectors = Arrays.copyOf(vectors, capacity * dimensions);
+        links = Arrays.copyOf(links, capacity);
+        recipeIds = Arrays.copyOf(recipeIds, capacity);
+        authorIds = Arrays.copyOf(authorIds, capacity);
+        publicFlags = Arrays.copyOf(publicFlags, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+    }
+
+    /** Returns a unit-length copy, or {@code null} for vectors without direction. */
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0 || Double.isNaN(norm)) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private record Candidate(int node, float distance) {}
+}
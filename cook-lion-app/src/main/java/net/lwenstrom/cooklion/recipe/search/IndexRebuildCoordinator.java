@@ -0,0 +1,129 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds an in-memory index that is rebuilt off to the side and swapped in, while changes keep arriving.
+ *
+ * <p>Changes go to the live index and, while a rebuild runs, are recorded as well; they are replayed onto the rebuilt
+ * index before it is swapped in, so nothing applied during the rebuild is lost. Changes may already be part of what the
+ * rebuild read, so they have to be idempotent. Only one rebuild runs at a time.
+ *
+ * @param <I> the index type
+ */
+@Slf4j
+final class IndexRebuildCoordinator<I> {
+
+    private final String name;
+    private final ToIntFunction<I> size;
+    private final Object monitor = new Object();
+
+    private volatile I index;
+    private List<Consumer<? super I>> changesDuringRebuild;
+    private boolean rebuildRequested;
+
+    /**
+     * @param name what the index is called in logs and thread names, e.g. "tag index"
+     * @param size the number of entries of an index, for logging
+     */
+    IndexRebuildCoordinator(String name, I initial, ToIntFunction<I> size) {
+        this.name = name;
+        this.index = initial;
+        this.size = size;
+    }
+
+    I current() {
+        return index;
+    }
+
+    /** Applies a change to the live index and records it for replay if a rebuild is running. */
+    void apply(Consumer<? super I> change) {
+        I target;
+        synchronized (monitor) {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+            target = index;
+        }
+        change.accept(target);
+    }
+
+    /** Rebuilds on a virtual thread, logging failures. */
+    void rebuildInBackground(Supplier<I> build) {
+        Thread.ofVirtual().name(name.replace(' ', '-') + "-rebuild").start(() -> {
+            try {
+                rebuild(build);
+            } catch (RuntimeException e) {
+                log.error("Failed to build the {}", name, e);
+            }
+        });
+    }
+
+    /**
+     * Builds a new index and swaps it in. If a rebuild is already running, it may have read past the data that
+     * triggered this one, so this one is queued to run once it finishes.
+     */
+    void rebuild(Supplier<I> build) {
+        synchronized (monitor) {
+            if (changesDuringRebuild != null) {
+                rebuildRequested = true;
+                log.debug("The {} is already being rebuilt, queued another rebuild", name);
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        }
+        if (run(build)) {
+            rebuild(build);
+        }
+    }
+
+    /**
+     * Rebuilds from the live index if it needs it and no rebuild is running, e.g. to compact it. Nothing is queued,
+     * the next change checks again.
+     */
+    void rebuildIfNeeded(Predicate<? super I> needed, Supplier<I> build) {
+        synchronized (monitor) {
+            if (changesDuringRebuild != null || !needed.test(index)) {
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        }
+        run(build);
+    }
+
+    /** @return whether another rebuild was requested meanwhile */
+    private boolean run(Supplier<I> build) {
+        long started = System.nanoTime();
+        I rebuilt;
+        try {
+            rebuilt = build.get();
+        } catch (RuntimeException e) {
+            synchronized (monitor) {
+                changesDuringRebuild = null;
+                rebuildRequested = false;
+            }
+            throw e;
+        }
+
+        boolean rerun;
+        synchronized (monitor) {
+            changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+            changesDuringRebuild = null;
+            index = rebuilt;
+            rerun = rebuildRequested;
+            rebuildRequested = false;
+        }
+        log.info(
+                "Built the {} with {} entries in {} ms",
+                name,
+                size.applyAsInt(rebuilt),
+                (System.nanoTime() - started) / 1_000_000);
+        return rerun;
+    }
+}
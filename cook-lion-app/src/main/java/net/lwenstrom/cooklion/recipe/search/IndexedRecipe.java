@@ -0,0 +1,37 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.event.RecipeSnapshot;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+
+/** The fields of a recipe the search index needs, read either from a change event or from the database. */
+record IndexedRecipe(
+        UUID id,
+        UUID authorId,
+        RecipeVisibility visibility,
+        String title,
+        String slug,
+        String summary,
+        String instructionsMarkdown,
+        Collection<String> tags,
+        long version) {
+
+    IndexedRecipe {
+        tags = tags == null ? List.of() : List.copyOf(tags);
+    }
+
+    static IndexedRecipe of(RecipeSnapshot snapshot) {
+        return new IndexedRecipe(
+                snapshot.id(),
+                snapshot.authorId(),
+                snapshot.visibility(),
+                snapshot.title(),
+                snapshot.slug(),
+                snapshot.summary(),
+                snapshot.instructionsMarkdown(),
+                snapshot.tags().values(),
+                snapshot.version());
+    }
+}
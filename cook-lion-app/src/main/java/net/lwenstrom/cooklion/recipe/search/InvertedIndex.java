@@ -0,0 +1,295 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+
+/**
+ * In-memory inverted index over recipes, ranked with BM25. Terms live in a sorted map so prefix queries are a range
+ * scan. Updates take the write lock briefly; searches share the read lock and never block each other.
+ *
+ * <p>Every put assigns a fresh document number, which keeps posting lists append-only. The numbers of removed or
+ * replaced documents are reclaimed by {@link #compactIfNeeded()}.
+ */
+final class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_COMPACTION_GARBAGE = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<UUID, Integer> documentNumbers = new HashMap<>();
+    private List<Document> documents = new ArrayList<>();
+    private double totalLength;
+
+    private record Document(
+            UUID recipeId,
+            UUID authorId,
+            RecipeVisibility visibility,
+            String slug,
+            String title,
+            long version,
+            float length,
+            String[] terms,
+            float[] frequencies) {}
+
+    private record Candidate(int document, float score) {}
+
+    /** Adds or replaces a recipe. Returns {@code false} if the index already holds a newer version of it. */
+    boolean put(AnalyzedRecipe analyzed) {
+        IndexedRecipe recipe = analyzed.recipe();
+        String[] terms = analyzed.termFrequencies().keySet().toArray(String[]::new);
+        float[] frequencies = new float[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            frequencies[i] = analyzed.termFrequencies().get(terms[i]);
+        }
+        Document document = new Document(
+                recipe.id(),
+                recipe.authorId(),
+                recipe.visibility(),
+                recipe.slug(),
+                recipe.title(),
+                recipe.version(),
+                analyzed.length(),
+                terms,
+                frequencies);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = documentNumbers.get(recipe.id());
+            if (existing != null) {
+                if (documents.get(existing).version() > recipe.version()) {
+                    return false;
+                }
+                removeDocument(existing);
+            }
+            addDocument(document);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(UUID recipeId) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = documentNumbers.remove(recipeId);
+            if (existing != null) {
+                removeDocument(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documentNumbers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best {@code limit} recipes visible to the viewer. Every query group contributes the score of its best
+     * matching alternative; documents matching only some groups are scaled down by the share of groups they match.
+     *
+     * @param query term alternatives per query word, as produced by {@link TextAnalyzer#analyzeQuery(String)}
+     * @param viewerId the searching user, or {@code null} for anonymous searches which only see public recipes
+     */
+    List<RecipeSearchResult> search(List<Set<String>> query, UUID viewerId, int limit) {
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documentNumbers.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            float averageLength = (float) Math.max(totalLength / documentCount, 1.0);
+            float[] scores = new float[documents.size()];
+            float[] groupScores = new float[documents.size()];
+            byte[] matchedGroups = new byte[documents.size()];
+            IntList candidates = new IntList();
+            IntList touched = new IntList();
+
+            for (int group = 0; group < query.size(); group++) {
+                Set<String> alternatives = query.get(group);
+                for (String term : alternatives) {
+                    Postings exact = postings.get(term);
+                    if (exact != null) {
+                        score(exact, 1.0f, documentCount, averageLength, groupScores, touched);
+                    }
+                }
+                if (group == query.size() - 1) {
+                    String prefix = alternatives.iterator().next();
+                    int expansions = 0;
+                    for (Map.Entry<String, Postings> entry : prefixRange(prefix).entrySet()) {
+                        if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        if (!alternatives.contains(entry.getKey())) {
+                            score(entry.getValue(), PREFIX_WEIGHT, documentCount, averageLength, groupScores, touched);
+                        }
+                    }
+                }
+
+                for (int i = 0; i < touched.size(); i++) {
+                    int document = touched.get(i);
+                    if (matchedGroups[document]++ == 0) {
+                        candidates.add(document);
+                    }
+                    scores[document] += groupScores[document];
+                    groupScores[document] = 0;
+                }
+                touched.clear();
+            }
+
+            PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, Comparator.comparing(Candidate::score));
+            for (int i = 0; i < candidates.size(); i++) {
+                int number = candidates.get(i);
+                Document document = documents.get(number);
+                if (!isVisible(document, viewerId)) {
+                    continue;
+                }
+                float score = scores[number] * matchedGroups[number] / query.size();
+                if (best.size() < limit) {
+                    best.add(new Candidate(number, score));
+                } else if (score > best.peek().score()) {
+                    best.poll();
+                    best.add(new Candidate(number, score));
+                }
+            }
+
+            RecipeSearchResult[] results = new RecipeSearchResult[best.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                Candidate candidate = best.poll();
+                Document document = documents.get(candidate.document());
+                results[i] = new RecipeSearchResult(
+                        document.recipeId(), document.slug(), document.title(), candidate.score());
+            }
+            return Arrays.asList(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Renumbers the live documents once replaced and removed ones make up more than half of the numbers in use. */
+    void compactIfNeeded() {
+        lock.writeLock().lock();
+        try {
+            int garbage = documents.size() - documentNumbers.size();
+            if (garbage < MIN_COMPACTION_GARBAGE || garbage < documentNumbers.size()) {
+                return;
+            }
+            List<Document> live = documents.stream()
+                    .filter(document -> document != null)
+                    .toList();
+            postings.clear();
+            documentNumbers.clear();
+            documents = new ArrayList<>(live.size());
+            totalLength = 0;
+            live.forEach(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addDocument(Document document) {
+        int number = documents.size();
+        for (int i = 0; i < document.terms().length; i++) {
+            postings.computeIfAbsent(document.terms()[i], term -> new Postings())
+                    .add(number, document.frequencies()[i]);
+        }
+        documents.add(document);
+        documentNumbers.put(document.recipeId(), number);
+        totalLength += document.length();
+    }
+
+    private void removeDocument(int number) {
+        Document document = documents.get(number);
+        for (String term : document.terms()) {
+            Postings termPostings = postings.get(term);
+            termPostings.remove(number);
+            if (termPostings.size() == 0) {
+                postings.remove(term);
+            }
+        }
+        documents.set(number, null);
+        totalLength -= document.length();
+    }
+
+    private NavigableMap<String, Postings> prefixRange(String prefix) {
+        return postings.subMap(prefix, false, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void score(
+            Postings termPostings,
+            float weight,
+            int documentCount,
+            float averageLength,
+            float[] groupScores,
+            IntList touched) {
+        int documentFrequency = termPostings.size();
+        float idf = (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        for (int i = 0; i < termPostings.size(); i++) {
+            int document = termPostings.doc(i);
+            float frequency = termPostings.frequency(i);
+            float length = documents.get(document).length();
+            float score = weight * idf * frequency * (K1 + 1)
+                    / (frequency + K1 * (1 - B + B * length / averageLength));
+            if (groupScores[document] == 0) {
+                touched.add(document);
+            }
+            // Alternatives of the same query word do not add up, the best one counts
+            groupScores[document] = Math.max(groupScores[document], score);
+        }
+    }
+
+    private static boolean isVisible(Document document, UUID viewerId) {
+        return document.visibility() == RecipeVisibility.PUBLIC
+                || (viewerId != null && viewerId.equals(document.authorId()));
+    }
+
+    /** Growable list of primitive ints, avoids boxing in the scoring loop. */
+    private static final class IntList {
+
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.Set;
+
+/** Languages the search analyzer can stem. Recipes are written in English or German. */
+enum Language {
+    ENGLISH(Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "if", "in", "into", "is", "it", "of",
+            "on", "or", "so", "that", "the", "then", "there", "these", "this", "to", "until", "was", "when", "with",
+            "you", "your")),
+    GERMAN(Set.of(
+            "aber", "als", "am", "an", "auf", "aus", "bei", "bis", "das", "dass", "dem", "den", "der", "des", "die",
+            "ein", "eine", "einem", "einen", "einer", "es", "fur", "im", "in", "ist", "mit", "nach", "oder", "sie",
+            "sind", "und", "vom", "von", "wenn", "zu", "zum", "zur"));
+
+    private final Set<String> stopwords;
+
+    Language(Set<String> stopwords) {
+        this.stopwords = stopwords;
+    }
+
+    boolean isStopword(String token) {
+        return stopwords.contains(token);
+    }
+
+    /**
+     * Light suffix stripping in the spirit of the "S" stemmer for English and the CISTEM stemmer for German. It only
+     * needs to conflate common inflections ("tomatoes"/"tomato", "Zwiebeln"/"Zwiebel"), not to produce words.
+     */
+    String stem(String token) {
+        return switch (this) {
+            case ENGLISH -> stemEnglish(token);
+            case GERMAN -> stemGerman(token);
+        };
+    }
+
+    private static String stemEnglish(String token) {
+        int length = token.length();
+        if (length <= 3) {
+            return token;
+        }
+        if (token.endsWith("ies") && length > 4) {
+            return token.substring(0, length - 3) + "y";
+        }
+        if (token.endsWith("oes") || token.endsWith("ches") || token.endsWith("shes") || token.endsWith("sses")) {
+            return token.substring(0, length - 2);
+        }
+        if (token.endsWith("ing") && length > 5) {
+            return undouble(token.substring(0, length - 3));
+        }
+        if (token.endsWith("ed") && length > 4) {
+            return undouble(token.substring(0, length - 2));
+        }
+        if (token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us")) {
+            return token.substring(0, length - 1);
+        }
+        return token;
+    }
+
+    private static String undouble(String stem) {
+        int length = stem.length();
+        char last = stem.charAt(length - 1);
+        if (length > 2 && last == stem.charAt(length - 2) && "lsz".indexOf(last) < 0) {
+            return stem.substring(0, length - 1);
+        }
+        return stem;
+    }
+
+    private static String stemGerman(String token) {
+        String stem = token;
+        // Suffixes are tried longest first, but the stem must keep at least four characters
+        while (stem.length() > 4) {
+            if (stem.endsWith("em") || stem.endsWith("er") || stem.endsWith("nd")) {
+                stem = stem.substring(0, stem.length() - 2);
+            } else if (stem.endsWith("e") || stem.endsWith("s") || stem.endsWith("n") || stem.endsWith("t")) {
+                stem = stem.substring(0, stem.length() - 1);
+            } else {
+                break;
+            }
+        }
+        return stem;
+    }
+}
@@ -0,0 +1,32 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** Embeds recipes with the embedding model served by Ollama. Each call is a blocking HTTP round trip. */
+@Component
+@ConditionalOnProperty(name = "app.similarity.embedder", havingValue = "ollama", matchIfMissing = true)
+public class OllamaRecipeEmbedder implements RecipeEmbedder {
+
+    private final EmbeddingModel embeddingModel;
+    private final String modelId;
+
+    public OllamaRecipeEmbedder(
+            EmbeddingModel embeddingModel,
+            @Value("${spring.ai.ollama.embedding.options.model:mxbai-embed-large}") String model) {
+        this.embeddingModel = embeddingModel;
+        this.modelId = "ollama:" + model;
+    }
+
+    @Override
+    public String modelId() {
+        return modelId;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return embeddingModel.embed(text);
+    }
+}
@@ -0,0 +1,48 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.Arrays;
+
+/**
+ * Posting list of a single term: parallel arrays of document numbers, kept sorted, and boosted term frequencies.
+ * Document numbers are handed out in ascending order, so adding a document is an append.
+ */
+final class Postings {
+
+    private int[] docs = new int[4];
+    private float[] frequencies = new float[4];
+    private int size;
+
+    void add(int doc, float frequency) {
+        if (size > 0 && docs[size - 1] >= doc) {
+            throw new IllegalArgumentException("Documents must be added in ascending order");
+        }
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        docs[size] = doc;
+        frequencies[size] = frequency;
+        size++;
+    }
+
+    void remove(int doc) {
+        int index = Arrays.binarySearch(docs, 0, size, doc);
+        if (index >= 0) {
+            System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+            System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+            size--;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int index) {
+        return docs[index];
+    }
+
+    float frequency(int index) {
+        return frequencies[index];
+    }
+}
@@ -0,0 +1,13 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+/**
+ * Turns recipe text into a dense vector. Implementations must be deterministic for a given {@link #modelId()}: stored
+ * vectors are reused as long as the model id and the text are unchanged.
+ */
+public interface RecipeEmbedder {
+
+    /** Identifies model and configuration; vectors of different ids are never compared. */
+    String modelId();
+
+    float[] embed(String text);
+}
@@ -0,0 +1,5 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.UUID;
+
+public record RecipeSearchResult(UUID id, String slug, String title, float score) {}
@@ -0,0 +1,142 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.event.RecipeChangedEvent;
+import net.lwenstrom.cooklion.recipe.event.RecipesImportedEvent;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Full-text search over recipes backed by an {@link InvertedIndex}. The index is rebuilt from the database in the
+ * background on startup and kept current by {@link RecipeChangedEvent}s published after each committed change.
+ *
+ * <p>Changes arriving while a rebuild runs are replayed onto the rebuilt index by the {@link IndexRebuildCoordinator},
+ * so nothing committed during the rebuild is lost.
+ */
+@Service
+public class RecipeSearchService {
+
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final UUID MIN_UUID = new UUID(0, 0);
+
+    private static final String BATCH_SQL =
+            """
+            SELECT r.id, r.author_id, r.visibility, r.title, r.slug, r.summary, r.instructions_markdown, r.version,
+                   array_remove(array_agg(t.name), NULL) AS tag_names
+            FROM recipes r
+            LEFT JOIN recipe_tags rt ON rt.recipe_id = r.id
+            LEFT JOIN tags t ON t.id = rt.tag_id
+            WHERE r.id > ?
+            GROUP BY r.id
+            ORDER BY r.id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer searchTimer;
+    private final int rebuildBatchSize;
+    private final IndexRebuildCoordinator<InvertedIndex> indexes =
+            new IndexRebuildCoordinator<>("recipe search index", new InvertedIndex(), InvertedIndex::size);
+
+    public RecipeSearchService(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.search.rebuild-batch-size:500}") int rebuildBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.searchTimer = Timer.builder("recipes.search")
+                .description("Time taken to answer full-text recipe searches")
+                .register(meterRegistry);
+        Gauge.builder("recipes.search.indexed", indexes, coordinator -> coordinator.current().size())
+                .description("Recipes in the full-text search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the best matching recipes visible to the viewer: public recipes and the viewer's own ones.
+     *
+     * @param viewerId the searching user, or {@code null} to search public recipes only
+     */
+    public List<RecipeSearchResult> search(String query, UUID viewerId, int limit) {
+        List<Set<String>> terms = TextAnalyzer.analyzeQuery(query);
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(terms.size() - MAX_QUERY_TERMS, terms.size());
+        }
+        List<Set<String>> queryTerms = terms;
+        return searchTimer.record(() -> indexes.current().search(queryTerms, viewerId, limit));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        indexes.apply(target -> apply(target, event));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        indexes.rebuildInBackground(this::load);
+    }
+
+    /** Bulk imports write around the change events, so the index is rebuilt from the database afterwards. */
+    @EventListener
+    public void onRecipesImported(RecipesImportedEvent event) {
+        indexes.rebuildInBackground(this::load);
+    }
+
+    public void rebuild() {
+        indexes.rebuild(this::load);
+    }
+
+    /**
+     * Reads all recipes in keyset-paginated batches and analyzes each batch in parallel. Reading the next batch is the
+     * only sequential part; analysis dominates for long instructions.
+     */
+    private InvertedIndex load() {
+        InvertedIndex loaded = new InvertedIndex();
+        UUID lastId = MIN_UUID;
+        List<IndexedRecipe> batch;
+        do {
+            batch = jdbcTemplate.query(BATCH_SQL, RecipeSearchService::mapRecipe, lastId, rebuildBatchSize);
+            batch.parallelStream().map(TextAnalyzer::analyze).toList().forEach(loaded::put);
+            if (!batch.isEmpty()) {
+                lastId = batch.getLast().id();
+            }
+        } while (batch.size() == rebuildBatchSize);
+        return loaded;
+    }
+
+    private static void apply(InvertedIndex target, RecipeChangedEvent event) {
+        if (event.type() == RecipeChangedEvent.Type.DELETED) {
+            target.remove(event.recipeId());
+        } else {
+            target.put(TextAnalyzer.analyze(IndexedRecipe.of(event.snapshot())));
+            target.compactIfNeeded();
+        }
+    }
+
+    static IndexedRecipe mapRecipe(ResultSet rs, int rowNum) throws SQLException {
+        Array tagNames = rs.getArray("tag_names");
+        return new IndexedRecipe(
+                rs.getObject("id", UUID.class),
+                rs.getObject("author_id", UUID.class),
+                RecipeVisibility.valueOf(rs.getString("visibility")),
+                rs.getString("title"),
+                rs.getString("slug"),
+                rs.getString("summary"),
+                rs.getString("instructions_markdown"),
+                tagNames != null ? List.of((String[]) tagNames.getArray()) : List.of(),
+                rs.getLong("version"));
+    }
+}
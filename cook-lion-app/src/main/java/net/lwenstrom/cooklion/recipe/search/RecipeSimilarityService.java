@@ -0,0 +1,370 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.common.model.TimeOrderedUuid;
+import net.lwenstrom.cooklion.recipe.event.RecipeChangedEvent;
+import net.lwenstrom.cooklion.recipe.event.RecipesImportedEvent;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * "Recipes like this one" from embedding vectors. Vectors are computed off the request path by a small pool of
+ * workers after each committed change, persisted in {@code recipe_embeddings} and kept in an in-memory
+ * {@link HnswIndex}, so a similarity query is a graph walk and never a model call.
+ *
+ * <p>Repeated changes of the same recipe are coalesced while it waits for a worker, and text that did not change
+ * since the stored vector was computed is not embedded again. On startup the stored vectors of the configured model are
+ * loaded; recipes without a current vector are embedded in the background, which also retries earlier failures.
+ */
+@Slf4j
+@Service
+public class RecipeSimilarityService {
+
+    private static final int MAX_INSTRUCTIONS_CHARS = 4000;
+    private static final UUID MIN_UUID = new UUID(0, 0);
+
+    private static final String SWEEP_SQL =
+            """
+            DELETE FROM recipe_embeddings e
+            WHERE NOT EXISTS (SELECT 1 FROM recipes r WHERE r.id = e.recipe_id)
+            """;
+
+    private static final String LOAD_SQL =
+            """
+            SELECT e.recipe_id, r.author_id, r.visibility, e.recipe_version, e.content_hash, e.vector
+            FROM recipe_embeddings e
+            JOIN recipes r ON r.id = e.recipe_id
+            WHERE e.model = ?
+            """;
+
+    private static final String MISSING_BATCH_SQL =
+            """
+            SELECT r.id, r.author_id, r.visibility, r.title, r.slug, r.summary, r.instructions_markdown, r.version,
+                   array_remove(array_agg(t.name), NULL) AS tag_names
+            FROM recipes r
+            LEFT JOIN recipe_embeddings e ON e.recipe_id = r.id AND e.model = ?
+            LEFT JOIN recipe_tags rt ON rt.recipe_id = r.id
+            LEFT JOIN tags t ON t.id = rt.tag_id
+            WHERE r.id > ? AND (e.recipe_id IS NULL OR e.recipe_version < r.version)
+            GROUP BY r.id
+            ORDER BY r.id
+            LIMIT ?
+            """;
+
+    // Only written while the recipe exists, and never replaced by a vector of an older recipe version
+    private static final String UPSERT_SQL =
+            """
+            INSERT INTO recipe_embeddings (
+                id, recipe_id, recipe_version, model, content_hash, dimensions, vector, version, created_at, updated_at)
+            SELECT ?, ?, ?, ?, ?, ?, ?, 0, now(), now()
+            WHERE EXISTS (SELECT 1 FROM recipes WHERE id = ?)
+            ON CONFLICT (recipe_id) DO UPDATE
+            SET recipe_version = EXCLUDED.recipe_version, model = EXCLUDED.model, content_hash = EXCLUDED.content_hash,
+                dimensions = EXCLUDED.dimensions, vector = EXCLUDED.vector,
+                version = recipe_embeddings.version + 1, updated_at = now()
+            WHERE recipe_embeddings.recipe_version <= EXCLUDED.recipe_version
+            """;
+
+    private static final String TOUCH_SQL =
+            """
+            UPDATE recipe_embeddings
+            SET recipe_version = ?, version = version + 1, updated_at = now()
+            WHERE recipe_id = ? AND recipe_version < ?
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM recipe_embeddings WHERE recipe_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RecipeEmbedder embedder;
+    private final int backfillBatchSize;
+    private final ExecutorService workers;
+    private final Map<UUID, IndexedRecipe> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, String> contentHashes = new ConcurrentHashMap<>();
+    private final AtomicBoolean loaded = new AtomicBoolean();
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+    private final Timer similarTimer;
+    private final Timer embedTimer;
+    private final Counter embeddedCounter;
+    private final Counter unchangedCounter;
+    private final Counter failedCounter;
+
+    private final IndexRebuildCoordinator<HnswIndex> indexes;
+
+    public RecipeSimilarityService(
+            JdbcTemplate jdbcTemplate,
+            RecipeEmbedder embedder,
+            MeterRegistry meterRegistry,
+            @Value("${app.similarity.ef-construction:100}") int efConstruction,
+            @Value("${app.similarity.ef-search:64}") int efSearch,
+            @Value("${app.similarity.workers:2}") int workers,
+            @Value("${app.similarity.backfill-batch-size:200}") int backfillBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.embedder = embedder;
+        this.backfillBatchSize = backfillBatchSize;
+        this.indexes = new IndexRebuildCoordinator<>(
+                "recipe similarity index", new HnswIndex(efConstruction, efSearch), HnswIndex::size);
+        // Model calls mostly wait on I/O; the pool size bounds the load put on the model server
+        this.workers = Executors.newFixedThreadPool(
+                workers, Thread.ofVirtual().name("recipe-embedder-", 0).factory());
+        this.similarTimer = Timer.builder("recipes.similar")
+                .description("Time taken to find similar recipes")
+                .register(meterRegistry);
+        this.embedTimer = Timer.builder("recipes.embeddings.embed")
+                .description("Time taken to compute a recipe embedding")
+                .register(meterRegistry);
+        this.embeddedCounter = embeddingCounter(meterRegistry, "embedded");
+        this.unchangedCounter = embeddingCounter(meterRegistry, "unchanged");
+        this.failedCounter = embeddingCounter(meterRegistry, "failed");
+        Gauge.builder("recipes.similar.indexed", indexes, coordinator -> coordinator.current().size())
+                .description("Recipes in the similarity index")
+                .register(meterRegistry);
+        Gauge.builder("recipes.embeddings.pending", pending, Map::size)
+                .description("Recipes waiting to be embedded")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the recipes most similar to the given one that the viewer may see, most similar first. Recipes that have
+     * not been embedded yet have no neighbours.
+     *
+     * @param viewerId the requesting user, or {@code null} for public recipes only
+     */
+    public List<SimilarRecipeResult> similarTo(UUID recipeId, UUID viewerId, int limit) {
+        return similarTimer.record(() -> {
+            HnswIndex current = indexes.current();
+            float[] vector = current.vectorOf(recipeId);
+            return vector == null ? List.<SimilarRecipeResult>of() : current.nearest(vector, limit, recipeId, viewerId);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        UUID recipeId = event.recipeId();
+        if (event.type() == RecipeChangedEvent.Type.DELETED) {
+            pending.remove(recipeId);
+            contentHashes.remove(recipeId);
+            mutate(target -> target.remove(recipeId));
+            workers.execute(() -> deleteStored(recipeId));
+        } else {
+            schedule(IndexedRecipe.of(event.snapshot()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread.ofVirtual().name("recipe-similarity-load").start(() -> {
+            try {
+                load();
+                loaded.set(true);
+                backfill();
+            } catch (RuntimeException e) {
+                log.error("Failed to load the recipe similarity index", e);
+            }
+        });
+    }
+
+    /** Imported recipes bypass the change events; they are picked up as recipes without a vector. */
+    @EventListener
+    public void onRecipesImported(RecipesImportedEvent event) {
+        if (loaded.get()) {
+            Thread.ofVirtual().name("recipe-similarity-backfill").start(this::backfill);
+        }
+    }
+
+    /** Queues every recipe lacking a vector of the current model, including those whose embedding failed before. */
+    @Scheduled(
+            initialDelayString = "${app.similarity.backfill-interval:PT15M}",
+            fixedDelayString = "${app.similarity.backfill-interval:PT15M}")
+    public void backfill() {
+        if (!loaded.get() || !backfillRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int queued = 0;
+            UUID lastId = MIN_UUID;
+            List<IndexedRecipe> batch;
+            do {
+                batch = jdbcTemplate.query(
+                        MISSING_BATCH_SQL,
+                        RecipeSearchService::mapRecipe,
+                        embedder.modelId(),
+                        lastId,
+                        backfillBatchSize);
+                batch.forEach(this::schedule);
+                queued += batch.size();
+                if (!batch.isEmpty()) {
+                    lastId = batch.getLast().id();
+                }
+            } while (batch.size() == backfillBatchSize);
+            if (queued > 0) {
+                log.info("Queued {} recipes without a current embedding", queued);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to queue recipes without a current embedding", e);
+        } finally {
+            backfillRunning.set(false);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        int swept = jdbcTemplate.update(SWEEP_SQL);
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            UUID recipeId = rs.getObject("recipe_id", UUID.class);
+            UUID authorId = rs.getObject("author_id", UUID.class);
+            boolean isPublic = RecipeVisibility.valueOf(rs.getString("visibility")) == RecipeVisibility.PUBLIC;
+            long version = rs.getLong("recipe_version");
+            float[] vector = decode(rs.getBytes("vector"));
+            String contentHash = rs.getString("content_hash");
+            // A change handled while loading carries a newer version and wins
+            contentHashes.putIfAbsent(recipeId, contentHash);
+            mutate(target -> target.put(recipeId, authorId, isPublic, version, vector));
+        }, embedder.modelId());
+        log.info(
+                "Loaded {} recipe embeddings of {} in {} ms, swept {} orphans",
+                indexes.current().size(),
+                embedder.modelId(),
+                (System.nanoTime() - started) / 1_000_000,
+                swept);
+    }
+
+    private void schedule(IndexedRecipe recipe) {
+        // One queued task per recipe; later changes only replace what that task will embed
+        if (pending.put(recipe.id(), recipe) == null) {
+            workers.execute(() -> embedPending(recipe.id()));
+        }
+    }
+
+    private void embedPending(UUID recipeId) {
+        IndexedRecipe recipe = pending.remove(recipeId);
+        if (recipe == null) {
+            return;
+        }
+        boolean isPublic = recipe.visibility() == RecipeVisibility.PUBLIC;
+        String text = embeddingText(recipe);
+        String contentHash = hash(embedder.modelId() + '\n' + text);
+        try {
+            if (contentHash.equals(contentHashes.get(recipeId))) {
+                // Only metadata such as the visibility changed; the stored vector still applies
+                jdbcTemplate.update(TOUCH_SQL, recipe.version(), recipeId, recipe.version());
+                mutate(target -> target.updateMetadata(recipeId, recipe.authorId(), isPublic, recipe.version()));
+                unchangedCounter.increment();
+                return;
+            }
+
+            float[] vector = embedTimer.record(() -> embedder.embed(text));
+            int written = jdbcTemplate.update(
+                    UPSERT_SQL,
+                    TimeOrderedUuid.next(),
+                    recipeId,
+                    recipe.version(),
+                    embedder.modelId(),
+                    contentHash,
+                    vector.length,
+                    encode(vector),
+                    recipeId);
+            if (written > 0) {
+                contentHashes.put(recipeId, contentHash);
+                mutate(target -> target.put(recipeId, recipe.authorId(), isPublic, recipe.version(), vector));
+                embeddedCounter.increment();
+            }
+        } catch (RuntimeException e) {
+            // Left without a current vector; the next backfill retries
+            failedCounter.increment();
+            log.warn("Failed to embed recipe {}", recipeId, e);
+        }
+        compactIfNeeded();
+    }
+
+    private void deleteStored(UUID recipeId) {
+        try {
+            jdbcTemplate.update(DELETE_SQL, recipeId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete the embedding of recipe {}, it is swept on the next startup", recipeId, e);
+        }
+    }
+
+    /** Puts and removes are idempotent, so they are safe to replay onto a compacted copy that already has them. */
+    private void mutate(Consumer<HnswIndex> change) {
+        indexes.apply(change);
+    }
+
+    private void compactIfNeeded() {
+        indexes.rebuildIfNeeded(HnswIndex::needsCompaction, () -> indexes.current().compacted());
+    }
+
+    /** Title and tags first: models that truncate long input still see what the recipe is about. */
+    static String embeddingText(IndexedRecipe recipe) {
+        StringBuilder text = new StringBuilder(recipe.title());
+        if (!recipe.tags().isEmpty()) {
+            // Sorted, so the content hash does not depend on the order tags were loaded in
+            text.append('\n').append(String.join(", ", recipe.tags().stream().sorted().toList()));
+        }
+        if (recipe.summary() != null && !recipe.summary().isBlank()) {
+            text.append('\n').append(recipe.summary());
+        }
+        String instructions = recipe.instructionsMarkdown();
+        if (instructions != null && !instructions.isBlank()) {
+            text.append('\n').append(instructions, 0, Math.min(instructions.length(), MAX_INSTRUCTIONS_CHARS));
+        }
+        return text.toString();
+    }
+
+    private static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Counter embeddingCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("recipes.embeddings")
+                .description("Recipe embedding requests by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,6 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.UUID;
+
+/** @param similarity cosine similarity of the embeddings, 1 for identical directions */
+public record SimilarRecipeResult(UUID id, float similarity) {}
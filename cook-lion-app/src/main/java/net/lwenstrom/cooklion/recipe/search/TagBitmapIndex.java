@@ -0,0 +1,151 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Compressed bitmaps of recipe ordinals per tag, per author and for public visibility. Tag filters become bitwise
+ * AND/OR/ANDNOT over a handful of bitmaps instead of joins with {@code GROUP BY ... HAVING COUNT}, and facet counts
+ * are one intersection cardinality per tag.
+ *
+ * <p>Ordinals are assigned in insertion order and never reused, so higher ordinals belong to newer recipes as long
+ * as the index is loaded oldest first. The few ordinals left behind by deletions are reclaimed by the next rebuild.
+ */
+final class TagBitmapIndex {
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<UUID, RoaringBitmap> recipesByTag = new HashMap<>();
+    private final Map<UUID, RoaringBitmap> recipesByAuthor = new HashMap<>();
+    private final RoaringBitmap publicRecipes = new RoaringBitmap();
+
+    private record Entry(UUID recipeId, UUID authorId, long version, Set<UUID> tagIds) {}
+
+    /** Adds or replaces a recipe. Returns {@code false} if the index already holds a newer version of it. */
+    boolean put(UUID recipeId, UUID authorId, RecipeVisibility visibility, Set<UUID> tagIds, long version) {
+        Entry entry = new Entry(recipeId, authorId, version, Set.copyOf(tagIds));
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(recipeId);
+            if (ordinal == null) {
+                ordinal = entries.size();
+                entries.add(null);
+                ordinals.put(recipeId, ordinal);
+            } else {
+                Entry existing = entries.get(ordinal);
+                if (existing.version() > version) {
+                    return false;
+                }
+                clear(ordinal, existing);
+            }
+
+            entries.set(ordinal, entry);
+            for (UUID tagId : entry.tagIds()) {
+                recipesByTag.computeIfAbsent(tagId, id -> new RoaringBitmap()).add(ordinal);
+            }
+            recipesByAuthor.computeIfAbsent(authorId, id -> new RoaringBitmap()).add(ordinal);
+            if (visibility == RecipeVisibility.PUBLIC) {
+                publicRecipes.add(ordinal);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(UUID recipeId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(recipeId);
+            if (ordinal != null) {
+                clear(ordinal, entries.get(ordinal));
+                entries.set(ordinal, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates the filter over the recipes visible to the viewer: public ones and, for a signed-in viewer, their own.
+     *
+     * @param viewerId the requesting user, or {@code null} for public recipes only
+     */
+    TagFilterResult filter(TagFilter filter, UUID viewerId, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = viewerId == null
+                    ? publicRecipes.clone()
+                    : RoaringBitmap.or(publicRecipes, recipesByAuthor.getOrDefault(viewerId, EMPTY));
+            for (UUID tagId : filter.allOf()) {
+                matches.and(recipesByTag.getOrDefault(tagId, EMPTY));
+            }
+            if (!filter.anyOf().isEmpty()) {
+                RoaringBitmap any = RoaringBitmap.or(filter.anyOf().stream()
+                        .map(tagId -> recipesByTag.getOrDefault(tagId, EMPTY))
+                        .iterator());
+                matches.and(any);
+            }
+            for (UUID tagId : filter.noneOf()) {
+                matches.andNot(recipesByTag.getOrDefault(tagId, EMPTY));
+            }
+
+            List<UUID> recipeIds = new ArrayList<>(Math.min(limit, matches.getCardinality()));
+            IntIterator newestFirst = matches.getReverseIntIterator();
+            while (newestFirst.hasNext() && recipeIds.size() < limit) {
+                recipeIds.add(entries.get(newestFirst.next()).recipeId());
+            }
+
+            Map<UUID, Integer> tagCounts = new HashMap<>();
+            if (!matches.isEmpty()) {
+                recipesByTag.forEach((tagId, recipes) -> {
+                    int count = RoaringBitmap.andCardinality(matches, recipes);
+                    if (count > 0) {
+                        tagCounts.put(tagId, count);
+                    }
+                });
+            }
+            return new TagFilterResult(matches.getCardinality(), recipeIds, tagCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void clear(int ordinal, Entry entry) {
+        for (UUID tagId : entry.tagIds()) {
+            removeFrom(recipesByTag, tagId, ordinal);
+        }
+        removeFrom(recipesByAuthor, entry.authorId(), ordinal);
+        publicRecipes.remove(ordinal);
+    }
+
+    private static void removeFrom(Map<UUID, RoaringBitmap> bitmaps, UUID key, int ordinal) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tag filter expression: recipes carrying every tag of {@code allOf}, at least one tag of {@code anyOf} (if given)
+ * and none of {@code noneOf}.
+ */
+public record TagFilter(Set<UUID> allOf, Set<UUID> anyOf, Set<UUID> noneOf) {
+
+    public TagFilter {
+        allOf = allOf == null ? Set.of() : Set.copyOf(allOf);
+        anyOf = anyOf == null ? Set.of() : Set.copyOf(anyOf);
+        noneOf = noneOf == null ? Set.of() : Set.copyOf(noneOf);
+    }
+}
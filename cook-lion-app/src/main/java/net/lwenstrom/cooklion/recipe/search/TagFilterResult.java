@@ -0,0 +1,14 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Outcome of a tag filter.
+ *
+ * @param total number of matching recipes
+ * @param recipeIds the newest matching recipes, at most the requested limit
+ * @param tagCounts for every tag, the number of matching recipes carrying it; tags without matches are omitted
+ */
+public record TagFilterResult(int total, List<UUID> recipeIds, Map<UUID, Integer> tagCounts) {}
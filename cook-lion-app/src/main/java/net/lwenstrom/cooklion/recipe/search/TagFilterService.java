@@ -0,0 +1,117 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.UUID;
+import javax.sql.DataSource;
+import net.lwenstrom.cooklion.recipe.event.RecipeChangedEvent;
+import net.lwenstrom.cooklion.recipe.event.RecipeSnapshot;
+import net.lwenstrom.cooklion.recipe.event.RecipesImportedEvent;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Multi-tag filtering and facet counts backed by a {@link TagBitmapIndex}. Loaded on startup and kept current by
+ * {@link RecipeChangedEvent}s, the same way as the full-text index. Rebuilds stream all recipes from a cursor, which
+ * PostgreSQL only uses inside a transaction and with a fetch size.
+ */
+@Service
+public class TagFilterService {
+
+    // Oldest first, so ordinals follow creation order; tags come from a correlated subquery instead of GROUP BY, so
+    // rows stream without an aggregation step
+    private static final String LOAD_SQL =
+            """
+            SELECT r.id, r.author_id, r.visibility, r.version,
+                   ARRAY(SELECT rt.tag_id FROM recipe_tags rt WHERE rt.recipe_id = r.id) AS tag_ids
+            FROM recipes r
+            ORDER BY r.created_at, r.id
+            """;
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer filterTimer;
+    private final IndexRebuildCoordinator<TagBitmapIndex> indexes =
+            new IndexRebuildCoordinator<>("tag index", new TagBitmapIndex(), TagBitmapIndex::size);
+
+    public TagFilterService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.search.rebuild-batch-size:500}") int fetchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.filterTimer = Timer.builder("recipes.tag-filter")
+                .description("Time taken to evaluate tag filters including facet counts")
+                .register(meterRegistry);
+    }
+
+    /** @param viewerId the requesting user, or {@code null} to filter public recipes only */
+    public TagFilterResult filter(TagFilter filter, UUID viewerId, int limit) {
+        return filterTimer.record(() -> indexes.current().filter(filter, viewerId, limit));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        indexes.apply(target -> apply(target, event));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        indexes.rebuildInBackground(this::load);
+    }
+
+    /** Bulk imports write around the change events, so the index is rebuilt from the database afterwards. */
+    @EventListener
+    public void onRecipesImported(RecipesImportedEvent event) {
+        indexes.rebuildInBackground(this::load);
+    }
+
+    public void rebuild() {
+        indexes.rebuild(this::load);
+    }
+
+    private TagBitmapIndex load() {
+        TagBitmapIndex loaded = new TagBitmapIndex();
+        readOnlyTransaction.executeWithoutResult(status -> cursorJdbcTemplate.query(LOAD_SQL, (ResultSet rs) -> {
+            loaded.put(
+                    rs.getObject("id", UUID.class),
+                    rs.getObject("author_id", UUID.class),
+                    RecipeVisibility.valueOf(rs.getString("visibility")),
+                    tagIds(rs.getArray("tag_ids")),
+                    rs.getLong("version"));
+        }));
+        return loaded;
+    }
+
+    private static void apply(TagBitmapIndex target, RecipeChangedEvent event) {
+        if (event.type() == RecipeChangedEvent.Type.DELETED) {
+            target.remove(event.recipeId());
+        } else {
+            RecipeSnapshot snapshot = event.snapshot();
+            target.put(
+                    snapshot.id(),
+                    snapshot.authorId(),
+                    snapshot.visibility(),
+                    snapshot.tags().keySet(),
+                    snapshot.version());
+        }
+    }
+
+    private static Set<UUID> tagIds(Array array) throws SQLException {
+        return array == null ? Set.of() : Set.of((UUID[]) array.getArray());
+    }
+}
@@ -0,0 +1,118 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns recipe text and search queries into index terms: lowercases, folds diacritics ({@code Brühe} matches
+ * {@code Bruhe}), drops stopwords and stems. Documents are stemmed in their detected language only; queries are too
+ * short for detection, so every query term is expanded to the stems of all languages.
+ */
+final class TextAnalyzer {
+
+    static final float TITLE_BOOST = 3.0f;
+    static final float TAG_BOOST = 2.5f;
+    static final float SUMMARY_BOOST = 1.5f;
+    static final float INSTRUCTIONS_BOOST = 1.0f;
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    private TextAnalyzer() {}
+
+    static AnalyzedRecipe analyze(IndexedRecipe recipe) {
+        List<String> title = tokenize(recipe.title());
+        List<String> summary = tokenize(recipe.summary());
+        List<String> instructions = tokenize(recipe.instructionsMarkdown());
+        List<String> tags = new ArrayList<>();
+        recipe.tags().forEach(tag -> tags.addAll(tokenize(tag)));
+
+        Language language = detectLanguage(title, summary, instructions);
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = addField(termFrequencies, title, language, TITLE_BOOST)
+                + addField(termFrequencies, tags, language, TAG_BOOST)
+                + addField(termFrequencies, summary, language, SUMMARY_BOOST)
+                + addField(termFrequencies, instructions, language, INSTRUCTIONS_BOOST);
+        return new AnalyzedRecipe(recipe, termFrequencies, length);
+    }
+
+    /**
+     * Analyzes a query into one group of alternative terms per query word. The last word is also treated as a prefix,
+     * so results show up while the user is still typing.
+     */
+    static List<Set<String>> analyzeQuery(String query) {
+        List<Set<String>> terms = new ArrayList<>();
+        for (String token : tokenize(query)) {
+            if (Language.ENGLISH.isStopword(token) || Language.GERMAN.isStopword(token)) {
+                continue;
+            }
+            Set<String> alternatives = new LinkedHashSet<>();
+            alternatives.add(token);
+            for (Language language : Language.values()) {
+                alternatives.add(language.stem(token));
+            }
+            terms.add(alternatives);
+        }
+        return terms;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String folded = Normalizer.normalize(text.replace("ß", "ss"), Normalizer.Form.NFD)
+                .toLowerCase(Locale.ROOT);
+
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                addToken(tokens, token);
+            }
+        }
+        addToken(tokens, token);
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, StringBuilder token) {
+        if (token.length() >= MIN_TOKEN_LENGTH && token.length() <= MAX_TOKEN_LENGTH) {
+            tokens.add(token.toString());
+        }
+        token.setLength(0);
+    }
+
+    @SafeVarargs
+    private static Language detectLanguage(Collection<String>... fields) {
+        int english = 0;
+        int german = 0;
+        for (Collection<String> field : fields) {
+            for (String token : field) {
+                english += Language.ENGLISH.isStopword(token) ? 1 : 0;
+                german += Language.GERMAN.isStopword(token) ? 1 : 0;
+            }
+        }
+        return german > english ? Language.GERMAN : Language.ENGLISH;
+    }
+
+    private static float addField(
+            Map<String, Float> termFrequencies, List<String> tokens, Language language, float boost) {
+        int counted = 0;
+        for (String token : tokens) {
+            if (!language.isStopword(token)) {
+                termFrequencies.merge(language.stem(token), boost, Float::sum);
+                counted++;
+            }
+        }
+        return counted * boost;
+    }
+}
@@ -0,0 +1,124 @@
+package net.lwenstrom.cooklion.recipe.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.recipe.dto.ExportedRecipe;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes recipes as newline-delimited JSON straight from a JDBC cursor to the output. PostgreSQL only uses a
+ * server-side cursor inside a transaction and with a fetch size, so rows arrive in batches of that size and each row is
+ * serialized and dropped before the next one is read. No entities are created, so no persistence context grows.
+ */
+@Slf4j
+@Service
+public class RecipeExportService {
+
+    private static final int FLUSH_INTERVAL_ROWS = 500;
+
+    // Tags come from a correlated subquery instead of GROUP BY, so rows stream without an aggregation step
+    private static final String EXPORT_SQL =
+            """
+            SELECT r.id, r.title, r.slug, r.summary, r.prep_time_minutes, r.cook_time_minutes, r.servings,
+                   r.visibility, r.instructions_markdown, r.cover_image_id, r.created_at, r.updated_at,
+                   u.username AS author_username,
+                   ARRAY(SELECT t.name FROM recipe_tags rt JOIN tags t ON t.id = rt.tag_id
+                         WHERE rt.recipe_id = r.id ORDER BY t.name) AS tag_names
+            FROM recipes r
+            JOIN users u ON u.id = r.author_id
+            """;
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final ObjectWriter recipeWriter;
+
+    public RecipeExportService(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            @Value("${app.export.fetch-size:500}") int fetchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        // Flushing after every value would turn each line into its own network write
+        this.recipeWriter = objectMapper
+                .writerFor(ExportedRecipe.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+    }
+
+    /** Exports the recipes of one author, oldest first. */
+    @Transactional(readOnly = true)
+    public int exportAuthor(UUID authorId, OutputStream output) throws IOException {
+        return export(output, EXPORT_SQL + "WHERE r.author_id = ? ORDER BY r.created_at, r.id", authorId);
+    }
+
+    /** Exports every recipe of every user, for backups. */
+    @Transactional(readOnly = true)
+    public int exportAll(OutputStream output) throws IOException {
+        return export(output, EXPORT_SQL + "ORDER BY r.created_at, r.id");
+    }
+
+    private int export(OutputStream output, String sql, Object... args) throws IOException {
+        long started = System.nanoTime();
+        int[] rows = {0};
+        try (JsonGenerator generator = recipeWriter.createGenerator(output)) {
+            RowCallbackHandler writeRow = rs -> {
+                try {
+                    recipeWriter.writeValue(generator, mapRecipe(rs));
+                    generator.writeRaw('\n');
+                    if (++rows[0] % FLUSH_INTERVAL_ROWS == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            cursorJdbcTemplate.query(sql, writeRow, args);
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the cursor is closed with the transaction
+            throw e.getCause();
+        }
+        log.debug("Exported {} recipes in {} ms", rows[0], (System.nanoTime() - started) / 1_000_000);
+        return rows[0];
+    }
+
+    private static ExportedRecipe mapRecipe(ResultSet rs) throws SQLException {
+        Array tagNames = rs.getArray("tag_names");
+        return new ExportedRecipe(
+                rs.getObject("id", UUID.class),
+                rs.getString("title"),
+                rs.getString("slug"),
+                rs.getString("summary"),
+                rs.getObject("prep_time_minutes", Integer.class),
+                rs.getObject("cook_time_minutes", Integer.class),
+                rs.getObject("servings", Integer.class),
+                RecipeVisibility.valueOf(rs.getString("visibility")),
+                rs.getString("instructions_markdown"),
+                tagNames != null ? List.of((String[]) tagNames.getArray()) : List.of(),
+                rs.getString("author_username"),
+                rs.getObject("cover_image_id", UUID.class),
+                toInstant(rs.getTimestamp("created_at")),
+                toInstant(rs.getTimestamp("updated_at")));
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
@@ -0,0 +1,43 @@
+package net.lwenstrom.cooklion.recipe.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rendered instruction HTML keyed by {@code (recipe id, version)}. Rendering happens on the first read of a version,
+ * not on save, so edits that are never viewed cost nothing. The cache is bounded by the total number of characters
+ * held rather than by entries, since instructions range from a line to 20,000 characters.
+ */
+@Component
+public class RecipeHtmlCache {
+
+    private final Cache<Key, String> cache;
+    private final MarkdownRenderer markdownRenderer;
+
+    private record Key(UUID recipeId, long version) {}
+
+    public RecipeHtmlCache(
+            MarkdownRenderer markdownRenderer,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.recipe-html.maximum-chars:50000000}") long maximumChars) {
+        this.markdownRenderer = markdownRenderer;
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumWeight(maximumChars)
+                        .<Key, String>weigher((key, html) -> Math.max(html.length(), 1))
+                        .recordStats()
+                        .build(),
+                "recipes.instructions-html");
+    }
+
+    /** Returns the HTML of the given version, rendering it once if no other request has done so yet. */
+    public String getHtml(UUID recipeId, long version, String markdown) {
+        return cache.get(new Key(recipeId, version), key -> markdownRenderer.render(markdown));
+    }
+}
@@ -0,0 +1,443 @@
+package net.lwenstrom.cooklion.recipe.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.common.exception.ConflictException;
+import net.lwenstrom.cooklion.common.model.TimeOrderedUuid;
+import net.lwenstrom.cooklion.recipe.dto.ImportReport;
+import net.lwenstrom.cooklion.recipe.dto.ImportedRecipe;
+import net.lwenstrom.cooklion.recipe.event.RecipesImportedEvent;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Streams recipes from JSON or CSV into the database without going through Hibernate. Rows are parsed one at a time
+ * and written in chunks, each chunk in its own transaction with one set-based statement per table. Since parsing only
+ * continues once the previous chunk is committed, memory stays bounded by the chunk size however large the input is;
+ * across chunks only a bounded cache of tag ids is kept.
+ *
+ * <p>Tags are matched by slug, or by name if a tag has that name under another slug, and created in bulk when missing.
+ * Recipes whose slug already exists, in the database or earlier in the input, are skipped, which makes re-running an
+ * interrupted import safe. Rows with values of the wrong type are rejected individually; only input that is not
+ * well-formed stops the import.
+ */
+@Slf4j
+@Service
+public class RecipeImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_TAG_LENGTH = 64;
+    private static final int MAX_CACHED_TAGS = 10_000;
+
+    private static final CsvMapper CSV_MAPPER =
+            CsvMapper.builder().enable(CsvParser.Feature.EMPTY_STRING_AS_NULL).build();
+    private static final CsvSchema CSV_SCHEMA =
+            CsvSchema.emptySchema().withHeader().withArrayElementSeparator("|");
+
+    // Names are unique as well; tags whose name is taken are resolved to the existing tag instead
+    private static final String INSERT_TAGS_SQL =
+            """
+            INSERT INTO tags (id, version, created_at, updated_at, name, slug)
+            SELECT t.id, 0, now(), now(), t.name, t.slug
+            FROM unnest(?::uuid[], ?::text[], ?::text[]) AS t(id, name, slug)
+            WHERE NOT EXISTS (SELECT 1 FROM tags x WHERE x.name = t.name)
+            ON CONFLICT (slug) DO NOTHING
+            """;
+
+    private static final String SELECT_TAGS_SQL =
+            "SELECT id, slug, name FROM tags WHERE slug = ANY(?::text[]) OR name = ANY(?::text[])";
+
+    private static final String SELECT_EXISTING_SLUGS_SQL = "SELECT slug FROM recipes WHERE slug = ANY(?::text[])";
+
+    // ON CONFLICT also covers slugs taken by concurrent writers after the existence check
+    private static final String INSERT_RECIPES_SQL =
+            """
+            INSERT INTO recipes (id, version, created_at, updated_at, author_id, title, slug, summary,
+                                 prep_time_minutes, cook_time_minutes, servings, visibility, instructions_markdown)
+            SELECT v.id, 0, now(), now(), ?, v.title, v.slug, v.summary, v.prep, v.cook, v.servings, v.visibility,
+                   v.instructions
+            FROM unnest(?::uuid[], ?::text[], ?::text[], ?::text[], ?::int[], ?::int[], ?::int[], ?::text[], ?::text[])
+                 AS v(id, title, slug, summary, prep, cook, servings, visibility, instructions)
+            ON CONFLICT (slug) DO NOTHING
+            RETURNING id
+            """;
+
+    private static final String INSERT_RECIPE_TAGS_SQL =
+            """
+            INSERT INTO recipe_tags (recipe_id, tag_id)
+            SELECT * FROM unnest(?::uuid[], ?::uuid[])
+            ON CONFLICT DO NOTHING
+            """;
+
+    public enum Format {
+        JSON,
+        CSV
+    }
+
+    /** @param tags tag names by slug */
+    private record Row(UUID id, int rowNumber, ImportedRecipe source, String slug, Map<String, String> tags) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReentrantLock importLock = new ReentrantLock();
+    private final Counter importedCounter;
+    private final Counter duplicateCounter;
+    private final Counter rejectedCounter;
+    private final int chunkSize;
+
+    public RecipeImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${app.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.importedCounter = rowCounter(meterRegistry, "imported");
+        this.duplicateCounter = rowCounter(meterRegistry, "duplicate");
+        this.rejectedCounter = rowCounter(meterRegistry, "rejected");
+    }
+
+    /**
+     * Imports all recipes of the input for the given author. Only one import runs at a time; concurrent calls fail
+     * with {@link ConflictException}.
+     */
+    public ImportReport importRecipes(InputStream input, Format format, UserIdentity author) {
+        if (!importLock.tryLock()) {
+            throw new ConflictException("Another import is running");
+        }
+        try {
+            return runImport(input, format, author);
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private ImportReport runImport(InputStream input, Format format, UserIdentity author) {
+        long started = System.nanoTime();
+        ImportState state = new ImportState();
+        boolean completed = true;
+
+        ObjectReader reader = switch (format) {
+            case JSON -> objectMapper.readerFor(ImportedRecipe.class);
+            case CSV -> CSV_MAPPER.readerFor(ImportedRecipe.class).with(CSV_SCHEMA);
+        };
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int rowNumber = 0;
+        try (MappingIterator<ImportedRecipe> rows = reader.readValues(input)) {
+            while (rows.hasNextValue()) {
+                rowNumber++;
+                ImportedRecipe recipe;
+                try {
+                    recipe = rows.nextValue();
+                } catch (JsonMappingException e) {
+                    // A value of the wrong type; the iterator skips the rest of the row and continues with the next
+                    reject(state, rowNumber, e.getOriginalMessage());
+                    continue;
+                }
+                Row row = toRow(recipe, rowNumber, state);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, author, state);
+                    chunk.clear();
+                    log.info("Recipe import progress: {} rows read, {} imported", rowNumber, state.imported);
+                }
+            }
+        } catch (IOException e) {
+            // Malformed input cannot be resynchronized reliably; keep what has been committed and report
+            completed = false;
+            state.error("Row " + (rowNumber + 1) + ": unreadable input, import stopped (" + e.getMessage() + ")");
+            log.warn("Recipe import stopped at row {}", rowNumber + 1, e);
+        }
+        if (completed && !chunk.isEmpty()) {
+            writeChunk(chunk, author, state);
+        }
+
+        if (state.imported > 0) {
+            eventPublisher.publishEvent(new RecipesImportedEvent(state.imported));
+        }
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info(
+                "Recipe import finished in {} ms: {} imported, {} duplicates, {} rejected",
+                durationMillis,
+                state.imported,
+                state.duplicates,
+                state.rejected);
+        return new ImportReport(
+                state.imported, state.duplicates, state.rejected, state.errors, completed, durationMillis);
+    }
+
+    private Row toRow(ImportedRecipe recipe, int rowNumber, ImportState state) {
+        String problem = validate(recipe);
+        if (problem != null) {
+            reject(state, rowNumber, problem);
+            return null;
+        }
+
+        // Duplicate slugs are left to the database, which skips them whether they are stored or in the same chunk
+        String slug = SlugGenerator.slugify(StringUtils.hasText(recipe.slug()) ? recipe.slug() : recipe.title());
+        Map<String, String> tags = new LinkedHashMap<>();
+        if (recipe.tags() != null) {
+            for (String tag : recipe.tags()) {
+                if (StringUtils.hasText(tag) && tag.strip().length() <= MAX_TAG_LENGTH) {
+                    tags.putIfAbsent(tagSlug(tag), tag.strip());
+                }
+            }
+        }
+        return new Row(TimeOrderedUuid.next(), rowNumber, recipe, slug, tags);
+    }
+
+    private void reject(ImportState state, int rowNumber, String problem) {
+        state.rejected++;
+        rejectedCounter.increment();
+        state.error("Row " + rowNumber + ": " + problem);
+    }
+
+    private static String validate(ImportedRecipe recipe) {
+        if (recipe == null || !StringUtils.hasText(recipe.title())) {
+            return "title is required";
+        }
+        if (recipe.title().length() > 140) {
+            return "title exceeds 140 characters";
+        }
+        if (recipe.summary() != null && recipe.summary().length() > 4096) {
+            return "summary exceeds 4096 characters";
+        }
+        if (recipe.instructionsMarkdown() != null && recipe.instructionsMarkdown().length() > 20000) {
+            return "instructions exceed 20000 characters";
+        }
+        if (isNegative(recipe.prepTimeMinutes())
+                || isNegative(recipe.cookTimeMinutes())
+                || isNegative(recipe.servings())) {
+            return "times and servings must not be negative";
+        }
+        return null;
+    }
+
+    private void writeChunk(List<Row> chunk, UserIdentity author, ImportState state) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> existingSlugs = new HashSet<>(jdbcTemplate.queryForList(
+                    SELECT_EXISTING_SLUGS_SQL,
+                    String.class,
+                    (Object) textArray(chunk.stream().map(Row::slug).toList())));
+            List<Row> fresh = chunk.stream()
+                    .filter(row -> !existingSlugs.contains(row.slug()))
+                    .toList();
+
+            Map<String, UUID> tagIds = resolveTags(fresh, state);
+            Set<UUID> inserted = insertRecipes(fresh, author);
+            insertRecipeTags(fresh, inserted, tagIds, state);
+
+            int duplicates = chunk.size() - inserted.size();
+            state.imported += inserted.size();
+            state.duplicates += duplicates;
+            importedCounter.increment(inserted.size());
+            duplicateCounter.increment(duplicates);
+        });
+    }
+
+    /**
+     * Returns the ids of the chunk's tags by slug. Tags not cached yet are created when missing and then loaded; both
+     * in one statement each. A tag whose name exists under a different slug resolves to that tag.
+     */
+    private Map<String, UUID> resolveTags(List<Row> rows, ImportState state) {
+        Map<String, UUID> resolved = new HashMap<>();
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (Row row : rows) {
+            row.tags().forEach((slug, name) -> {
+                UUID id = state.tagIds.get(slug);
+                if (id != null) {
+                    resolved.put(slug, id);
+                } else {
+                    missing.putIfAbsent(slug, name);
+                }
+            });
+        }
+        if (missing.isEmpty()) {
+            return resolved;
+        }
+
+        List<String> slugs = List.copyOf(missing.keySet());
+        Object[] ids = slugs.stream().map(slug -> TimeOrderedUuid.next()).toArray();
+        Object[] names = missing.values().toArray();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_TAGS_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", ids));
+            statement.setArray(2, connection.createArrayOf("text", names));
+            statement.setArray(3, connection.createArrayOf("text", slugs.toArray()));
+            return statement;
+        });
+        Map<String, UUID> bySlug = new HashMap<>();
+        Map<String, UUID> byName = new HashMap<>();
+        jdbcTemplate.query(
+                SELECT_TAGS_SQL,
+                rs -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    bySlug.put(rs.getString("slug"), id);
+                    byName.put(rs.getString("name"), id);
+                },
+                textArray(slugs),
+                missing.values().toArray(String[]::new));
+        missing.forEach((slug, name) -> {
+            UUID id = bySlug.containsKey(slug) ? bySlug.get(slug) : byName.get(name);
+            // Missing only if a concurrent writer took the name after the insert checked it
+            if (id != null) {
+                resolved.put(slug, id);
+                state.tagIds.put(slug, id);
+            }
+        });
+        return resolved;
+    }
+
+    private Set<UUID> insertRecipes(List<Row> rows, UserIdentity author) {
+        if (rows.isEmpty()) {
+            return Set.of();
+        }
+        List<UUID> ids = jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(INSERT_RECIPES_SQL);
+                    statement.setObject(1, author.id());
+                    statement.setArray(2, connection.createArrayOf("uuid", column(rows, Row::id)));
+                    statement.setArray(3, textArray(connection, rows, row -> row.source().title()));
+                    statement.setArray(4, textArray(connection, rows, Row::slug));
+                    statement.setArray(5, textArray(connection, rows, row -> row.source().summary()));
+                    statement.setArray(6, intArray(connection, rows, row -> row.source().prepTimeMinutes()));
+                    statement.setArray(7, intArray(connection, rows, row -> row.source().cookTimeMinutes()));
+                    statement.setArray(8, intArray(connection, rows, row -> row.source().servings()));
+                    statement.setArray(9, textArray(connection, rows, RecipeImportService::visibility));
+                    statement.setArray(10, textArray(connection, rows, row -> row.source().instructionsMarkdown()));
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getObject("id", UUID.class));
+        return new HashSet<>(ids);
+    }
+
+    private void insertRecipeTags(
+            List<Row> rows, Set<UUID> insertedIds, Map<String, UUID> tagIdsBySlug, ImportState state) {
+        List<UUID> recipeIds = new ArrayList<>();
+        List<UUID> tagIds = new ArrayList<>();
+        for (Row row : rows) {
+            if (!insertedIds.contains(row.id())) {
+                continue;
+            }
+            row.tags().forEach((tagSlug, tagName) -> {
+                UUID tagId = tagIdsBySlug.get(tagSlug);
+                if (tagId != null) {
+                    recipeIds.add(row.id());
+                    tagIds.add(tagId);
+                } else {
+                    state.error("Row " + row.rowNumber() + ": imported without tag '" + tagName + "'");
+                }
+            });
+        }
+        if (recipeIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_RECIPE_TAGS_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", recipeIds.toArray()));
+            statement.setArray(2, connection.createArrayOf("uuid", tagIds.toArray()));
+            return statement;
+        });
+    }
+
+    private static String visibility(Row row) {
+        RecipeVisibility visibility = row.source().visibility();
+        return (visibility != null ? visibility : RecipeVisibility.PRIVATE).name();
+    }
+
+    private static String tagSlug(String name) {
+        String slug = SlugGenerator.slugify(name);
+        return slug.length() > MAX_TAG_LENGTH ? slug.substring(0, MAX_TAG_LENGTH) : slug;
+    }
+
+    private static boolean isNegative(Integer value) {
+        return value != null && value < 0;
+    }
+
+    private static Object[] column(List<Row> rows, Function<Row, Object> getter) {
+        return rows.stream().map(getter).toArray();
+    }
+
+    private static Array intArray(Connection connection, List<Row> rows, Function<Row, Integer> getter)
+            throws SQLException {
+        return connection.createArrayOf("int4", rows.stream().map(getter).toArray(Integer[]::new));
+    }
+
+    private static Array textArray(Connection connection, List<Row> rows, Function<Row, String> getter)
+            throws SQLException {
+        return connection.createArrayOf("text", rows.stream().map(getter).toArray(String[]::new));
+    }
+
+    private static String[] textArray(List<String> values) {
+        return values.toArray(String[]::new);
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("recipes.import.rows")
+                .description("Rows processed by bulk recipe imports")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /** Mutable bookkeeping of one import; only touched by the importing thread. */
+    private static final class ImportState {
+
+        // Least recently used tags are forgotten and looked up again when they recur
+        private final Map<String, UUID> tagIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+                return size() > MAX_CACHED_TAGS;
+            }
+        };
+        private final List<String> errors = new ArrayList<>();
+        private int imported;
+        private int duplicates;
+        private int rejected;
+
+        void error(String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package net.lwenstrom.cooklion.recipe.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.common.pagination.CursorPage;
+import net.lwenstrom.cooklion.common.pagination.KeysetCursor;
+import net.lwenstrom.cooklion.recipe.dto.RecipeSummary;
+import net.lwenstrom.cooklion.recipe.dto.SimilarRecipe;
+import net.lwenstrom.cooklion.recipe.dto.TagFilterPage;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import net.lwenstrom.cooklion.recipe.repository.RecipeRepository;
+import net.lwenstrom.cooklion.recipe.search.RecipeSimilarityService;
+import net.lwenstrom.cooklion.recipe.search.SimilarRecipeResult;
+import net.lwenstrom.cooklion.recipe.search.TagFilter;
+import net.lwenstrom.cooklion.recipe.search.TagFilterResult;
+import net.lwenstrom.cooklion.recipe.search.TagFilterService;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Read side for recipe listings. Pages are newest first and addressed by keyset cursors instead of offsets. */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class RecipeQueryService {
+
+    private final RecipeRepository recipeRepository;
+    private final TagFilterService tagFilterService;
+    private final RecipeSimilarityService recipeSimilarityService;
+
+    public CursorPage<RecipeSummary> publicFeed(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        // One extra row tells whether a next page exists without a count query
+        Limit fetch = Limit.of(limit + 1);
+        List<RecipeSummary> rows = after == null
+                ? recipeRepository.findSummariesByVisibility(RecipeVisibility.PUBLIC, fetch)
+                : recipeRepository.findSummariesByVisibilityBefore(
+                        RecipeVisibility.PUBLIC, after.createdAt(), after.id(), fetch);
+        return CursorPage.of(rows, limit, RecipeSummary::cursor);
+    }
+
+    public CursorPage<RecipeSummary> recipesOf(UUID authorId, String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit fetch = Limit.of(limit + 1);
+        List<RecipeSummary> rows = after == null
+                ? recipeRepository.findSummariesByAuthor(authorId, fetch)
+                : recipeRepository.findSummariesByAuthorBefore(authorId, after.createdAt(), after.id(), fetch);
+        return CursorPage.of(rows, limit, RecipeSummary::cursor);
+    }
+
+    /** Filters by tags in memory and loads summaries only for the page being returned. */
+    public TagFilterPage byTags(TagFilter filter, UUID viewerId, int limit) {
+        TagFilterResult result = tagFilterService.filter(filter, viewerId, limit);
+        if (result.recipeIds().isEmpty()) {
+            return new TagFilterPage(result.total(), List.of(), result.tagCounts());
+        }
+        Map<UUID, RecipeSummary> summaries = recipeRepository.findSummariesByIdIn(result.recipeIds()).stream()
+                .collect(Collectors.toMap(RecipeSummary::id, Function.identity()));
+        // Keep the index order; recipes deleted since the filter ran are skipped
+        List<RecipeSummary> recipes = result.recipeIds().stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new TagFilterPage(result.total(), recipes, result.tagCounts());
+    }
+
+    /**
+     * Recipes similar to one the viewer may read, most similar first. The neighbours come from the in-memory
+     * similarity index; only their summaries are loaded.
+     */
+    public List<SimilarRecipe> similarTo(UUID recipeId, UUID viewerId, int limit) {
+        recipeRepository
+                .findVersionStampById(recipeId)
+                .filter(stamp -> stamp.isVisibleTo(viewerId))
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe", recipeId));
+        List<SimilarRecipeResult> neighbours = recipeSimilarityService.similarTo(recipeId, viewerId, limit);
+        if (neighbours.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, RecipeSummary> summaries =
+                recipeRepository
+                        .findSummariesByIdIn(neighbours.stream().map(SimilarRecipeResult::id).toList())
+                        .stream()
+                        .collect(Collectors.toMap(RecipeSummary::id, Function.identity()));
+        return neighbours.stream()
+                .filter(neighbour -> summaries.containsKey(neighbour.id()))
+                .map(neighbour -> new SimilarRecipe(summaries.get(neighbour.id()), neighbour.similarity()))
+                .toList();
+    }
+}
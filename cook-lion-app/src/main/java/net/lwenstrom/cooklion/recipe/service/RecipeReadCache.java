@@ -0,0 +1,46 @@
+package net.lwenstrom.cooklion.recipe.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.UUID;
+import net.lwenstrom.cooklion.recipe.dto.RecipeDetail;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of rendered {@link RecipeDetail}s keyed by {@code (id, version)}. A key never goes stale: an update produces a
+ * new version and therefore a new key, so no invalidation is needed across instances. Superseded versions are no
+ * longer requested and age out through size-based eviction and the access timeout.
+ */
+@Component
+public class RecipeReadCache {
+
+    private final Cache<Key, RecipeDetail> cache;
+
+    private record Key(UUID id, long version) {}
+
+    public RecipeReadCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.recipes.maximum-size:5000}") long maximumSize,
+            @Value("${app.cache.recipes.ttl:PT30M}") Duration ttl) {
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterAccess(ttl)
+                        .recordStats()
+                        .build(),
+                "recipes.detail");
+    }
+
+    public RecipeDetail get(UUID id, long version) {
+        return cache.getIfPresent(new Key(id, version));
+    }
+
+    public void put(RecipeDetail detail) {
+        cache.put(new Key(detail.id(), detail.version()), detail);
+    }
+}
@@ -0,0 +1,68 @@
+package net.lwenstrom.cooklion.recipe.service;
+
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.recipe.dto.RecipeDetail;
+import net.lwenstrom.cooklion.recipe.dto.RecipeVersionStamp;
+import net.lwenstrom.cooklion.recipe.model.Recipe;
+import net.lwenstrom.cooklion.recipe.repository.RecipeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Single-recipe reads in two steps: a version probe that reads a few columns of one row, then the detail, served from
+ * {@link RecipeReadCache} when that version has been rendered before. Conditional requests that match the version end
+ * after the probe.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeReadService {
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeReadCache recipeReadCache;
+    private final RecipeHtmlCache recipeHtmlCache;
+
+    /**
+     * Returns the current version of a recipe the viewer may read. Recipes the viewer may not see are reported as
+     * missing, so their existence does not leak.
+     *
+     * @param viewerId the requesting user, or {@code null} for anonymous requests
+     */
+    @Transactional(readOnly = true)
+    public RecipeVersionStamp findVisibleVersion(UUID recipeId, UUID viewerId) {
+        return recipeRepository
+                .findVersionStampById(recipeId)
+                .filter(stamp -> stamp.isVisibleTo(viewerId))
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe", recipeId));
+    }
+
+    /**
+     * Returns the detail of the given version, or of a newer one if the recipe changed since the probe. Callers must
+     * take the version for their response from the returned detail.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public RecipeDetail getDetail(RecipeVersionStamp stamp, UUID viewerId) {
+        RecipeDetail cached = recipeReadCache.get(stamp.id(), stamp.version());
+        if (cached != null) {
+            return cached;
+        }
+
+        RecipeDetail detail = recipeRepository
+                .findDetailedById(stamp.id())
+                .map(this::toDetail)
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe", stamp.id()));
+        // Cached under the version actually loaded, which may be newer than the probed one
+        recipeReadCache.put(detail);
+        if (detail.version() != stamp.version() && !detail.toVersionStamp().isVisibleTo(viewerId)) {
+            throw new ResourceNotFoundException("Recipe", stamp.id());
+        }
+        return detail;
+    }
+
+    private RecipeDetail toDetail(Recipe recipe) {
+        String html = recipeHtmlCache.getHtml(recipe.getId(), recipe.getVersion(), recipe.getInstructionsMarkdown());
+        return RecipeDetail.of(recipe, html);
+    }
+}
@@ -0,0 +1,146 @@
+package net.lwenstrom.cooklion.recipe.service;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.auth.model.Role;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.service.UserAccountService;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.common.exception.ResourceNotFoundException;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListDelta;
+import net.lwenstrom.cooklion.grocery.event.GroceryListChangedEvent;
+import net.lwenstrom.cooklion.mealplan.event.MealPlanChangedEvent;
+import net.lwenstrom.cooklion.recipe.dto.RecipeRequest;
+import net.lwenstrom.cooklion.recipe.event.RecipeChangedEvent;
+import net.lwenstrom.cooklion.recipe.event.RecipeSnapshot;
+import net.lwenstrom.cooklion.recipe.model.Recipe;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import net.lwenstrom.cooklion.recipe.model.Tag;
+import net.lwenstrom.cooklion.recipe.repository.RecipeRepository;
+import net.lwenstrom.cooklion.recipe.repository.TagRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+/**
+ * Write path for recipes. Every change publishes a {@link RecipeChangedEvent} carrying a snapshot of the flushed
+ * state, which keeps derived in-memory structures in sync.
+ *
+ * <p>Deleting a recipe detaches the meal plan entries and grocery items pointing to it instead of failing: entries keep
+ * their slot and note, items were copied from the recipe and stay on their lists.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class RecipeService {
+
+    // Versions move on so synced clients pick up the detached rows
+    private static final String DETACH_MEAL_PLAN_ENTRIES_SQL =
+            """
+            UPDATE meal_plan_entries t
+            SET recipe_id = NULL, version = t.version + 1, updated_at = now()
+            FROM meal_plans p
+            WHERE t.recipe_id = ? AND p.id = t.meal_plan_id
+            RETURNING p.id, p.user_id
+            """;
+
+    private static final String DETACH_GROCERY_ITEMS_SQL =
+            """
+            UPDATE grocery_items
+            SET recipe_id = NULL, version = version + 1, updated_at = now()
+            WHERE recipe_id = ?
+            RETURNING grocery_list_id
+            """;
+
+    private final RecipeRepository recipeRepository;
+    private final TagRepository tagRepository;
+    private final UserAccountService userAccountService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public Recipe create(UserIdentity author, RecipeRequest request) {
+        Recipe recipe = new Recipe();
+        recipe.setAuthor(userAccountService.getReference(author.id()));
+        recipe.setSlug(uniqueSlug(StringUtils.hasText(request.slug()) ? request.slug() : request.title()));
+        apply(recipe, request);
+
+        // Flush so the snapshot carries the generated id, version and timestamps
+        Recipe savedRecipe = recipeRepository.saveAndFlush(recipe);
+        eventPublisher.publishEvent(RecipeChangedEvent.saved(RecipeSnapshot.of(savedRecipe)));
+        log.debug("Created recipe {} for user {}", savedRecipe.getId(), author.username());
+        return savedRecipe;
+    }
+
+    public Recipe update(UUID recipeId, UserIdentity actor, RecipeRequest request) {
+        Recipe recipe = findEditable(recipeId, actor);
+        if (StringUtils.hasText(request.slug()) && !request.slug().equals(recipe.getSlug())) {
+            recipe.setSlug(uniqueSlug(request.slug()));
+        }
+        apply(recipe, request);
+
+        Recipe savedRecipe = recipeRepository.saveAndFlush(recipe);
+        eventPublisher.publishEvent(RecipeChangedEvent.saved(RecipeSnapshot.of(savedRecipe)));
+        return savedRecipe;
+    }
+
+    public void delete(UUID recipeId, UserIdentity actor) {
+        Recipe recipe = findEditable(recipeId, actor);
+        List<MealPlanChangedEvent> changedPlans = jdbcTemplate.query(
+                DETACH_MEAL_PLAN_ENTRIES_SQL,
+                (rs, rowNum) -> new MealPlanChangedEvent(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)),
+                recipeId);
+        List<UUID> changedLists =
+                jdbcTemplate.query(DETACH_GROCERY_ITEMS_SQL, (rs, rowNum) -> rs.getObject(1, UUID.class), recipeId);
+        recipeRepository.delete(recipe);
+
+        eventPublisher.publishEvent(RecipeChangedEvent.deleted(recipeId));
+        new LinkedHashSet<>(changedPlans).forEach(eventPublisher::publishEvent);
+        new LinkedHashSet<>(changedLists)
+                .forEach(listId ->
+                        eventPublisher.publishEvent(new GroceryListChangedEvent(listId, GroceryListDelta.resync())));
+    }
+
+    private Recipe findEditable(UUID recipeId, UserIdentity actor) {
+        Recipe recipe = recipeRepository
+                .findById(recipeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe", recipeId));
+        if (!recipe.getAuthor().getId().equals(actor.id()) && !actor.roles().contains(Role.ADMIN)) {
+            throw new AccessDeniedException("Recipe " + recipeId + " belongs to another user");
+        }
+        return recipe;
+    }
+
+    private void apply(Recipe recipe, RecipeRequest request) {
+        recipe.setTitle(request.title());
+        recipe.setSummary(request.summary());
+        recipe.setPrepTimeMinutes(request.prepTimeMinutes());
+        recipe.setCookTimeMinutes(request.cookTimeMinutes());
+        recipe.setServings(request.servings());
+        recipe.setVisibility(request.visibility() != null ? request.visibility() : RecipeVisibility.PRIVATE);
+        recipe.setInstructionsMarkdown(request.instructionsMarkdown());
+
+        Set<UUID> tagIds = request.tagIds() != null ? request.tagIds() : Set.of();
+        List<Tag> tags = tagRepository.findAllById(tagIds);
+        if (tags.size() != tagIds.size()) {
+            throw new BadRequestException("Unknown tag ids in request");
+        }
+        recipe.setTags(new HashSet<>(tags));
+    }
+
+    private String uniqueSlug(String source) {
+        String slug = SlugGenerator.slugify(source);
+        while (recipeRepository.existsBySlug(slug)) {
+            slug = SlugGenerator.withRandomSuffix(SlugGenerator.slugify(source));
+        }
+        return slug;
+    }
+}
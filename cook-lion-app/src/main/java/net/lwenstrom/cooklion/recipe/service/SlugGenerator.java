@@ -0,0 +1,30 @@
+package net.lwenstrom.cooklion.recipe.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class SlugGenerator {
+
+    // Leaves room for the random suffix within the 160 characters of the slug column
+    private static final int MAX_BASE_LENGTH = 153;
+
+    private SlugGenerator() {}
+
+    /** Slugifies a title: {@code Crème Brûlée (Classic)} -> {@code creme-brulee-classic}. */
+    public static String slugify(String text) {
+        String ascii = Normalizer.normalize(text.replace("ß", "ss"), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        String slug = ascii.replaceAll("[^a-z0-9]+", "-").replaceAll("(^-+|-+$)", "");
+        if (slug.isEmpty()) {
+            slug = "recipe";
+        }
+        return slug.length() > MAX_BASE_LENGTH ? slug.substring(0, MAX_BASE_LENGTH) : slug;
+    }
+
+    /** Appends a short random suffix, used when the plain slug is already taken. */
+    public static String withRandomSuffix(String slug) {
+        return slug + "-" + Integer.toString(ThreadLocalRandom.current().nextInt(0x100000, 0x1000000), 16);
+    }
+}
@@ -0,0 +1,51 @@
+package net.lwenstrom.cooklion.sync.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import net.lwenstrom.cooklion.auth.model.UserIdentity;
+import net.lwenstrom.cooklion.auth.web.CurrentUser;
+import net.lwenstrom.cooklion.common.persistence.StatementBudget;
+import net.lwenstrom.cooklion.sync.dto.SyncChanges;
+import net.lwenstrom.cooklion.sync.dto.SyncMutationResult;
+import net.lwenstrom.cooklion.sync.dto.SyncMutationsRequest;
+import net.lwenstrom.cooklion.sync.service.SyncFeedService;
+import net.lwenstrom.cooklion.sync.service.SyncMutationService;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/** Incremental sync of grocery lists and meal plans for clients that keep a local copy. */
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Validated
+public class SyncController {
+
+    private final SyncFeedService syncFeedService;
+    private final SyncMutationService syncMutationService;
+
+    /** The rows changed since the cursor; without one, all of the user's rows. */
+    @GetMapping("/changes")
+    @StatementBudget(1)
+    public SyncChanges changes(
+            @CurrentUser UserIdentity user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") @Min(1) @Max(2000) int limit) {
+        return syncFeedService.changes(user.id(), cursor, limit);
+    }
+
+    /** Applies offline changes; conflicts are reported per row instead of failing the batch. */
+    @PostMapping("/mutations")
+    @StatementBudget(1)
+    public List<SyncMutationResult> mutate(
+            @CurrentUser UserIdentity user, @Valid @RequestBody SyncMutationsRequest request) {
+        return syncMutationService.apply(user.id(), request.mutations());
+    }
+}
@@ -0,0 +1,24 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.util.UUID;
+
+/**
+ * A grocery item as synced. In mutations the list is only read when the item is created; positions are assigned by
+ * the server and changed through the reorder endpoint.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GroceryItemRow(
+        UUID id,
+        UUID groceryListId,
+        @NotBlank @Size(max = 140) String name,
+        @Size(max = 64) String quantity,
+        @Size(max = 64) String category,
+        boolean checked,
+        int position,
+        @Size(max = 255) String notes,
+        UUID sourceRecipeId,
+        long version)
+        implements SyncRow {}
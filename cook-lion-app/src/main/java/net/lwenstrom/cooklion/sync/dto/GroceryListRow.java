@@ -0,0 +1,18 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.model.GroceryListStatus;
+
+/** A grocery list as synced, without its items; in mutations only the title and status are applied. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GroceryListRow(
+        UUID id,
+        UUID mealPlanId,
+        @NotBlank @Size(max = 140) String title,
+        @NotNull GroceryListStatus status,
+        long version)
+        implements SyncRow {}
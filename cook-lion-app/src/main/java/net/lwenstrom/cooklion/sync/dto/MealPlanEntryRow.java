@@ -0,0 +1,20 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.UUID;
+import net.lwenstrom.cooklion.mealplan.model.MealType;
+
+/** A meal plan entry as synced; in mutations the plan is only read when the entry is created. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MealPlanEntryRow(
+        UUID id,
+        UUID mealPlanId,
+        @NotNull LocalDate date,
+        @NotNull MealType mealType,
+        UUID recipeId,
+        @Size(max = 1024) String note,
+        long version)
+        implements SyncRow {}
@@ -0,0 +1,21 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A meal plan as synced, without its entries. In mutations only the title and the active flag are applied; the dates
+ * move with the shift endpoint, which moves the entries along.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MealPlanRow(
+        UUID id,
+        @NotBlank @Size(max = 140) String title,
+        LocalDate startDate,
+        LocalDate endDate,
+        boolean active,
+        long version)
+        implements SyncRow {}
@@ -0,0 +1,28 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * One page of the rows changed since a client's cursor. Changed rows are complete, so clients replace their copy;
+ * a row may appear again on a later page if it changed in between.
+ *
+ * @param cursor where to continue, also on the last page; clients store it and pass it with their next sync
+ * @param hasMore whether another page is available right away
+ * @param reset the cursor is older than the retained deletions; the client has to drop its copy and sync from scratch
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record SyncChanges(
+        List<GroceryListRow> groceryLists,
+        List<GroceryItemRow> groceryItems,
+        List<MealPlanRow> mealPlans,
+        List<MealPlanEntryRow> mealPlanEntries,
+        List<TombstoneRow> deleted,
+        String cursor,
+        boolean hasMore,
+        boolean reset) {
+
+    public static SyncChanges resetRequired() {
+        return new SyncChanges(List.of(), List.of(), List.of(), List.of(), List.of(), null, false, true);
+    }
+}
@@ -0,0 +1,31 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import java.util.UUID;
+import net.lwenstrom.cooklion.sync.model.SyncEntityType;
+
+/**
+ * A change a client made offline. An upsert without a base version creates the row with the client's id; with one it
+ * overwrites the row if it is still at that version. A delete without a base version removes the row in any version.
+ * Upserts carry the row in the field matching their type.
+ */
+public record SyncMutation(
+        @NotNull SyncEntityType type,
+        @NotNull Operation operation,
+        @NotNull UUID id,
+        Long baseVersion,
+        @Valid GroceryListRow groceryList,
+        @Valid GroceryItemRow groceryItem,
+        @Valid MealPlanRow mealPlan,
+        @Valid MealPlanEntryRow mealPlanEntry) {
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+
+    public boolean isCreate() {
+        return operation == Operation.UPSERT && baseVersion == null;
+    }
+}
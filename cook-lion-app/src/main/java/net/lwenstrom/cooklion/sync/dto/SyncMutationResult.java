@@ -0,0 +1,64 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.UUID;
+import net.lwenstrom.cooklion.sync.model.SyncEntityType;
+
+/**
+ * The outcome of one mutation. A conflict carries the server's current row, so the client can merge its change into
+ * it and retry with the new base version.
+ *
+ * @param version the row's version after the mutation, for applied upserts
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SyncMutationResult(
+        UUID id,
+        SyncEntityType type,
+        Outcome outcome,
+        Long version,
+        String message,
+        GroceryListRow groceryList,
+        GroceryItemRow groceryItem,
+        MealPlanRow mealPlan,
+        MealPlanEntryRow mealPlanEntry) {
+
+    public enum Outcome {
+        APPLIED,
+        /** The row changed since the base version, or a created row already exists. */
+        CONFLICT,
+        /** The row was deleted or never existed. */
+        NOT_FOUND,
+        /** The mutation is invalid, e.g. its parent is unknown or a date lies outside the plan. */
+        REJECTED
+    }
+
+    public static SyncMutationResult applied(SyncMutation mutation, Long version) {
+        return of(mutation, Outcome.APPLIED, version, null, null);
+    }
+
+    public static SyncMutationResult conflict(SyncMutation mutation, Object current) {
+        return of(mutation, Outcome.CONFLICT, null, null, current);
+    }
+
+    public static SyncMutationResult notFound(SyncMutation mutation) {
+        return of(mutation, Outcome.NOT_FOUND, null, null, null);
+    }
+
+    public static SyncMutationResult rejected(SyncMutation mutation, String message) {
+        return of(mutation, Outcome.REJECTED, null, message, null);
+    }
+
+    private static SyncMutationResult of(
+            SyncMutation mutation, Outcome outcome, Long version, String message, Object current) {
+        return new SyncMutationResult(
+                mutation.id(),
+                mutation.type(),
+                outcome,
+                version,
+                message,
+                current instanceof GroceryListRow row ? row : null,
+                current instanceof GroceryItemRow row ? row : null,
+                current instanceof MealPlanRow row ? row : null,
+                current instanceof MealPlanEntryRow row ? row : null);
+    }
+}
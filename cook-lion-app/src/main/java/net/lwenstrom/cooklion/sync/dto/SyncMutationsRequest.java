@@ -0,0 +1,8 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record SyncMutationsRequest(@NotNull @Size(max = 500) List<@Valid @NotNull SyncMutation> mutations) {}
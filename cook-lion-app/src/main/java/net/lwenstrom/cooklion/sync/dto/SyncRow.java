@@ -0,0 +1,11 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import java.util.UUID;
+
+/** A synced row; clients keep the version to base their offline changes on. */
+public interface SyncRow {
+
+    UUID id();
+
+    long version();
+}
@@ -0,0 +1,7 @@
+package net.lwenstrom.cooklion.sync.dto;
+
+import java.util.UUID;
+import net.lwenstrom.cooklion.sync.model.SyncEntityType;
+
+/** A deleted row the client should drop. */
+public record TombstoneRow(SyncEntityType type, UUID id) {}
@@ -0,0 +1,9 @@
+package net.lwenstrom.cooklion.sync.model;
+
+/** The entities offline clients keep a copy of. */
+public enum SyncEntityType {
+    GROCERY_LIST,
+    GROCERY_ITEM,
+    MEAL_PLAN,
+    MEAL_PLAN_ENTRY
+}
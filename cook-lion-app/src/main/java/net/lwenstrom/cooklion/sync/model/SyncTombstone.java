@@ -0,0 +1,47 @@
+package net.lwenstrom.cooklion.sync.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.lwenstrom.cooklion.auth.model.UserAccount;
+import net.lwenstrom.cooklion.common.model.AbstractAuditableEntity;
+
+/**
+ * Records the deletion of a synced row, so clients syncing later learn to drop their copy. Its {@code updatedAt} is
+ * the time of the deletion and orders it among the changed rows. Every delete of a {@link SyncEntityType} row has to
+ * insert one in the same transaction; tombstones older than the retention are purged, and clients that last synced
+ * before that start over.
+ */
+@Getter
+@Setter
+@ToString(exclude = "user")
+@Entity
+@Table(
+        name = "sync_tombstones",
+        indexes = {
+            @Index(name = "idx_sync_tombstones_user_updated", columnList = "user_id, updated_at"),
+            @Index(name = "idx_sync_tombstones_updated", columnList = "updated_at")
+        })
+public class SyncTombstone extends AbstractAuditableEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private UserAccount user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private SyncEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private UUID entityId;
+}
@@ -0,0 +1,60 @@
+package net.lwenstrom.cooklion.sync.service;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+
+/**
+ * Position in the sync feed, which is ordered by {@code (updatedAt, id)} across all synced tables: the sort key of
+ * the last change a client has received. Encoded like {@code KeysetCursor}.
+ */
+record SyncCursor(Instant updatedAt, UUID id) implements Comparable<SyncCursor> {
+
+    /** Before every row; the cursor of a client that has nothing yet. */
+    static final SyncCursor START = new SyncCursor(Instant.EPOCH, new UUID(0, 0));
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(updatedAt.getEpochSecond())
+                .putInt(updatedAt.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /** Returns {@code null} for a missing cursor, meaning a full sync. */
+    static SyncCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != ENCODED_BYTES) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Instant updatedAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            return new SyncCursor(updatedAt, new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /** Orders like PostgreSQL, which compares UUIDs as unsigned bytes, unlike {@link UUID#compareTo}. */
+    @Override
+    public int compareTo(SyncCursor other) {
+        int byTime = updatedAt.compareTo(other.updatedAt);
+        if (byTime != 0) {
+            return byTime;
+        }
+        int byHigh = Long.compareUnsigned(id.getMostSignificantBits(), other.id.getMostSignificantBits());
+        return byHigh != 0
+                ? byHigh
+                : Long.compareUnsigned(id.getLeastSignificantBits(), other.id.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,114 @@
+package net.lwenstrom.cooklion.sync.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.sync.dto.GroceryItemRow;
+import net.lwenstrom.cooklion.sync.dto.GroceryListRow;
+import net.lwenstrom.cooklion.sync.dto.MealPlanEntryRow;
+import net.lwenstrom.cooklion.sync.dto.MealPlanRow;
+import net.lwenstrom.cooklion.sync.dto.SyncChanges;
+import net.lwenstrom.cooklion.sync.dto.TombstoneRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Serves the rows of a user changed since a client's cursor, so reconnecting clients download only what changed.
+ * Grocery lists, items, meal plans, entries and deletions share one feed ordered by {@code (updatedAt, id)}; a page
+ * reads at most {@code limit + 1} rows per table through the owner's {@code updated_at} index and keeps the first ones
+ * across all tables.
+ *
+ * <p>{@code updated_at} is set when a transaction writes, not when it commits, so a slow transaction can commit rows
+ * older than ones already served. The feed therefore stops short of the present by the settle time, which has to
+ * exceed the longest write transaction.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+public class SyncFeedService {
+
+    private static final String NOW_SQL = "SELECT statement_timestamp()";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM sync_tombstones WHERE updated_at < statement_timestamp() - make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration settleTime;
+    private final Duration tombstoneRetention;
+
+    public SyncFeedService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.sync.settle-time:PT5S}") Duration settleTime,
+            @Value("${app.sync.tombstone-retention:P30D}") Duration tombstoneRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settleTime = settleTime;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /** @param cursor the cursor of the client's last page, null for a full sync */
+    public SyncChanges changes(UUID userId, String cursor, int limit) {
+        SyncCursor since = SyncCursor.decode(cursor);
+        // The database clock, which also stamped most of the rows
+        Instant now = jdbcTemplate.queryForObject(NOW_SQL, Timestamp.class).toInstant();
+        if (since != null && since.updatedAt().isBefore(now.minus(tombstoneRetention))) {
+            return SyncChanges.resetRequired();
+        }
+        SyncCursor after = since != null ? since : SyncCursor.START;
+        Instant horizon = now.minus(settleTime);
+        if (!after.updatedAt().isBefore(horizon)) {
+            return new SyncChanges(List.of(), List.of(), List.of(), List.of(), List.of(), after.encode(), false, false);
+        }
+
+        List<SyncTable.Change<?>> changes = new ArrayList<>();
+        changes.addAll(SyncTable.GROCERY_LISTS.changedSince(jdbcTemplate, userId, after, horizon, limit + 1));
+        changes.addAll(SyncTable.GROCERY_ITEMS.changedSince(jdbcTemplate, userId, after, horizon, limit + 1));
+        changes.addAll(SyncTable.MEAL_PLANS.changedSince(jdbcTemplate, userId, after, horizon, limit + 1));
+        changes.addAll(SyncTable.MEAL_PLAN_ENTRIES.changedSince(jdbcTemplate, userId, after, horizon, limit + 1));
+        if (since != null) {
+            // A client starting from scratch has nothing to drop
+            changes.addAll(SyncTable.TOMBSTONES.changedSince(jdbcTemplate, userId, after, horizon, limit + 1));
+        }
+        changes.sort(Comparator.comparing((SyncTable.Change<?> change) -> change.position()));
+
+        // Rows of other tables beyond the last one kept come again on the next page
+        boolean hasMore = changes.size() > limit;
+        List<SyncTable.Change<?>> page = hasMore ? changes.subList(0, limit) : changes;
+        SyncCursor next = hasMore ? page.getLast().position() : new SyncCursor(horizon, SyncCursor.START.id());
+
+        List<GroceryListRow> groceryLists = new ArrayList<>();
+        List<GroceryItemRow> groceryItems = new ArrayList<>();
+        List<MealPlanRow> mealPlans = new ArrayList<>();
+        List<MealPlanEntryRow> mealPlanEntries = new ArrayList<>();
+        List<TombstoneRow> deleted = new ArrayList<>();
+        for (SyncTable.Change<?> change : page) {
+            switch (change.row()) {
+                case GroceryListRow row -> groceryLists.add(row);
+                case GroceryItemRow row -> groceryItems.add(row);
+                case MealPlanRow row -> mealPlans.add(row);
+                case MealPlanEntryRow row -> mealPlanEntries.add(row);
+                case TombstoneRow row -> deleted.add(row);
+                default -> throw new IllegalStateException("Unexpected sync row " + change.row());
+            }
+        }
+        return new SyncChanges(
+                groceryLists, groceryItems, mealPlans, mealPlanEntries, deleted, next.encode(), hasMore, false);
+    }
+
+    @Scheduled(fixedDelayString = "${app.sync.purge-interval:PT1H}")
+    @Transactional
+    public void purgeTombstones() {
+        int purged = jdbcTemplate.update(PURGE_SQL, tombstoneRetention.toSeconds());
+        if (purged > 0) {
+            log.info("Purged {} sync tombstones older than {}", purged, tombstoneRetention);
+        }
+    }
+}
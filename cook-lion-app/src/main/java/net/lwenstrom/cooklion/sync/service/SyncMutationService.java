@@ -0,0 +1,505 @@
+package net.lwenstrom.cooklion.sync.service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lwenstrom.cooklion.common.exception.BadRequestException;
+import net.lwenstrom.cooklion.common.model.TimeOrderedUuid;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListDelta;
+import net.lwenstrom.cooklion.grocery.event.GroceryListChangedEvent;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import net.lwenstrom.cooklion.grocery.service.GroceryItemPositionService;
+import net.lwenstrom.cooklion.mealplan.event.MealPlanChangedEvent;
+import net.lwenstrom.cooklion.sync.dto.SyncMutation;
+import net.lwenstrom.cooklion.sync.dto.SyncMutationResult;
+import net.lwenstrom.cooklion.sync.dto.SyncRow;
+import net.lwenstrom.cooklion.sync.model.SyncEntityType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Applies a batch of offline changes with set-based SQL: per table at most one INSERT, one UPDATE and one DELETE for
+ * the whole batch, each guarded by the rows' base versions and their owner. Rows a statement did not write are looked
+ * up afterwards with one query per table to tell conflicts from missing or invalid rows, so one stale row never fails
+ * the others.
+ *
+ * <p>Offline clients edit and delete items and entries and create new ones; lists and plans are only renamed or
+ * (de)activated, their creation and deletion stay with the dedicated endpoints.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class SyncMutationService {
+
+    private static final String OWNED_LISTS_SQL =
+            "SELECT id FROM grocery_lists WHERE id = ANY(?::uuid[]) AND user_id = ?";
+
+    private static final String UPDATE_LISTS_SQL =
+            """
+            UPDATE grocery_lists t
+            SET title = u.title, status = u.status, version = t.version + 1, updated_at = now()
+            FROM unnest(?::uuid[], ?::bigint[], ?::text[], ?::int[]) AS u(id, base_version, title, status)
+            WHERE t.id = u.id AND t.version = u.base_version AND t.user_id = ?
+            RETURNING t.id, t.version, t.id AS parent_id
+            """;
+
+    private static final String UPDATE_PLANS_SQL =
+            """
+            UPDATE meal_plans t
+            SET title = u.title, is_active = u.active, version = t.version + 1, updated_at = now()
+            FROM unnest(?::uuid[], ?::bigint[], ?::text[], ?::boolean[]) AS u(id, base_version, title, active)
+            WHERE t.id = u.id AND t.version = u.base_version AND t.user_id = ?
+            RETURNING t.id, t.version, t.id AS parent_id
+            """;
+
+    private static final String INSERT_ITEMS_SQL =
+            """
+            INSERT INTO grocery_items (
+                id, grocery_list_id, name, quantity, category, checked, position, notes,
+                version, created_at, updated_at)
+            SELECT u.id, u.grocery_list_id, u.name, u.quantity, u.category, u.checked, u.position, u.notes,
+                0, now(), now()
+            FROM unnest(?::uuid[], ?::uuid[], ?::text[], ?::text[], ?::text[], ?::boolean[], ?::int[], ?::text[])
+                AS u(id, grocery_list_id, name, quantity, category, checked, position, notes)
+            JOIN grocery_lists l ON l.id = u.grocery_list_id AND l.user_id = ?
+            ON CONFLICT (id) DO NOTHING
+            RETURNING id, version, grocery_list_id AS parent_id
+            """;
+
+    private static final String UPDATE_ITEMS_SQL =
+            """
+            UPDATE grocery_items t
+            SET name = u.name, quantity = u.quantity, category = u.category, checked = u.checked, notes = u.notes,
+                version = t.version + 1, updated_at = now()
+            FROM unnest(?::uuid[], ?::bigint[], ?::text[], ?::text[], ?::text[], ?::boolean[], ?::text[])
+                    AS u(id, base_version, name, quantity, category, checked, notes),
+                grocery_lists l
+            WHERE t.id = u.id AND t.version = u.base_version AND l.id = t.grocery_list_id AND l.user_id = ?
+            RETURNING t.id, t.version, t.grocery_list_id AS parent_id
+            """;
+
+    // Each deleted row leaves a tombstone in the same statement, with an id generated for it up front
+    private static final String DELETE_ITEMS_SQL =
+            """
+            WITH deleted AS (
+                DELETE FROM grocery_items t
+                USING unnest(?::uuid[], ?::bigint[], ?::uuid[]) AS u(id, base_version, tombstone_id), grocery_lists l
+                WHERE t.id = u.id AND (u.base_version IS NULL OR t.version = u.base_version)
+                    AND l.id = t.grocery_list_id AND l.user_id = ?
+                RETURNING t.id, t.grocery_list_id, u.tombstone_id
+            ), tombstones AS (
+                INSERT INTO sync_tombstones (id, user_id, entity_type, entity_id, version, created_at, updated_at)
+                SELECT tombstone_id, ?, ?, id, 0, now(), now()
+                FROM deleted
+            )
+            SELECT id, NULL::bigint AS version, grocery_list_id AS parent_id FROM deleted
+            """;
+
+    // Entries have to lie within their plan and point to recipes the user may read
+    private static final String INSERT_ENTRIES_SQL =
+            """
+            INSERT INTO meal_plan_entries (
+                id, meal_plan_id, date, meal_type, recipe_id, note, version, created_at, updated_at)
+            SELECT u.id, u.meal_plan_id, u.date, u.meal_type, u.recipe_id, u.note, 0, now(), now()
+            FROM unnest(?::uuid[], ?::uuid[], ?::date[], ?::text[], ?::uuid[], ?::text[])
+                AS u(id, meal_plan_id, date, meal_type, recipe_id, note)
+            JOIN meal_plans p ON p.id = u.meal_plan_id AND p.user_id = ?
+            WHERE u.date BETWEEN p.start_date AND p.end_date
+                AND (u.recipe_id IS NULL OR EXISTS (
+                    SELECT 1 FROM recipes r WHERE r.id = u.recipe_id AND (r.author_id = ? OR r.visibility = 'PUBLIC')))
+            ON CONFLICT (id) DO NOTHING
+            RETURNING id, version, meal_plan_id AS parent_id
+            """;
+
+    private static final String UPDATE_ENTRIES_SQL =
+            """
+            UPDATE meal_plan_entries t
+            SET date = u.date, meal_type = u.meal_type, recipe_id = u.recipe_id, note = u.note,
+                version = t.version + 1, updated_at = now()
+            FROM unnest(?::uuid[], ?::bigint[], ?::date[], ?::text[], ?::uuid[], ?::text[])
+                    AS u(id, base_version, date, meal_type, recipe_id, note),
+                meal_plans p
+            WHERE t.id = u.id AND t.version = u.base_version AND p.id = t.meal_plan_id AND p.user_id = ?
+                AND u.date BETWEEN p.start_date AND p.end_date
+                AND (u.recipe_id IS NULL OR EXISTS (
+                    SELECT 1 FROM recipes r WHERE r.id = u.recipe_id AND (r.author_id = ? OR r.visibility = 'PUBLIC')))
+            RETURNING t.id, t.version, t.meal_plan_id AS parent_id
+            """;
+
+    private static final String DELETE_ENTRIES_SQL =
+            """
+            WITH deleted AS (
+                DELETE FROM meal_plan_entries t
+                USING unnest(?::uuid[], ?::bigint[], ?::uuid[]) AS u(id, base_version, tombstone_id), meal_plans p
+                WHERE t.id = u.id AND (u.base_version IS NULL OR t.version = u.base_version)
+                    AND p.id = t.meal_plan_id AND p.user_id = ?
+                RETURNING t.id, t.meal_plan_id, u.tombstone_id
+            ), tombstones AS (
+                INSERT INTO sync_tombstones (id, user_id, entity_type, entity_id, version, created_at, updated_at)
+                SELECT tombstone_id, ?, ?, id, 0, now(), now()
+                FROM deleted
+            )
+            SELECT id, NULL::bigint AS version, meal_plan_id AS parent_id FROM deleted
+            """;
+
+    private final GroceryItemPositionService groceryItemPositionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** A row written by a statement, with the list or plan it belongs to. */
+    private record Written(UUID id, Long version, UUID parentId) {}
+
+    /** @return one result per mutation, in the order of the mutations */
+    public List<SyncMutationResult> apply(UUID userId, List<SyncMutation> mutations) {
+        if (mutations.stream().map(SyncMutation::id).distinct().count() != mutations.size()) {
+            throw new BadRequestException("A row can only be mutated once per batch");
+        }
+        Map<UUID, SyncMutationResult> results = new HashMap<>();
+        Map<SyncEntityType, Map<UUID, SyncMutation>> byType = new EnumMap<>(SyncEntityType.class);
+        for (SyncMutation mutation : mutations) {
+            String problem = problemOf(mutation);
+            if (problem != null) {
+                results.put(mutation.id(), SyncMutationResult.rejected(mutation, problem));
+            } else {
+                byType.computeIfAbsent(mutation.type(), type -> new LinkedHashMap<>())
+                        .put(mutation.id(), mutation);
+            }
+        }
+
+        Set<UUID> groceryListIds = new HashSet<>();
+        Set<UUID> mealPlanIds = new HashSet<>();
+        Map<UUID, SyncMutation> lists = byType.getOrDefault(SyncEntityType.GROCERY_LIST, Map.of());
+        Map<UUID, SyncMutation> items = byType.getOrDefault(SyncEntityType.GROCERY_ITEM, Map.of());
+        Map<UUID, SyncMutation> plans = byType.getOrDefault(SyncEntityType.MEAL_PLAN, Map.of());
+        Map<UUID, SyncMutation> entries = byType.getOrDefault(SyncEntityType.MEAL_PLAN_ENTRY, Map.of());
+        updateGroceryLists(userId, lists, results, groceryListIds);
+        applyGroceryItems(userId, items, results, groceryListIds);
+        updateMealPlans(userId, plans, results, mealPlanIds);
+        applyMealPlanEntries(userId, entries, results, mealPlanIds);
+
+        resolveUnwritten(userId, lists, SyncTable.GROCERY_LISTS, results);
+        resolveUnwritten(userId, items, SyncTable.GROCERY_ITEMS, results);
+        resolveUnwritten(userId, plans, SyncTable.MEAL_PLANS, results);
+        resolveUnwritten(userId, entries, SyncTable.MEAL_PLAN_ENTRIES, results);
+
+        // Live subscribers refetch rather than receiving one delta per offline change
+        groceryListIds.forEach(id ->
+                eventPublisher.publishEvent(new GroceryListChangedEvent(id, GroceryListDelta.resync())));
+        mealPlanIds.forEach(id -> eventPublisher.publishEvent(new MealPlanChangedEvent(id, userId)));
+        log.debug(
+                "Applied {} of {} sync mutations for user {}",
+                results.values().stream()
+                        .filter(result -> result.outcome() == SyncMutationResult.Outcome.APPLIED)
+                        .count(),
+                mutations.size(),
+                userId);
+        return mutations.stream().map(mutation -> results.get(mutation.id())).toList();
+    }
+
+    /** Why the mutation cannot be applied in any state of the database, or null. */
+    private static String problemOf(SyncMutation mutation) {
+        boolean parentTable =
+                mutation.type() == SyncEntityType.GROCERY_LIST || mutation.type() == SyncEntityType.MEAL_PLAN;
+        if (parentTable && (mutation.operation() == SyncMutation.Operation.DELETE || mutation.isCreate())) {
+            return "Grocery lists and meal plans can only be updated through sync";
+        }
+        if (mutation.operation() == SyncMutation.Operation.DELETE) {
+            return null;
+        }
+        Object row =
+                switch (mutation.type()) {
+                    case GROCERY_LIST -> mutation.groceryList();
+                    case GROCERY_ITEM -> mutation.groceryItem();
+                    case MEAL_PLAN -> mutation.mealPlan();
+                    case MEAL_PLAN_ENTRY -> mutation.mealPlanEntry();
+                };
+        if (row == null) {
+            return "An upsert needs the row of its type";
+        }
+        if (mutation.isCreate() && mutation.groceryItem() != null && mutation.groceryItem().groceryListId() == null) {
+            return "A new item needs its grocery list";
+        }
+        if (mutation.isCreate()
+                && mutation.mealPlanEntry() != null
+                && mutation.mealPlanEntry().mealPlanId() == null) {
+            return "A new entry needs its meal plan";
+        }
+        return null;
+    }
+
+    private void updateGroceryLists(
+            UUID userId, Map<UUID, SyncMutation> mutations, Map<UUID, SyncMutationResult> results, Set<UUID> touched) {
+        if (mutations.isEmpty()) {
+            return;
+        }
+        List<SyncMutation> updates = List.copyOf(mutations.values());
+        record(
+                mutations,
+                results,
+                touched,
+                write(
+                        UPDATE_LISTS_SQL,
+                        toStrings(updates, SyncMutation::id),
+                        toStrings(updates, SyncMutation::baseVersion),
+                        toStrings(updates, mutation -> mutation.groceryList().title()),
+                        // The status column is mapped by ordinal
+                        toStrings(updates, mutation -> mutation.groceryList().status().ordinal()),
+                        userId));
+    }
+
+    private void updateMealPlans(
+            UUID userId, Map<UUID, SyncMutation> mutations, Map<UUID, SyncMutationResult> results, Set<UUID> touched) {
+        if (mutations.isEmpty()) {
+            return;
+        }
+        List<SyncMutation> updates = List.copyOf(mutations.values());
+        record(
+                mutations,
+                results,
+                touched,
+                write(
+                        UPDATE_PLANS_SQL,
+                        toStrings(updates, SyncMutation::id),
+                        toStrings(updates, SyncMutation::baseVersion),
+                        toStrings(updates, mutation -> mutation.mealPlan().title()),
+                        toStrings(updates, mutation -> mutation.mealPlan().active()),
+                        userId));
+    }
+
+    private void applyGroceryItems(
+            UUID userId, Map<UUID, SyncMutation> mutations, Map<UUID, SyncMutationResult> results, Set<UUID> touched) {
+        List<SyncMutation> creates = filter(mutations, SyncMutation::isCreate);
+        if (!creates.isEmpty()) {
+            Map<UUID, Integer> positions = allocatePositions(userId, creates);
+            record(
+                    mutations,
+                    results,
+                    touched,
+                    write(
+                            INSERT_ITEMS_SQL,
+                            toStrings(creates, SyncMutation::id),
+                            toStrings(creates, mutation -> mutation.groceryItem().groceryListId()),
+                            toStrings(creates, mutation -> mutation.groceryItem().name()),
+                            toStrings(creates, mutation -> mutation.groceryItem().quantity()),
+                            toStrings(creates, mutation -> mutation.groceryItem().category()),
+                            toStrings(creates, mutation -> mutation.groceryItem().checked()),
+                            toStrings(creates, mutation -> positions.getOrDefault(mutation.id(), 0)),
+                            toStrings(creates, mutation -> mutation.groceryItem().notes()),
+                            userId));
+        }
+        List<SyncMutation> updates = filter(mutations, SyncMutationService::isUpdate);
+        if (!updates.isEmpty()) {
+            record(
+                    mutations,
+                    results,
+                    touched,
+                    write(
+                            UPDATE_ITEMS_SQL,
+                            toStrings(updates, SyncMutation::id),
+                            toStrings(updates, SyncMutation::baseVersion),
+                            toStrings(updates, mutation -> mutation.groceryItem().name()),
+                            toStrings(updates, mutation -> mutation.groceryItem().quantity()),
+                            toStrings(updates, mutation -> mutation.groceryItem().category()),
+                            toStrings(updates, mutation -> mutation.groceryItem().checked()),
+                            toStrings(updates, mutation -> mutation.groceryItem().notes()),
+                            userId));
+        }
+        List<SyncMutation> deletes = filter(mutations, SyncMutationService::isDelete);
+        if (!deletes.isEmpty()) {
+            record(
+                    mutations,
+                    results,
+                    touched,
+                    write(
+                            DELETE_ITEMS_SQL,
+                            toStrings(deletes, SyncMutation::id),
+                            toStrings(deletes, SyncMutation::baseVersion),
+                            toStrings(deletes, mutation -> TimeOrderedUuid.next()),
+                            userId,
+                            userId,
+                            SyncEntityType.GROCERY_ITEM.name()));
+        }
+    }
+
+    private void applyMealPlanEntries(
+            UUID userId, Map<UUID, SyncMutation> mutations, Map<UUID, SyncMutationResult> results, Set<UUID> touched) {
+        List<SyncMutation> creates = filter(mutations, SyncMutation::isCreate);
+        if (!creates.isEmpty()) {
+            record(
+                    mutations,
+                    results,
+                    touched,
+                    write(
+                            INSERT_ENTRIES_SQL,
+                            toStrings(creates, SyncMutation::id),
+                            toStrings(creates, mutation -> mutation.mealPlanEntry().mealPlanId()),
+                            toStrings(creates, mutation -> mutation.mealPlanEntry().date()),
+                            toStrings(creates, mutation -> mutation.mealPlanEntry().mealType()),
+                            toStrings(creates, mutation -> mutation.mealPlanEntry().recipeId()),
+                            toStrings(creates, mutation -> mutation.mealPlanEntry().note()),
+                            userId,
+                            userId));
+        }
+        List<SyncMutation> updates = filter(mutations, SyncMutationService::isUpdate);
+        if (!updates.isEmpty()) {
+            record(
+                    mutations,
+                    results,
+                    touched,
+                    write(
+                            UPDATE_ENTRIES_SQL,
+                            toStrings(updates, SyncMutation::id),
+                            toStrings(updates, SyncMutation::baseVersion),
+                            toStrings(updates, mutation -> mutation.mealPlanEntry().date()),
+                            toStrings(updates, mutation -> mutation.mealPlanEntry().mealType()),
+                            toStrings(updates, mutation -> mutation.mealPlanEntry().recipeId()),
+                            toStrings(updates, mutation -> mutation.mealPlanEntry().note()),
+                            userId,
+                            userId));
+        }
+        List<SyncMutation> deletes = filter(mutations, SyncMutationService::isDelete);
+        if (!deletes.isEmpty()) {
+            record(
+                    mutations,
+                    results,
+                    touched,
+                    write(
+                            DELETE_ENTRIES_SQL,
+                            toStrings(deletes, SyncMutation::id),
+                            toStrings(deletes, SyncMutation::baseVersion),
+                            toStrings(deletes, mutation -> TimeOrderedUuid.next()),
+                            userId,
+                            userId,
+                            SyncEntityType.MEAL_PLAN_ENTRY.name()));
+        }
+    }
+
+    /** Positions at the end of their lists for new items; items of lists the user does not own get none. */
+    private Map<UUID, Integer> allocatePositions(UUID userId, List<SyncMutation> creates) {
+        Map<UUID, List<UUID>> itemsByList = new LinkedHashMap<>();
+        for (SyncMutation create : creates) {
+            itemsByList
+                    .computeIfAbsent(create.groceryItem().groceryListId(), id -> new ArrayList<>())
+                    .add(create.id());
+        }
+        String[] listIds = itemsByList.keySet().stream().map(UUID::toString).toArray(String[]::new);
+        List<UUID> ownedLists = jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(OWNED_LISTS_SQL);
+                    statement.setArray(1, connection.createArrayOf("text", listIds));
+                    statement.setObject(2, userId);
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getObject("id", UUID.class));
+
+        Map<UUID, Integer> positions = new HashMap<>();
+        for (UUID listId : ownedLists) {
+            List<UUID> itemIds = itemsByList.get(listId);
+            int position = groceryItemPositionService.allocate(listId, itemIds.size());
+            for (UUID itemId : itemIds) {
+                positions.put(itemId, position);
+                position += GroceryItem.POSITION_GAP;
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Classifies the mutations no statement wrote: a row the user still has is a conflict, unless it is still at the
+     * base version and the change itself was refused; otherwise the row is gone, or a new row had no valid parent.
+     */
+    private <T extends SyncRow> void resolveUnwritten(
+            UUID userId,
+            Map<UUID, SyncMutation> mutations,
+            SyncTable<T> table,
+            Map<UUID, SyncMutationResult> results) {
+        List<UUID> unwritten = mutations.keySet().stream()
+                .filter(id -> !results.containsKey(id))
+                .toList();
+        if (unwritten.isEmpty()) {
+            return;
+        }
+        Map<UUID, T> current = table.withIds(jdbcTemplate, userId, unwritten);
+        for (UUID id : unwritten) {
+            SyncMutation mutation = mutations.get(id);
+            T row = current.get(id);
+            SyncMutationResult result;
+            if (row == null) {
+                result = mutation.isCreate()
+                        ? SyncMutationResult.rejected(mutation, "The parent does not exist or does not accept the row")
+                        : SyncMutationResult.notFound(mutation);
+            } else if (mutation.baseVersion() != null && mutation.baseVersion() == row.version()) {
+                result = SyncMutationResult.rejected(mutation, "The row does not fit its parent");
+            } else {
+                result = SyncMutationResult.conflict(mutation, row);
+            }
+            results.put(id, result);
+        }
+    }
+
+    private void record(
+            Map<UUID, SyncMutation> mutations,
+            Map<UUID, SyncMutationResult> results,
+            Set<UUID> touched,
+            List<Written> written) {
+        for (Written row : written) {
+            results.put(row.id(), SyncMutationResult.applied(mutations.get(row.id()), row.version()));
+            touched.add(row.parentId());
+        }
+    }
+
+    /** Runs a statement returning the written rows; string arrays are bound as SQL arrays. */
+    private List<Written> write(String sql, Object... parameters) {
+        return jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(sql);
+                    for (int i = 0; i < parameters.length; i++) {
+                        statement.setObject(
+                                i + 1,
+                                parameters[i] instanceof String[] array
+                                        ? connection.createArrayOf("text", array)
+                                        : parameters[i]);
+                    }
+                    return statement;
+                },
+                (rs, rowNum) -> new Written(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("version", Long.class),
+                        rs.getObject("parent_id", UUID.class)));
+    }
+
+    private static boolean isUpdate(SyncMutation mutation) {
+        return mutation.operation() == SyncMutation.Operation.UPSERT && !mutation.isCreate();
+    }
+
+    private static boolean isDelete(SyncMutation mutation) {
+        return mutation.operation() == SyncMutation.Operation.DELETE;
+    }
+
+    private static List<SyncMutation> filter(
+            Map<UUID, SyncMutation> mutations, Predicate<SyncMutation> predicate) {
+        return mutations.values().stream().filter(predicate).toList();
+    }
+
+    private static String[] toStrings(List<SyncMutation> mutations, Function<SyncMutation, ?> field) {
+        return mutations.stream()
+                .map(field)
+                .map(value -> Objects.toString(value, null))
+                .toArray(String[]::new);
+    }
+}
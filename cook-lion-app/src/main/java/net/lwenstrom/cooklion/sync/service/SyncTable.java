@@ -0,0 +1,189 @@
+package net.lwenstrom.cooklion.sync.service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.model.GroceryListStatus;
+import net.lwenstrom.cooklion.mealplan.model.MealType;
+import net.lwenstrom.cooklion.sync.dto.GroceryItemRow;
+import net.lwenstrom.cooklion.sync.dto.GroceryListRow;
+import net.lwenstrom.cooklion.sync.dto.MealPlanEntryRow;
+import net.lwenstrom.cooklion.sync.dto.MealPlanRow;
+import net.lwenstrom.cooklion.sync.dto.TombstoneRow;
+import net.lwenstrom.cooklion.sync.model.SyncEntityType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * How the rows of a synced table are read: a SELECT of one user's rows, with the table aliased {@code t} so the
+ * conflict lookups can append their own conditions, and the feed query. Children are owned through their parent.
+ *
+ * <p>Feed queries take the user, the cursor, the horizon and the limit, in this order. Tables with an owner column read
+ * their (owner, updated_at) index. Children have no such column; their feed reads the (parent, updated_at, id) index
+ * once per parent of the user, at most {@code limit} rows each, and merges the results, instead of sorting every row
+ * of the user.
+ */
+record SyncTable<T>(String select, String feed, RowMapper<T> rowMapper) {
+
+    // The horizon keeps rows of still running transactions out
+    private static final String CHANGED_SINCE =
+            "AND (t.updated_at, t.id) > (?, ?) AND t.updated_at < ? ORDER BY t.updated_at, t.id LIMIT ?";
+
+    private static final String FEED_PARAMETERS =
+            """
+            WITH f(user_id, after_at, after_id, horizon, size) AS (
+                VALUES (?::uuid, ?::timestamptz, ?::uuid, ?::timestamptz, ?::int))
+            """;
+
+    private static final String WITH_IDS = "AND t.id = ANY(?::uuid[])";
+
+    static final SyncTable<GroceryListRow> GROCERY_LISTS = SyncTable.owned(
+            """
+            SELECT t.id, t.meal_plan_id, t.title, t.status, t.version, t.updated_at
+            FROM grocery_lists t
+            WHERE t.user_id = ?
+            """,
+            (rs, rowNum) -> new GroceryListRow(
+                    rs.getObject("id", UUID.class),
+                    rs.getObject("meal_plan_id", UUID.class),
+                    rs.getString("title"),
+                    // The status column is mapped by ordinal
+                    GroceryListStatus.values()[rs.getInt("status")],
+                    rs.getLong("version")));
+
+    static final SyncTable<GroceryItemRow> GROCERY_ITEMS = new SyncTable<>(
+            """
+            SELECT t.id, t.grocery_list_id, t.name, t.quantity, t.category, t.checked, t.position, t.notes,
+                t.recipe_id, t.version, t.updated_at
+            FROM grocery_items t
+            JOIN grocery_lists l ON l.id = t.grocery_list_id
+            WHERE l.user_id = ?
+            """,
+            FEED_PARAMETERS
+                    + """
+                    SELECT t.*
+                    FROM f
+                    JOIN grocery_lists l ON l.user_id = f.user_id
+                    CROSS JOIN LATERAL (
+                        SELECT i.id, i.grocery_list_id, i.name, i.quantity, i.category, i.checked, i.position,
+                            i.notes, i.recipe_id, i.version, i.updated_at
+                        FROM grocery_items i
+                        WHERE i.grocery_list_id = l.id
+                            AND (i.updated_at, i.id) > (f.after_at, f.after_id) AND i.updated_at < f.horizon
+                        ORDER BY i.updated_at, i.id
+                        LIMIT f.size) t
+                    ORDER BY t.updated_at, t.id
+                    LIMIT (SELECT size FROM f)
+                    """,
+            (rs, rowNum) -> new GroceryItemRow(
+                    rs.getObject("id", UUID.class),
+                    rs.getObject("grocery_list_id", UUID.class),
+                    rs.getString("name"),
+                    rs.getString("quantity"),
+                    rs.getString("category"),
+                    rs.getBoolean("checked"),
+                    rs.getInt("position"),
+                    rs.getString("notes"),
+                    rs.getObject("recipe_id", UUID.class),
+                    rs.getLong("version")));
+
+    static final SyncTable<MealPlanRow> MEAL_PLANS = SyncTable.owned(
+            """
+            SELECT t.id, t.title, t.start_date, t.end_date, t.is_active, t.version, t.updated_at
+            FROM meal_plans t
+            WHERE t.user_id = ?
+            """,
+            (rs, rowNum) -> new MealPlanRow(
+                    rs.getObject("id", UUID.class),
+                    rs.getString("title"),
+                    rs.getObject("start_date", LocalDate.class),
+                    rs.getObject("end_date", LocalDate.class),
+                    rs.getBoolean("is_active"),
+                    rs.getLong("version")));
+
+    static final SyncTable<MealPlanEntryRow> MEAL_PLAN_ENTRIES = new SyncTable<>(
+            """
+            SELECT t.id, t.meal_plan_id, t.date, t.meal_type, t.recipe_id, t.note, t.version, t.updated_at
+            FROM meal_plan_entries t
+            JOIN meal_plans p ON p.id = t.meal_plan_id
+            WHERE p.user_id = ?
+            """,
+            FEED_PARAMETERS
+                    + """
+                    SELECT t.*
+                    FROM f
+                    JOIN meal_plans p ON p.user_id = f.user_id
+                    CROSS JOIN LATERAL (
+                        SELECT e.id, e.meal_plan_id, e.date, e.meal_type, e.recipe_id, e.note, e.version, e.updated_at
+                        FROM meal_plan_entries e
+                        WHERE e.meal_plan_id = p.id
+                            AND (e.updated_at, e.id) > (f.after_at, f.after_id) AND e.updated_at < f.horizon
+                        ORDER BY e.updated_at, e.id
+                        LIMIT f.size) t
+                    ORDER BY t.updated_at, t.id
+                    LIMIT (SELECT size FROM f)
+                    """,
+            (rs, rowNum) -> new MealPlanEntryRow(
+                    rs.getObject("id", UUID.class),
+                    rs.getObject("meal_plan_id", UUID.class),
+                    rs.getObject("date", LocalDate.class),
+                    MealType.valueOf(rs.getString("meal_type")),
+                    rs.getObject("recipe_id", UUID.class),
+                    rs.getString("note"),
+                    rs.getLong("version")));
+
+    static final SyncTable<TombstoneRow> TOMBSTONES = SyncTable.owned(
+            """
+            SELECT t.id, t.entity_type, t.entity_id, t.updated_at
+            FROM sync_tombstones t
+            WHERE t.user_id = ?
+            """,
+            (rs, rowNum) -> new TombstoneRow(
+                    SyncEntityType.valueOf(rs.getString("entity_type")), rs.getObject("entity_id", UUID.class)));
+
+    /** A table with an owner column, whose feed filters and orders the SELECT itself. */
+    private static <T> SyncTable<T> owned(String select, RowMapper<T> rowMapper) {
+        return new SyncTable<>(select, select + CHANGED_SINCE, rowMapper);
+    }
+
+    /** A row with its position in the feed. */
+    record Change<T>(SyncCursor position, T row) {}
+
+    /** The first {@code limit} rows of the user changed after the cursor and before the horizon, in feed order. */
+    List<Change<T>> changedSince(
+            JdbcTemplate jdbcTemplate, UUID userId, SyncCursor after, Instant horizon, int limit) {
+        return jdbcTemplate.query(
+                feed,
+                (rs, rowNum) -> new Change<>(
+                        new SyncCursor(rs.getTimestamp("updated_at").toInstant(), rs.getObject("id", UUID.class)),
+                        rowMapper.mapRow(rs, rowNum)),
+                userId,
+                Timestamp.from(after.updatedAt()),
+                after.id(),
+                Timestamp.from(horizon),
+                limit);
+    }
+
+    /** The current rows with the given ids, by id; rows of other users are left out like missing ones. */
+    Map<UUID, T> withIds(JdbcTemplate jdbcTemplate, UUID userId, Collection<UUID> ids) {
+        String[] idStrings = ids.stream().map(UUID::toString).toArray(String[]::new);
+        Map<UUID, T> rows = new HashMap<>();
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(select + WITH_IDS);
+                    statement.setObject(1, userId);
+                    statement.setArray(2, connection.createArrayOf("text", idStrings));
+                    return statement;
+                },
+                rs -> {
+                    rows.put(rs.getObject("id", UUID.class), rowMapper.mapRow(rs, rs.getRow()));
+                });
+        return rows;
+    }
+}
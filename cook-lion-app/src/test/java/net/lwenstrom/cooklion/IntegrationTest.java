@@ -0,0 +1,108 @@
+package net.lwenstrom.cooklion;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.auth.model.Role;
+import net.lwenstrom.cooklion.auth.model.UserAccount;
+import net.lwenstrom.cooklion.auth.service.JwtService;
+import net.lwenstrom.cooklion.auth.service.UserAccountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Runs the application against PostgreSQL in a container with statement budgets enforced, so a request exceeding the
+ * {@link net.lwenstrom.cooklion.common.persistence.StatementBudget} of its endpoint fails the test. The container is
+ * shared by all integration tests, and so is the application context unless a test adds properties of its own.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(
+        properties = {
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "spring.ai.ollama.init.pull-model-strategy=never",
+            "app.statement-budget.enforce=true",
+            "app.jwt.secret=integration-test-secret-of-at-least-256-bits",
+            "app.similarity.embedder=hashing",
+            "app.files.storage.local.root=target/integration-test-files",
+            "app.rate-limit.enabled=false"
+        })
+public abstract class IntegrationTest {
+
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        POSTGRES.start();
+    }
+
+    // Replaces the Keycloak registration, whose discovery would need the identity provider at startup
+    @MockitoBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    private UserAccountService userAccountService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    /** An API user with its access token. */
+    protected record TestUser(UUID id, String username, String token) {}
+
+    /** Creates a user and signs it in like the token endpoint does, which leaves its identity cached. */
+    protected TestUser createUser() {
+        String username = "user-" + UUID.randomUUID();
+        UserAccount account = new UserAccount();
+        account.setUsername(username);
+        account.setEmail(username + "@example.com");
+        account.getRoles().add(Role.USER);
+        UUID id = userAccountService.createUser(account).getId();
+        userAccountService.findIdentityById(id);
+        return new TestUser(id, username, jwtService.generateAccessToken(username, List.of(Role.USER.getAuthority())));
+    }
+
+    /**
+     * A request to the API, authenticated as {@code user} unless it is null. The servlet path is the whole path, as the
+     * dispatcher servlet reports it; the authentication and rate limit filters only handle paths below {@code /api/}.
+     */
+    protected static MockHttpServletRequestBuilder api(
+            TestUser user, HttpMethod method, String uriTemplate, Object... uriVariables) {
+        String path = UriComponentsBuilder.fromPath(uriTemplate).buildAndExpand(uriVariables).toUriString();
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.request(method, path).servletPath(path);
+        return user != null ? request.header(HttpHeaders.AUTHORIZATION, "Bearer " + user.token()) : request;
+    }
+
+    protected MockHttpServletRequestBuilder withJson(MockHttpServletRequestBuilder request, Object body)
+            throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+
+    protected <T> T read(ResultActions result, Class<T> type) throws Exception {
+        return objectMapper.readValue(result.andReturn().getResponse().getContentAsString(), type);
+    }
+
+    protected <T> T read(ResultActions result, TypeReference<T> type) throws Exception {
+        return objectMapper.readValue(result.andReturn().getResponse().getContentAsString(), type);
+    }
+}
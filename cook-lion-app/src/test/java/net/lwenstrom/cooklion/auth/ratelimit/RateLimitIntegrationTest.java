@@ -0,0 +1,46 @@
+package net.lwenstrom.cooklion.auth.ratelimit;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import net.lwenstrom.cooklion.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.TestPropertySource;
+
+/** The token buckets behind the API, with a refill too slow to matter while the test runs. */
+@TestPropertySource(
+        properties = {
+            "app.rate-limit.enabled=true",
+            "app.rate-limit.api.capacity=" + RateLimitIntegrationTest.CAPACITY,
+            "app.rate-limit.api.refill-per-second=0.001"
+        })
+class RateLimitIntegrationTest extends IntegrationTest {
+
+    static final int CAPACITY = 3;
+
+    @Test
+    void admitsABurstOfExactlyTheCapacity() throws Exception {
+        TestUser user = createUser();
+        for (int i = 0; i < CAPACITY; i++) {
+            mockMvc.perform(api(user, HttpMethod.GET, "/api/recipes/mine")).andExpect(status().isOk());
+        }
+
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/recipes/mine"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void limitsEachUserSeparately() throws Exception {
+        TestUser first = createUser();
+        TestUser second = createUser();
+        for (int i = 0; i < CAPACITY; i++) {
+            mockMvc.perform(api(first, HttpMethod.GET, "/api/recipes/mine")).andExpect(status().isOk());
+        }
+
+        mockMvc.perform(api(first, HttpMethod.GET, "/api/recipes/mine")).andExpect(status().isTooManyRequests());
+        mockMvc.perform(api(second, HttpMethod.GET, "/api/recipes/mine")).andExpect(status().isOk());
+    }
+}
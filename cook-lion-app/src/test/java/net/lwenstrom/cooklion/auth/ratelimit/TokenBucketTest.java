@@ -0,0 +1,67 @@
+package net.lwenstrom.cooklion.auth.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private static final long NOW = 1_000_000_000L;
+
+    @Test
+    void fullBucketAdmitsABurstOfExactlyItsCapacity() {
+        RateLimitRule rule = new RateLimitRule("test", "/**", 5, 1);
+        TokenBucket bucket = new TokenBucket(NOW);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(acquire(bucket, rule, NOW)).as("request %d", i + 1).isZero();
+        }
+        assertThat(acquire(bucket, rule, NOW)).isEqualTo(rule.emissionIntervalNanos());
+    }
+
+    @Test
+    void capacityOfOneAdmitsOneRequestPerInterval() {
+        RateLimitRule rule = new RateLimitRule("test", "/**", 1, 2);
+        long interval = rule.emissionIntervalNanos();
+        TokenBucket bucket = new TokenBucket(NOW);
+
+        assertThat(acquire(bucket, rule, NOW)).isZero();
+        assertThat(acquire(bucket, rule, NOW)).isEqualTo(interval);
+        assertThat(acquire(bucket, rule, NOW + interval / 2)).isEqualTo(interval / 2);
+        assertThat(acquire(bucket, rule, NOW + interval)).isZero();
+        assertThat(acquire(bucket, rule, NOW + interval)).isEqualTo(interval);
+    }
+
+    @Test
+    void rejectedRequestsDoNotTakeTokens() {
+        RateLimitRule rule = new RateLimitRule("test", "/**", 2, 1);
+        long interval = rule.emissionIntervalNanos();
+        TokenBucket bucket = new TokenBucket(NOW);
+
+        assertThat(acquire(bucket, rule, NOW)).isZero();
+        assertThat(acquire(bucket, rule, NOW)).isZero();
+        for (int i = 0; i < 10; i++) {
+            assertThat(acquire(bucket, rule, NOW)).isEqualTo(interval);
+        }
+        assertThat(acquire(bucket, rule, NOW + interval)).isZero();
+    }
+
+    @Test
+    void idleBucketRefillsToCapacityButNoFurther() {
+        RateLimitRule rule = new RateLimitRule("test", "/**", 3, 1);
+        long later = NOW + 100 * rule.emissionIntervalNanos();
+        TokenBucket bucket = new TokenBucket(NOW);
+        for (int i = 0; i < 3; i++) {
+            acquire(bucket, rule, NOW);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(acquire(bucket, rule, later)).isZero();
+        }
+        assertThat(acquire(bucket, rule, later)).isPositive();
+    }
+
+    private static long acquire(TokenBucket bucket, RateLimitRule rule, long nowNanos) {
+        return bucket.tryAcquire(nowNanos, rule.emissionIntervalNanos(), rule.burstToleranceNanos());
+    }
+}
@@ -0,0 +1,286 @@
+package net.lwenstrom.cooklion.common.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import net.lwenstrom.cooklion.IntegrationTest;
+import net.lwenstrom.cooklion.auth.repository.UserAccountRepository;
+import net.lwenstrom.cooklion.files.dto.FileAssetView;
+import net.lwenstrom.cooklion.grocery.dto.AddGroceryItemRequest;
+import net.lwenstrom.cooklion.grocery.dto.CompileGroceryListRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutation;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutationResult;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutationsRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemView;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListStatusRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListView;
+import net.lwenstrom.cooklion.grocery.dto.ReorderGroceryItemsRequest;
+import net.lwenstrom.cooklion.grocery.model.GroceryListStatus;
+import net.lwenstrom.cooklion.mealplan.dto.CloneMealPlanRequest;
+import net.lwenstrom.cooklion.mealplan.dto.ShiftMealPlanRequest;
+import net.lwenstrom.cooklion.mealplan.dto.ShuffleRequest;
+import net.lwenstrom.cooklion.mealplan.model.MealPlan;
+import net.lwenstrom.cooklion.mealplan.model.MealPlanEntry;
+import net.lwenstrom.cooklion.mealplan.model.MealType;
+import net.lwenstrom.cooklion.mealplan.repository.MealPlanEntryRepository;
+import net.lwenstrom.cooklion.mealplan.repository.MealPlanRepository;
+import net.lwenstrom.cooklion.recipe.dto.RecipeRef;
+import net.lwenstrom.cooklion.recipe.dto.RecipeRequest;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import net.lwenstrom.cooklion.recipe.model.Tag;
+import net.lwenstrom.cooklion.recipe.repository.RecipeRepository;
+import net.lwenstrom.cooklion.recipe.repository.TagRepository;
+import net.lwenstrom.cooklion.sync.dto.MealPlanEntryRow;
+import net.lwenstrom.cooklion.sync.dto.SyncMutation;
+import net.lwenstrom.cooklion.sync.dto.SyncMutationResult;
+import net.lwenstrom.cooklion.sync.dto.SyncMutationsRequest;
+import net.lwenstrom.cooklion.sync.model.SyncEntityType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Calls every endpoint carrying a {@link StatementBudget} on a user with several recipes, plan entries and list items,
+ * so an endpoint issuing a statement per row fails here. Each request counts the statements of its endpoint only.
+ */
+class StatementBudgetIntegrationTest extends IntegrationTest {
+
+    private static final String INGREDIENTS =
+            """
+            ## Ingredients
+
+            - 200 g flour
+            - 2 eggs
+            - 1 1/2 cups milk
+            - salt
+            """;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private MealPlanRepository mealPlanRepository;
+
+    @Autowired
+    private MealPlanEntryRepository mealPlanEntryRepository;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private TestUser user;
+    private UUID tagId;
+    private UUID publicRecipeId;
+    private UUID privateRecipeId;
+    private MealPlan mealPlan;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = createUser();
+        UUID otherTagId = createTag();
+        tagId = createTag();
+        publicRecipeId = createRecipe("Pancakes", RecipeVisibility.PUBLIC, Set.of(tagId, otherTagId));
+        createRecipe("Crepes", RecipeVisibility.PUBLIC, Set.of(tagId));
+        privateRecipeId = createRecipe("Waffles", RecipeVisibility.PRIVATE, Set.of(otherTagId));
+        mealPlan = createMealPlan(LocalDate.now().minusDays(3), LocalDate.now().plusDays(10));
+    }
+
+    @Test
+    void recipeEndpointsStayWithinTheirBudgets() throws Exception {
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/recipes/{id}", privateRecipeId)).andExpect(status().isOk());
+        mockMvc.perform(api(null, HttpMethod.GET, "/api/recipes/public/{id}", publicRecipeId))
+                .andExpect(status().isOk());
+        mockMvc.perform(api(null, HttpMethod.GET, "/api/recipes/public/feed")).andExpect(status().isOk());
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/recipes/mine")).andExpect(status().isOk());
+        mockMvc.perform(api(null, HttpMethod.GET, "/api/recipes/public/by-tags").param("all", tagId.toString()))
+                .andExpect(status().isOk());
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/recipes/by-tags").param("any", tagId.toString()))
+                .andExpect(status().isOk());
+        mockMvc.perform(api(null, HttpMethod.GET, "/api/recipes/public/{id}/similar", publicRecipeId))
+                .andExpect(status().isOk());
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/recipes/{id}/similar", privateRecipeId))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void mealPlanEndpointsStayWithinTheirBudgets() throws Exception {
+        UUID id = mealPlan.getId();
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/meal-plans/current")).andExpect(status().isOk());
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/meal-plans/{id}/week", id)).andExpect(status().isOk());
+        ShuffleRequest shuffle = new ShuffleRequest(
+                mealPlan.getStartDate(),
+                mealPlan.getEndDate(),
+                Set.of(MealType.LUNCH),
+                null,
+                null,
+                null,
+                null,
+                true,
+                1L);
+        mockMvc.perform(withJson(api(user, HttpMethod.POST, "/api/meal-plans/{id}/shuffle", id), shuffle))
+                .andExpect(status().isOk());
+        CloneMealPlanRequest clone =
+                new CloneMealPlanRequest(mealPlan.getEndDate().plusDays(1), null, "Next weeks", null);
+        mockMvc.perform(withJson(api(user, HttpMethod.POST, "/api/meal-plans/{id}/clone", id), clone))
+                .andExpect(status().isCreated());
+        mockMvc.perform(withJson(
+                        api(user, HttpMethod.POST, "/api/meal-plans/{id}/shift", id), new ShiftMealPlanRequest(1)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void groceryListEndpointsStayWithinTheirBudgets() throws Exception {
+        CompileGroceryListRequest compile = new CompileGroceryListRequest(mealPlan.getId(), null, null, null, 4);
+        GroceryListView list = read(
+                mockMvc.perform(withJson(api(user, HttpMethod.POST, "/api/grocery-lists/compile"), compile))
+                        .andExpect(status().isCreated()),
+                GroceryListView.class);
+        assertThat(list.items()).hasSizeGreaterThan(2);
+        UUID id = list.id();
+
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/grocery-lists/{id}", id)).andExpect(status().isOk());
+        GroceryItemView added = read(
+                mockMvc.perform(withJson(
+                                api(user, HttpMethod.POST, "/api/grocery-lists/{id}/items", id),
+                                new AddGroceryItemRequest("Butter", "250 g", "Dairy", null)))
+                        .andExpect(status().isCreated()),
+                GroceryItemView.class);
+        mockMvc.perform(api(user, HttpMethod.POST, "/api/grocery-lists/{id}/items/{itemId}/toggle", id, added.id()))
+                .andExpect(status().isOk());
+
+        GroceryItemView first = list.items().getFirst();
+        GroceryItemView second = list.items().get(1);
+        List<GroceryItemMutation> mutations = List.of(
+                new GroceryItemMutation(first.id(), first.version(), true, null, null, null),
+                new GroceryItemMutation(second.id(), null, null, null, null, new GroceryItemMutation.Move(added.id())));
+        List<GroceryItemMutationResult> results = read(
+                mockMvc.perform(withJson(
+                                api(user, HttpMethod.POST, "/api/grocery-lists/{id}/items/batch", id),
+                                new GroceryItemMutationsRequest(mutations)))
+                        .andExpect(status().isOk()),
+                new TypeReference<>() {});
+        assertThat(results)
+                .extracting(GroceryItemMutationResult::outcome)
+                .containsOnly(GroceryItemMutationResult.Outcome.APPLIED);
+
+        mockMvc.perform(withJson(
+                        api(user, HttpMethod.POST, "/api/grocery-lists/{id}/items/reorder", id),
+                        new ReorderGroceryItemsRequest(first.id(), null, null)))
+                .andExpect(status().isOk());
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/grocery-lists/{id}/events", id))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(withJson(
+                        api(user, HttpMethod.PUT, "/api/grocery-lists/{id}/status", id),
+                        new GroceryListStatusRequest(GroceryListStatus.DEACTIVATED)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void syncEndpointsStayWithinTheirBudgets() throws Exception {
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/sync/changes").param("limit", "2")).andExpect(status().isOk());
+
+        List<SyncMutation> mutations = List.of(
+                newEntry(LocalDate.now().plusDays(1), MealType.SNACK, publicRecipeId),
+                newEntry(LocalDate.now().plusDays(2), MealType.SNACK, privateRecipeId));
+        List<SyncMutationResult> results = read(
+                mockMvc.perform(withJson(
+                                api(user, HttpMethod.POST, "/api/sync/mutations"),
+                                new SyncMutationsRequest(mutations)))
+                        .andExpect(status().isOk()),
+                new TypeReference<>() {});
+        assertThat(results)
+                .extracting(SyncMutationResult::outcome)
+                .containsOnly(SyncMutationResult.Outcome.APPLIED);
+    }
+
+    @Test
+    void fileEndpointsStayWithinTheirBudgets() throws Exception {
+        FileAssetView file = read(
+                mockMvc.perform(api(user, HttpMethod.POST, "/api/files")
+                                .param("filename", "notes.txt")
+                                .param("publiclyAccessible", "true")
+                                .contentType(MediaType.TEXT_PLAIN)
+                                .content("Preheat the oven"))
+                        .andExpect(status().isCreated()),
+                FileAssetView.class);
+
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/files/{id}", file.id())).andExpect(status().isOk());
+        mockMvc.perform(api(user, HttpMethod.GET, "/api/files/{id}/content", file.id())).andExpect(status().isOk());
+        mockMvc.perform(api(null, HttpMethod.GET, "/api/files/public/{id}/content", file.id()))
+                .andExpect(status().isOk());
+    }
+
+    private UUID createTag() {
+        String name = "tag-" + UUID.randomUUID();
+        Tag tag = new Tag();
+        tag.setName(name);
+        tag.setSlug(name);
+        return tagRepository.save(tag).getId();
+    }
+
+    private UUID createRecipe(String title, RecipeVisibility visibility, Set<UUID> tagIds) throws Exception {
+        String markdown = "# " + title + "\n\n" + INGREDIENTS;
+        RecipeRequest request = new RecipeRequest(title, null, null, 10, 20, 2, visibility, markdown, tagIds);
+        RecipeRef recipe = read(
+                mockMvc.perform(withJson(api(user, HttpMethod.POST, "/api/recipes"), request))
+                        .andExpect(status().isCreated()),
+                RecipeRef.class);
+        return recipe.id();
+    }
+
+    /** Plans two of the recipes on every day up to tomorrow, leaving lunch free for shuffling. */
+    private MealPlan createMealPlan(LocalDate startDate, LocalDate endDate) {
+        return transactionTemplate.execute(status -> {
+            MealPlan plan = new MealPlan();
+            plan.setUser(userAccountRepository.getReferenceById(user.id()));
+            plan.setTitle("This week");
+            plan.setStartDate(startDate);
+            plan.setEndDate(endDate);
+            mealPlanRepository.save(plan);
+
+            Map<MealType, UUID> recipes = Map.of(MealType.BREAKFAST, publicRecipeId, MealType.DINNER, privateRecipeId);
+            List<MealPlanEntry> entries = new ArrayList<>();
+            for (LocalDate date = startDate; !date.isAfter(LocalDate.now().plusDays(1)); date = date.plusDays(1)) {
+                for (Map.Entry<MealType, UUID> recipe : recipes.entrySet()) {
+                    MealPlanEntry entry = new MealPlanEntry();
+                    entry.setMealPlan(plan);
+                    entry.setDate(date);
+                    entry.setMealType(recipe.getKey());
+                    entry.setRecipe(recipeRepository.getReferenceById(recipe.getValue()));
+                    entries.add(entry);
+                }
+            }
+            mealPlanEntryRepository.saveAll(entries);
+            return plan;
+        });
+    }
+
+    private SyncMutation newEntry(LocalDate date, MealType mealType, UUID recipeId) {
+        UUID id = UUID.randomUUID();
+        return new SyncMutation(
+                SyncEntityType.MEAL_PLAN_ENTRY,
+                SyncMutation.Operation.UPSERT,
+                id,
+                null,
+                null,
+                null,
+                null,
+                new MealPlanEntryRow(id, mealPlan.getId(), date, mealType, recipeId, null, 0));
+    }
+}
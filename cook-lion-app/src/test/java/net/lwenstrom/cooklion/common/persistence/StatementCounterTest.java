@@ -0,0 +1,48 @@
+package net.lwenstrom.cooklion.common.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StatementCounterTest {
+
+    @AfterEach
+    void tearDown() {
+        StatementCounter.stop();
+    }
+
+    @Test
+    void enforcingCounterRejectsTheStatementExceedingTheBudget() {
+        StatementCounter counter = new StatementCounter(true);
+        StatementCounter.start("RecipeController#get", 2);
+
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+
+        assertThatThrownBy(() -> counter.inspect("select 3"))
+                .isInstanceOf(StatementBudgetExceededException.class)
+                .hasMessageContaining("RecipeController#get")
+                .hasMessageContaining("select 3");
+    }
+
+    @Test
+    void loggingCounterLetsTheStatementRun() {
+        StatementCounter counter = new StatementCounter(false);
+        StatementCounter.start("RecipeController#get", 1);
+
+        counter.inspect("select 1");
+
+        assertThat(counter.inspect("select 2")).isEqualTo("select 2");
+        assertThat(StatementCounter.stop()).isEqualTo(2);
+    }
+
+    @Test
+    void countsNothingOutsideOfABudget() {
+        StatementCounter counter = new StatementCounter(true);
+
+        assertThat(counter.inspect("select 1")).isEqualTo("select 1");
+        assertThat(StatementCounter.stop()).isZero();
+    }
+}
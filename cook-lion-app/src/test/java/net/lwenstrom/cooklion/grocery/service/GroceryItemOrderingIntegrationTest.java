@@ -0,0 +1,145 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.util.List;
+import java.util.UUID;
+import net.lwenstrom.cooklion.IntegrationTest;
+import net.lwenstrom.cooklion.auth.repository.UserAccountRepository;
+import net.lwenstrom.cooklion.grocery.dto.AddGroceryItemRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutation;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutationResult;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemMutationsRequest;
+import net.lwenstrom.cooklion.grocery.dto.GroceryItemView;
+import net.lwenstrom.cooklion.grocery.dto.GroceryListView;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import net.lwenstrom.cooklion.grocery.model.GroceryList;
+import net.lwenstrom.cooklion.grocery.repository.GroceryListRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** Moves and appends through the API, including the restart of the position counter before positions overflow. */
+class GroceryItemOrderingIntegrationTest extends IntegrationTest {
+
+    private static final int GAP = GroceryItem.POSITION_GAP;
+
+    @Autowired
+    private GroceryListRepository groceryListRepository;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestUser user;
+    private UUID listId;
+    private UUID a;
+    private UUID b;
+    private UUID c;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = createUser();
+        GroceryList list = new GroceryList();
+        list.setUser(userAccountRepository.getReferenceById(user.id()));
+        list.setTitle("Weekly shopping");
+        listId = groceryListRepository.save(list).getId();
+        a = addItem("Apples").id();
+        b = addItem("Bread").id();
+        c = addItem("Cheese").id();
+    }
+
+    @Test
+    void appendsTakeTheNextCounterValues() throws Exception {
+        assertThat(positions()).containsExactly(GAP, 2 * GAP, 3 * GAP);
+        assertThat(positionCounter()).isEqualTo(3);
+    }
+
+    @Test
+    void batchMovesToTheEndReserveTheirPositionsTogether() throws Exception {
+        List<GroceryItemMutationResult> results = mutate(move(a, c), move(b, a));
+
+        assertThat(results)
+                .extracting(GroceryItemMutationResult::outcome)
+                .containsOnly(GroceryItemMutationResult.Outcome.APPLIED);
+        assertThat(order()).containsExactly(c, a, b);
+        assertThat(positions()).containsExactly(3 * GAP, 4 * GAP, 5 * GAP);
+        assertThat(positionCounter()).isEqualTo(5);
+    }
+
+    @Test
+    void batchMovesRestartTheCounterBeforePositionsOverflow() throws Exception {
+        setPositionCounter(ItemPositions.MAX_COUNTER);
+
+        // The first move renumbers the items and restarts the counter behind them, the second one continues from there
+        mutate(move(a, c), move(b, a));
+
+        assertThat(order()).containsExactly(c, a, b);
+        assertThat(positions()).containsExactly(2 * GAP, 3 * GAP, 4 * GAP);
+        assertThat(positionCounter()).isEqualTo(4);
+    }
+
+    @Test
+    void appendsRestartTheCounterBeforePositionsOverflow() throws Exception {
+        setPositionCounter(ItemPositions.MAX_COUNTER);
+
+        UUID d = addItem("Dates").id();
+
+        assertThat(order()).containsExactly(a, b, c, d);
+        assertThat(positions()).containsExactly(GAP, 2 * GAP, 3 * GAP, 4 * GAP);
+        assertThat(positionCounter()).isEqualTo(4);
+    }
+
+    private GroceryItemView addItem(String name) throws Exception {
+        return read(
+                mockMvc.perform(withJson(
+                                api(user, HttpMethod.POST, "/api/grocery-lists/{id}/items", listId),
+                                new AddGroceryItemRequest(name, null, null, null)))
+                        .andExpect(status().isCreated()),
+                GroceryItemView.class);
+    }
+
+    private static GroceryItemMutation move(UUID itemId, UUID afterItemId) {
+        return new GroceryItemMutation(itemId, null, null, null, null, new GroceryItemMutation.Move(afterItemId));
+    }
+
+    private List<GroceryItemMutationResult> mutate(GroceryItemMutation... mutations) throws Exception {
+        return read(
+                mockMvc.perform(withJson(
+                                api(user, HttpMethod.POST, "/api/grocery-lists/{id}/items/batch", listId),
+                                new GroceryItemMutationsRequest(List.of(mutations))))
+                        .andExpect(status().isOk()),
+                new TypeReference<>() {});
+    }
+
+    private List<GroceryItemView> items() throws Exception {
+        GroceryListView list = read(
+                mockMvc.perform(api(user, HttpMethod.GET, "/api/grocery-lists/{id}", listId))
+                        .andExpect(status().isOk()),
+                GroceryListView.class);
+        return list.items();
+    }
+
+    private List<UUID> order() throws Exception {
+        return items().stream().map(GroceryItemView::id).toList();
+    }
+
+    private List<Integer> positions() throws Exception {
+        return items().stream().map(GroceryItemView::position).toList();
+    }
+
+    private int positionCounter() {
+        return jdbcTemplate.queryForObject(
+                "SELECT item_position_counter FROM grocery_lists WHERE id = ?", Integer.class, listId);
+    }
+
+    private void setPositionCounter(int counter) {
+        jdbcTemplate.update("UPDATE grocery_lists SET item_position_counter = ? WHERE id = ?", counter, listId);
+    }
+}
@@ -0,0 +1,34 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import org.junit.jupiter.api.Test;
+
+class ItemPositionsTest {
+
+    @Test
+    void takesTheMiddleBetweenNeighbors() {
+        assertThat(ItemPositions.between(1024, 2048)).isEqualTo(1536);
+        assertThat(ItemPositions.between(0, 1024)).isEqualTo(512);
+        assertThat(ItemPositions.between(5, 7)).isEqualTo(6);
+    }
+
+    @Test
+    void reportsAdjacentNeighbors() {
+        assertThat(ItemPositions.between(5, 6)).isEqualTo(ItemPositions.NO_GAP);
+        assertThat(ItemPositions.between(0, 1)).isEqualTo(ItemPositions.NO_GAP);
+    }
+
+    @Test
+    void doesNotOverflowBetweenHighPositions() {
+        assertThat(ItemPositions.between(Integer.MAX_VALUE - 4, Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE - 2);
+    }
+
+    @Test
+    void maxCounterIsTheLastCounterWithAPosition() {
+        assertThat((long) ItemPositions.MAX_COUNTER * GroceryItem.POSITION_GAP).isLessThanOrEqualTo(Integer.MAX_VALUE);
+        assertThat((long) (ItemPositions.MAX_COUNTER + 1) * GroceryItem.POSITION_GAP)
+                .isGreaterThan(Integer.MAX_VALUE);
+    }
+}
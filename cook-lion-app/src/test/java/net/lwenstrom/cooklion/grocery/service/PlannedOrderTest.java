@@ -0,0 +1,93 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import org.junit.jupiter.api.Test;
+
+class PlannedOrderTest {
+
+    private static final int GAP = GroceryItem.POSITION_GAP;
+
+    private final List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    private final UUID a = ids.get(0);
+    private final UUID b = ids.get(1);
+    private final UUID c = ids.get(2);
+
+    @Test
+    void movesBetweenNeighborsWithoutTouchingOthers() {
+        PlannedOrder plan = plan(3, GAP, 2 * GAP, 3 * GAP);
+
+        plan.move(c, a);
+
+        assertThat(plan.positionOf(c)).isEqualTo(GAP + GAP / 2);
+        assertThat(plan.positionOf(b)).isEqualTo(2 * GAP);
+        assertThat(plan.renumbered()).isFalse();
+        assertThat(plan.positionCounter()).isEqualTo(3);
+    }
+
+    @Test
+    void movesToTheTopBelowPositionZero() {
+        PlannedOrder plan = plan(3, GAP, 2 * GAP, 3 * GAP);
+
+        plan.move(b, null);
+
+        assertThat(plan.positionOf(b)).isEqualTo(GAP / 2);
+        assertThat(plan.renumbered()).isFalse();
+    }
+
+    @Test
+    void movesToTheEndTakeTheNextCounterValues() {
+        PlannedOrder plan = plan(7, GAP, 2 * GAP, 3 * GAP);
+
+        plan.move(a, c);
+        plan.move(b, a);
+
+        assertThat(plan.positionOf(a)).isEqualTo(8 * GAP);
+        assertThat(plan.positionOf(b)).isEqualTo(9 * GAP);
+        assertThat(plan.positionCounter()).isEqualTo(9);
+        assertThat(plan.renumbered()).isFalse();
+    }
+
+    @Test
+    void renumbersWhenNeighborsAreAdjacent() {
+        PlannedOrder plan = plan(3, 1, 2, 3);
+
+        plan.move(c, a);
+
+        assertThat(plan.renumbered()).isTrue();
+        assertThat(plan.positions()).containsEntry(a, GAP).containsEntry(c, 2 * GAP).containsEntry(b, 3 * GAP);
+        assertThat(plan.positionCounter()).isEqualTo(3);
+    }
+
+    @Test
+    void restartsTheCounterInsteadOfOverflowing() {
+        int last = ItemPositions.MAX_COUNTER * GAP;
+        PlannedOrder plan = plan(ItemPositions.MAX_COUNTER, last - 2 * GAP, last - GAP, last);
+
+        plan.move(a, c);
+
+        assertThat(plan.renumbered()).isTrue();
+        assertThat(plan.positions()).containsEntry(b, GAP).containsEntry(c, 2 * GAP).containsEntry(a, 3 * GAP);
+        assertThat(plan.positionCounter()).isEqualTo(3);
+
+        plan.move(b, a);
+
+        assertThat(plan.positionOf(b)).isEqualTo(4 * GAP);
+        assertThat(plan.positionCounter()).isEqualTo(4);
+    }
+
+    /** The items a, b and c in this order, at the given positions. */
+    private PlannedOrder plan(int positionCounter, int... positions) {
+        Map<UUID, Integer> positionsById = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positionsById.put(ids.get(i), positions[i]);
+        }
+        return new PlannedOrder(new ArrayList<>(ids), positionsById, positionCounter);
+    }
+}
@@ -0,0 +1,77 @@
+package net.lwenstrom.cooklion.auth.filter;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import net.lwenstrom.cooklion.auth.service.JwtService;
+import net.lwenstrom.cooklion.auth.service.JwtServiceBenchmarkSupport;
+import net.lwenstrom.cooklion.auth.service.RevokedTokenFamilies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Runs the complete {@code doFilterInternal} path for an authenticated {@code /api/**} request, including request
+ * wrapping by {@code OncePerRequestFilter} and population of the security context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean verificationCache;
+
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = verificationCache
+                ? JwtServiceBenchmarkSupport.cachedJwtService()
+                : JwtServiceBenchmarkSupport.uncachedJwtService();
+        RevokedTokenFamilies revokedTokenFamilies = new RevokedTokenFamilies(1 << 20);
+        for (int i = 0; i < 1_000; i++) {
+            revokedTokenFamilies.revoke(UUID.randomUUID(), Instant.now().plus(Duration.ofHours(1)));
+        }
+        filter = new JwtAuthenticationFilter(jwtService, revokedTokenFamilies, new ClientIpAddress(""));
+        authorizationHeader = "Bearer "
+                + jwtService.generateAccessToken(
+                        "benchmark-user", List.of("ROLE_USER", "ROLE_ADMIN"), UUID.randomUUID());
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/recipes");
+        request.setServletPath("/api/recipes");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+
+        try {
+            filter.doFilter(request, response, filterChain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
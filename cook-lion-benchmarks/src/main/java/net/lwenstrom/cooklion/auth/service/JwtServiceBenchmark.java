@@ -0,0 +1,57 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.lwenstrom.cooklion.auth.model.JwtPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final List<String> AUTHORITIES = List.of("ROLE_USER", "ROLE_ADMIN");
+
+    private JwtService cachedJwtService;
+    private JwtService uncachedJwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedJwtService = JwtServiceBenchmarkSupport.cachedJwtService();
+        uncachedJwtService = JwtServiceBenchmarkSupport.uncachedJwtService();
+        token = cachedJwtService.generateAccessToken("benchmark-user", AUTHORITIES);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return cachedJwtService.generateAccessToken("benchmark-user", AUTHORITIES);
+    }
+
+    @Benchmark
+    public boolean isTokenValidCached() {
+        return cachedJwtService.isTokenValid(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValidUncached() {
+        return uncachedJwtService.isTokenValid(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal verifyTokenUncached() {
+        return uncachedJwtService.verifyToken(token);
+    }
+}
@@ -0,0 +1,45 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import net.lwenstrom.cooklion.auth.model.JwtPrincipal;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** Builds {@link JwtService} instances outside of a Spring context for the auth benchmarks. */
+public final class JwtServiceBenchmarkSupport {
+
+    static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtServiceBenchmarkSupport() {}
+
+    public static JwtService cachedJwtService() {
+        return newJwtService(new VerifiedTokenCache(10_000));
+    }
+
+    /** Every verification goes through signature checking, i.e. the cost of a cache miss. */
+    public static JwtService uncachedJwtService() {
+        return newJwtService(new NoOpVerifiedTokenCache());
+    }
+
+    private static JwtService newJwtService(VerifiedTokenCache verifiedTokenCache) {
+        JwtService jwtService = new JwtService(verifiedTokenCache);
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpirationMinutes", 15L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpirationDays", 7L);
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static final class NoOpVerifiedTokenCache extends VerifiedTokenCache {
+
+        NoOpVerifiedTokenCache() {
+            super(0);
+        }
+
+        @Override
+        public JwtPrincipal getIfPresent(String token) {
+            return null;
+        }
+
+        @Override
+        public void put(String token, JwtPrincipal principal) {}
+    }
+}
@@ -0,0 +1,127 @@
+package net.lwenstrom.cooklion.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import net.lwenstrom.cooklion.auth.repository.UserAccountRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Username generation on first login against an in-memory repository. Besides the time per call, the number of
+ * repository queries per generated username is reported as an auxiliary counter; it stays at one per username as
+ * long as the taken suffixes fit into one page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsernameGenerationBenchmark {
+
+    private static final String PREFERRED_USERNAME = "chef";
+
+    @Param({"0", "10", "100"})
+    public int collisions;
+
+    private final AtomicLong repositoryQueries = new AtomicLong();
+    private CustomOAuth2UserService customOAuth2UserService;
+
+    @Setup
+    public void setUp() {
+        Set<String> takenUsernames = new HashSet<>();
+        if (collisions > 0) {
+            takenUsernames.add(PREFERRED_USERNAME);
+            for (int suffix = 1; suffix < collisions; suffix++) {
+                takenUsernames.add(PREFERRED_USERNAME + suffix);
+            }
+        }
+
+        UserAccountRepository repository = inMemoryRepository(takenUsernames);
+        UserIdentityCache userIdentityCache =
+                new UserIdentityCache(new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(10));
+        // Never flushed here, the benchmark does not record logins
+        LastLoginRecorder lastLoginRecorder = new LastLoginRecorder(
+                new JdbcTemplate(),
+                new DataSourceTransactionManager(),
+                new SimpleMeterRegistry(),
+                new ThreadPoolTaskScheduler(),
+                10_000);
+        customOAuth2UserService = new CustomOAuth2UserService(
+                new UserAccountService(repository, userIdentityCache, lastLoginRecorder),
+                new UsernameAllocator(repository));
+    }
+
+    @Benchmark
+    public String generateUniqueUsername(QueryCounter counter) {
+        long before = repositoryQueries.get();
+        String username = ReflectionTestUtils.invokeMethod(
+                customOAuth2UserService, "generateUniqueUsername", PREFERRED_USERNAME, "chef@example.com");
+        counter.queries += repositoryQueries.get() - before;
+        counter.usernames++;
+        return username;
+    }
+
+    private UserAccountRepository inMemoryRepository(Set<String> takenUsernames) {
+        return (UserAccountRepository) Proxy.newProxyInstance(
+                UserAccountRepository.class.getClassLoader(),
+                new Class<?>[] {UserAccountRepository.class},
+                (proxy, method, args) -> {
+                    repositoryQueries.incrementAndGet();
+                    if (method.getName().equals("existsByUsername")) {
+                        return takenUsernames.contains((String) args[0]);
+                    }
+                    if (method.getName().equals("findTakenUsernames")) {
+                        String preferred = (String) args[0];
+                        String base = ((String) args[1]).replaceAll("%$", "").replaceAll("\\\\(.)", "$1");
+                        Stream<String> numbered = takenUsernames.stream()
+                                .filter(username -> username.startsWith(base)
+                                        && username.substring(base.length()).matches("[1-9][0-9]{0,5}"))
+                                .filter(username -> !username.equals(preferred))
+                                .sorted(Comparator.comparingInt(String::length)
+                                        .thenComparing(Comparator.naturalOrder()));
+                        return Stream.concat(Stream.of(preferred).filter(takenUsernames::contains), numbered)
+                                .skip((Integer) args[4])
+                                .limit((Integer) args[3])
+                                .toList();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QueryCounter {
+
+        public long queries;
+        public long usernames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queries = 0;
+            usernames = 0;
+        }
+    }
+}
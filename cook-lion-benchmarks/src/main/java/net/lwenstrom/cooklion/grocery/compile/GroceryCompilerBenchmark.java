@@ -0,0 +1,104 @@
+package net.lwenstrom.cooklion.grocery.compile;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compiles the grocery list of a family meal plan: three meals a day, recipes for four scaled to five servings. The
+ * grouped variant parses each distinct recipe once, as {@link GroceryListCompileService} does; the per-entry variant
+ * parses the recipe of every planned meal again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroceryCompilerBenchmark {
+
+    private static final int MEALS_PER_DAY = 3;
+    private static final int RECIPE_COUNT = 40;
+    private static final int INGREDIENTS_PER_RECIPE = 12;
+    private static final int INGREDIENT_VOCABULARY = 120;
+    private static final String[] UNITS = {"g", "kg", "ml", "l", "tsp", "tbsp", "cups", ""};
+    private static final String[] CATEGORIES = {"Produce", "Dairy", "Pantry"};
+    private static final double SERVINGS_FACTOR = 5.0 / 4;
+
+    @Param({"1", "4"})
+    public int weeks;
+
+    private UUID[] recipeIds;
+    private String[] markdowns;
+    // Recipe index per planned meal
+    private int[] entries;
+    private Map<Integer, Integer> plannedCounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        recipeIds = new UUID[RECIPE_COUNT];
+        markdowns = new String[RECIPE_COUNT];
+        for (int recipe = 0; recipe < RECIPE_COUNT; recipe++) {
+            recipeIds[recipe] = UUID.randomUUID();
+            StringBuilder markdown = new StringBuilder("Serves four.\n\n## Ingredients\n\n");
+            for (int line = 0; line < INGREDIENTS_PER_RECIPE; line++) {
+                if (line % 4 == 0) {
+                    markdown.append("### ").append(CATEGORIES[(line / 4) % CATEGORIES.length]).append('\n');
+                }
+                String unit = UNITS[random.nextInt(UNITS.length)];
+                markdown.append("- ")
+                        .append(1 + random.nextInt(500))
+                        .append(unit.isEmpty() ? "" : " " + unit)
+                        .append(" ingredient ")
+                        .append(random.nextInt(INGREDIENT_VOCABULARY))
+                        .append(", chopped\n");
+            }
+            markdown.append("\n## Steps\n\n1. Prepare everything.\n2. Cook until done.\n");
+            markdowns[recipe] = markdown.toString();
+        }
+
+        entries = new int[weeks * 7 * MEALS_PER_DAY];
+        plannedCounts = new HashMap<>();
+        for (int entry = 0; entry < entries.length; entry++) {
+            entries[entry] = random.nextInt(RECIPE_COUNT);
+            plannedCounts.merge(entries[entry], 1, Integer::sum);
+        }
+    }
+
+    @Benchmark
+    public List<CompiledItem> compileGrouped() {
+        GroceryCompiler compiler = new GroceryCompiler();
+        for (Map.Entry<Integer, Integer> planned : plannedCounts.entrySet()) {
+            int recipe = planned.getKey();
+            compiler.add(
+                    recipeIds[recipe],
+                    IngredientParser.parse(markdowns[recipe]),
+                    planned.getValue() * SERVINGS_FACTOR);
+        }
+        return compiler.compile();
+    }
+
+    @Benchmark
+    public List<CompiledItem> compilePerEntry() {
+        GroceryCompiler compiler = new GroceryCompiler();
+        for (int recipe : entries) {
+            compiler.add(recipeIds[recipe], IngredientParser.parse(markdowns[recipe]), SERVINGS_FACTOR);
+        }
+        return compiler.compile();
+    }
+}
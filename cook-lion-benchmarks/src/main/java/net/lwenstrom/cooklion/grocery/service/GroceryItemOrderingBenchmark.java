@@ -0,0 +1,120 @@
+package net.lwenstrom.cooklion.grocery.service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import net.lwenstrom.cooklion.grocery.model.GroceryItem;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Random drag-and-drop moves on a grocery list, replayed in memory. With gap-based positions, as in
+ * {@link GroceryItemPositionService}, a move writes the moved item and only occasionally renumbers the list; with dense
+ * positions 1..n every item between the old and the new place has to be written. The rows either strategy writes are
+ * reported as the auxiliary {@code rows} counter; the time is mostly the shift of the in-memory order both share.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroceryItemOrderingBenchmark {
+
+    private static final int GAP = GroceryItem.POSITION_GAP;
+
+    @Param({"100", "1000"})
+    public int itemCount;
+
+    private SplittableRandom random;
+    // Item per place in the list, and position per item
+    private int[] order;
+    private int[] positions;
+    private int counter;
+
+    // Reset every iteration, so the counter cannot run out of positions however many moves go to the end
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new SplittableRandom(42);
+        order = new int[itemCount];
+        positions = new int[itemCount];
+        for (int item = 0; item < itemCount; item++) {
+            order[item] = item;
+            positions[item] = (item + 1) * GAP;
+        }
+        counter = itemCount;
+    }
+
+    @Benchmark
+    public int moveWithGaps(RowCounter rows) {
+        int to = random.nextInt(itemCount);
+        int item = move(random.nextInt(itemCount), to);
+        int position = positionAt(to);
+        if (position == ItemPositions.NO_GAP) {
+            for (int place = 0; place < itemCount; place++) {
+                if (order[place] != item && positions[order[place]] != (place + 1) * GAP) {
+                    positions[order[place]] = (place + 1) * GAP;
+                    rows.rows++;
+                }
+            }
+            position = (to + 1) * GAP;
+        }
+        positions[item] = position;
+        rows.rows++;
+        rows.moves++;
+        return position;
+    }
+
+    @Benchmark
+    public int moveDense(RowCounter rows) {
+        int from = random.nextInt(itemCount);
+        int to = random.nextInt(itemCount);
+        move(from, to);
+        rows.rows += Math.abs(to - from) + 1;
+        rows.moves++;
+        return to;
+    }
+
+    private int positionAt(int place) {
+        if (place == itemCount - 1) {
+            return ++counter * GAP;
+        }
+        int before = place > 0 ? positions[order[place - 1]] : 0;
+        return ItemPositions.between(before, positions[order[place + 1]]);
+    }
+
+    private int move(int from, int to) {
+        int item = order[from];
+        if (from < to) {
+            System.arraycopy(order, from + 1, order, from, to - from);
+        } else {
+            System.arraycopy(order, to, order, to + 1, from - to);
+        }
+        order[to] = item;
+        return item;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RowCounter {
+
+        public long rows;
+        public long moves;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+            moves = 0;
+        }
+    }
+}
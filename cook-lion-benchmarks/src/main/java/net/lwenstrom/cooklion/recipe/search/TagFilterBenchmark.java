@@ -0,0 +1,144 @@
+package net.lwenstrom.cooklion.recipe.search;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import net.lwenstrom.cooklion.recipe.model.RecipeVisibility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link TagBitmapIndex} with the plan the database runs for the same filter: scan the {@code recipe_tags}
+ * rows of the requested tags, {@code GROUP BY recipe_id HAVING COUNT(*) = n}, join the visibility and join
+ * {@code recipe_tags} again grouped by tag for the facet counts. The SQL side is replayed on in-memory rows with hash
+ * aggregation, so it shows a lower bound for the database without I/O, network or row decoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagFilterBenchmark {
+
+    private static final int TAG_COUNT = 200;
+    private static final int TAGS_PER_RECIPE = 5;
+    private static final int LIMIT = 20;
+
+    @Param({"10000", "100000"})
+    public int recipeCount;
+
+    @Param({"1", "3"})
+    public int filterTags;
+
+    private TagBitmapIndex index;
+    private TagFilter filter;
+    private UUID viewerId;
+
+    // recipe_tags as parallel columns, plus per-recipe visibility and author
+    private int[] linkRecipes;
+    private int[] linkTags;
+    private boolean[] publicRecipes;
+    private int[] authors;
+    private int viewer;
+    private int[] filterTagOrdinals;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        UUID[] tagIds = new UUID[TAG_COUNT];
+        for (int i = 0; i < TAG_COUNT; i++) {
+            tagIds[i] = UUID.randomUUID();
+        }
+        UUID[] authorIds = new UUID[recipeCount / 20];
+        for (int i = 0; i < authorIds.length; i++) {
+            authorIds[i] = UUID.randomUUID();
+        }
+
+        index = new TagBitmapIndex();
+        linkRecipes = new int[recipeCount * TAGS_PER_RECIPE];
+        linkTags = new int[recipeCount * TAGS_PER_RECIPE];
+        publicRecipes = new boolean[recipeCount];
+        authors = new int[recipeCount];
+        int links = 0;
+        for (int recipe = 0; recipe < recipeCount; recipe++) {
+            publicRecipes[recipe] = random.nextInt(10) < 7;
+            authors[recipe] = random.nextInt(authorIds.length);
+            Set<Integer> tags = new HashSet<>();
+            while (tags.size() < TAGS_PER_RECIPE) {
+                // Skewed towards low tag numbers, like popular tags ("vegetarian", "quick") in real data
+                tags.add((int) (TAG_COUNT * Math.pow(random.nextDouble(), 2)));
+            }
+            Set<UUID> recipeTagIds = new HashSet<>();
+            for (int tag : tags) {
+                linkRecipes[links] = recipe;
+                linkTags[links] = tag;
+                links++;
+                recipeTagIds.add(tagIds[tag]);
+            }
+            index.put(
+                    UUID.randomUUID(),
+                    authorIds[authors[recipe]],
+                    publicRecipes[recipe] ? RecipeVisibility.PUBLIC : RecipeVisibility.PRIVATE,
+                    recipeTagIds,
+                    0);
+        }
+
+        viewer = 0;
+        viewerId = authorIds[viewer];
+        filterTagOrdinals = new int[filterTags];
+        Set<UUID> allOf = new HashSet<>();
+        for (int i = 0; i < filterTags; i++) {
+            filterTagOrdinals[i] = i;
+            allOf.add(tagIds[i]);
+        }
+        filter = new TagFilter(allOf, Set.of(), Set.of());
+    }
+
+    @Benchmark
+    public TagFilterResult bitmapIndex() {
+        return index.filter(filter, viewerId, LIMIT);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> sqlGroupByHaving() {
+        Map<Integer, Integer> matchCounts = new HashMap<>();
+        for (int i = 0; i < linkRecipes.length; i++) {
+            for (int tag : filterTagOrdinals) {
+                if (linkTags[i] == tag) {
+                    matchCounts.merge(linkRecipes[i], 1, Integer::sum);
+                    break;
+                }
+            }
+        }
+
+        boolean[] matches = new boolean[publicRecipes.length];
+        for (Map.Entry<Integer, Integer> entry : matchCounts.entrySet()) {
+            int recipe = entry.getKey();
+            if (entry.getValue() == filterTagOrdinals.length && (publicRecipes[recipe] || authors[recipe] == viewer)) {
+                matches[recipe] = true;
+            }
+        }
+
+        Map<Integer, Integer> tagCounts = new HashMap<>();
+        for (int i = 0; i < linkRecipes.length; i++) {
+            if (matches[linkRecipes[i]]) {
+                tagCounts.merge(linkTags[i], 1, Integer::sum);
+            }
+        }
+        return tagCounts;
+    }
+}